@@ -0,0 +1,206 @@
+package com.example.chat.budget;
+
+import com.example.chat.CustomerLiveChatApplication;
+import com.example.chat.domain.ChatMessageType;
+import com.example.chat.domain.ChatParticipant;
+import com.example.chat.domain.ConversationMetadata;
+import com.example.chat.observability.RedisRoundTrips;
+import com.example.chat.service.AgentAssignmentService;
+import com.example.chat.service.AgentQueueService;
+import com.example.chat.service.ConversationService;
+import com.example.chat.service.ParticipantIdentityService;
+import com.example.chat.service.PresenceService;
+import com.example.chat.websocket.SessionBinding;
+import com.example.chat.websocket.SocketSessionRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs every public service operation of one conversation lifecycle against real Redis,
+ * PostgreSQL and Kafka and compares the Redis round trips each one issued, as counted by
+ * {@link RedisRoundTrips}, with {@code redis-round-trip-budgets.properties}. Exits with status 1 when
+ * an operation is over budget or has no budget, so {@code ./gradlew redisBudget} fails.
+ *
+ * <p>The lifecycle runs {@value #ROUNDS} times with fresh participants and the worst count per
+ * operation is kept, so first-call effects such as lazily created codecs cannot hide a regression.
+ */
+public final class RedisRoundTripBudgetCheck {
+
+    private static final String BUDGETS = "redis-round-trip-budgets.properties";
+    private static final int ROUNDS = 3;
+
+    private final Map<String, Long> measured = new TreeMap<>();
+
+    private final ConversationService conversations;
+    private final AgentQueueService queue;
+    private final AgentAssignmentService assignments;
+    private final PresenceService presence;
+    private final ParticipantIdentityService identities;
+    private final SocketSessionRegistry sessions;
+
+    private RedisRoundTripBudgetCheck(ConfigurableApplicationContext context) {
+        this.conversations = context.getBean(ConversationService.class);
+        this.queue = context.getBean(AgentQueueService.class);
+        this.assignments = context.getBean(AgentAssignmentService.class);
+        this.presence = context.getBean(PresenceService.class);
+        this.identities = context.getBean(ParticipantIdentityService.class);
+        this.sessions = context.getBean(SocketSessionRegistry.class);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, Long> budgets = loadBudgets();
+        Map<String, Long> measured;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CustomerLiveChatApplication.class)
+                .run(withOverrides(args))) {
+            RedisRoundTripBudgetCheck check = new RedisRoundTripBudgetCheck(context);
+            for (int round = 0; round < ROUNDS; round++) {
+                check.runLifecycle();
+            }
+            measured = check.measured;
+        }
+        System.exit(report(measured, budgets) ? 0 : 1);
+    }
+
+    /**
+     * Command line arguments win over application.yml; the caller's own arguments come last so they
+     * can still override these.
+     */
+    private static String[] withOverrides(String[] args) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--chat.socketio.port=0",
+                "--chat.metrics.redis-round-trips=true",
+                "--chat.tracing.exporter=none",
+                "--management.tracing.sampling.probability=0.0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        arguments.addAll(List.of(args));
+        return arguments.toArray(String[]::new);
+    }
+
+    private void runLifecycle() {
+        String suffix = UUID.randomUUID().toString();
+        ChatParticipant customer = identities.resolveCustomer("budget-customer-" + suffix, null, "Budget Customer", Map.of());
+        ChatParticipant agent = identities.resolveAgent("budget-agent-" + suffix, "Budget Agent", Map.of());
+
+        measure("presence.session_opened", () -> presence.sessionOpened(agent.getId()));
+        measure("presence.mark_present", () -> presence.markPresent(customer.getId()));
+        measure("presence.flush", presence::flush);
+        measure("presence.last_seen", () -> presence.lastSeen(agent.getId()));
+        measure("presence.last_seen_bulk", () -> presence.lastSeen(List.of(agent.getId(), customer.getId())));
+        measure("presence.online_since", () -> presence.onlineSince(Instant.now().minusSeconds(60), 200));
+
+        String sessionId = UUID.randomUUID().toString();
+        measure("session.register", () -> sessions.register(SessionBinding.agent(sessionId, agent)));
+        measure("session.local", () -> sessions.local(sessionId));
+        measure("session.remove", () -> sessions.remove(sessionId));
+
+        ConversationMetadata conversation =
+                measure("conversation.start", () -> conversations.startConversation(customer, Map.of()));
+        String conversationId = conversation.getId();
+        ConversationMetadata reopened = measure("conversation.find_open",
+                () -> conversations.resumeOrStartConversation(customer, Map.of()));
+        if (!conversationId.equals(reopened.getId())) {
+            throw new IllegalStateException("Customer " + customer.getId() + " got a second open conversation");
+        }
+        measure("conversation.queue", () -> conversations.queueForAgent(conversation, "web"));
+
+        measure("queue.list", () -> queue.listQueue(0, 50));
+        measure("queue.peek", queue::peek);
+        measure("queue.position", () -> queue.position(conversationId));
+        measure("queue.size", queue::size);
+        measure("queue.touch", () -> queue.touch(conversationId));
+        measure("queue.purge", () -> queue.purgeOlderThan(Duration.ofDays(365)));
+
+        measure("assignment.can_assign", () -> assignments.canAssign(agent.getId()));
+        measure("conversation.accept", () -> conversations.acceptConversation(agent, conversationId));
+        measure("assignment.current", () -> assignments.currentAssignments(agent.getId()));
+
+        measure("conversation.send_message",
+                () -> conversations.sendMessage(conversationId, customer, "budget check", ChatMessageType.TEXT));
+        measure("conversation.get", () -> conversations.getConversation(conversationId));
+        measure("conversation.recent_messages", () -> conversations.getRecentMessages(conversationId, 50));
+        measure("conversation.messages_after", () -> conversations.getMessagesAfter(conversationId, -1, 50));
+        measure("conversation.agent_conversations",
+                () -> conversations.getConversationsForAgent(agent.getId(), Set.of()));
+        measure("conversation.close", () -> conversations.closeConversation(conversationId, agent));
+
+        ConversationMetadata abandoned = conversations.startConversation(customer, Map.of());
+        conversations.queueForAgent(abandoned, "web");
+        measure("conversation.close_queued", () -> conversations.closeConversation(abandoned.getId(), customer));
+        if (queue.position(abandoned.getId()) != -1) {
+            throw new IllegalStateException("Closed conversation " + abandoned.getId() + " is still queued");
+        }
+
+        measure("presence.session_closed", () -> presence.sessionClosed(agent.getId()));
+        presence.flush();
+        if (presence.lastSeen(agent.getId()).isPresent()) {
+            throw new IllegalStateException("Agent " + agent.getId() + " is still online after closing its only session");
+        }
+    }
+
+    private void measure(String operation, Runnable action) {
+        measure(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private <T> T measure(String operation, Supplier<T> action) {
+        long before = RedisRoundTrips.current();
+        T result = action.get();
+        measured.merge(operation, RedisRoundTrips.current() - before, Math::max);
+        return result;
+    }
+
+    private static Map<String, Long> loadBudgets() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = RedisRoundTripBudgetCheck.class.getClassLoader().getResourceAsStream(BUDGETS)) {
+            if (in == null) {
+                throw new IllegalStateException(BUDGETS + " not found on the classpath");
+            }
+            properties.load(in);
+        }
+        Map<String, Long> budgets = new TreeMap<>();
+        properties.stringPropertyNames().forEach(name -> budgets.put(name, Long.parseLong(properties.getProperty(name).trim())));
+        return budgets;
+    }
+
+    private static boolean report(Map<String, Long> measured, Map<String, Long> budgets) {
+        boolean withinBudget = true;
+        System.out.printf("%-36s %8s %8s%n", "operation", "measured", "budget");
+        for (Map.Entry<String, Long> entry : measured.entrySet()) {
+            Long budget = budgets.get(entry.getKey());
+            String verdict;
+            if (budget == null) {
+                verdict = "NO BUDGET";
+                withinBudget = false;
+            } else if (entry.getValue() > budget) {
+                verdict = "OVER BUDGET";
+                withinBudget = false;
+            } else if (entry.getValue() < budget) {
+                verdict = "ok, budget can be lowered";
+            } else {
+                verdict = "ok";
+            }
+            System.out.printf("%-36s %8d %8s  %s%n",
+                    entry.getKey(), entry.getValue(), budget != null ? budget : "-", verdict);
+        }
+        budgets.keySet().stream()
+                .filter(operation -> !measured.containsKey(operation))
+                .forEach(operation -> System.out.println("budget for unknown operation: " + operation));
+        return withinBudget;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.chat.benchmark;
+
+import com.example.chat.domain.ChatMessage;
+import com.example.chat.domain.ChatMessageType;
+import com.example.chat.domain.ChatParticipant;
+import com.example.chat.domain.ConversationMetadata;
+import com.example.chat.domain.ConversationStatus;
+import com.example.chat.domain.ParticipantType;
+import com.example.chat.domain.QueueEntry;
+import com.example.chat.websocket.SessionBinding;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Representative payloads shared by the serialization benchmarks, sized like production traffic:
+ * participants carry a few metadata entries, messages a short sentence.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Same configuration as the application's primary {@link ObjectMapper}.
+     */
+    static ObjectMapper objectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+
+    static ChatParticipant customer() {
+        return ChatParticipant.builder()
+                .id("customer-" + UUID.randomUUID())
+                .type(ParticipantType.CUSTOMER)
+                .displayName("Benchmark Customer")
+                .metadata(Map.of("role", "customer", "phone", "+10000000000", "locale", "en-US"))
+                .build();
+    }
+
+    static ChatParticipant agent() {
+        return ChatParticipant.builder()
+                .id("agent-" + UUID.randomUUID())
+                .type(ParticipantType.AGENT)
+                .displayName("Benchmark Agent")
+                .metadata(Map.of("role", "agent", "team", "billing"))
+                .build();
+    }
+
+    static ConversationMetadata assignedConversation() {
+        Instant now = Instant.now();
+        return ConversationMetadata.builder()
+                .id(UUID.randomUUID().toString())
+                .status(ConversationStatus.ASSIGNED)
+                .customer(customer())
+                .agent(agent())
+                .tags(List.of("benchmark", "web"))
+                .attributes(Map.of("channel", "web", "page", "/checkout", "campaign", "spring-sale"))
+                .createdAt(now)
+                .updatedAt(now)
+                .acceptedAt(now)
+                .version(3L)
+                .build();
+    }
+
+    static ChatMessage message(String conversationId) {
+        return ChatMessage.builder()
+                .id(UUID.randomUUID().toString())
+                .conversationId(conversationId)
+                .type(ChatMessageType.TEXT)
+                .sender(customer())
+                .content("Hi, I was charged twice for my last order, can you take a look?")
+                .metadata(Map.of("clientMessageId", UUID.randomUUID().toString()))
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    static QueueEntry queueEntry() {
+        return QueueEntry.builder()
+                .conversationId(UUID.randomUUID().toString())
+                .enqueuedAt(Instant.now())
+                .customerId("customer-" + UUID.randomUUID())
+                .channel("web")
+                .customerName("Benchmark Customer")
+                .customerPhone("+10000000000")
+                .build();
+    }
+
+    static SessionBinding sessionBinding() {
+        return SessionBinding.conversation(UUID.randomUUID().toString(), customer(), UUID.randomUUID().toString());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.chat.benchmark;
+
+import com.example.chat.config.ChatDataSourceProperties;
+import com.example.chat.config.ChatProperties;
+import com.example.chat.persistence.ConversationEntity;
+import com.example.chat.persistence.ConversationEntityMapper;
+import com.example.chat.persistence.ConversationEventLog;
+import com.example.chat.persistence.ConversationJpaRepository;
+import com.example.chat.persistence.JpaConversationRepository;
+import com.example.chat.persistence.RecentWriteTracker;
+import com.example.chat.service.RedisKeyFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * Minimal JPA context for persistence benchmarks. Only the conversation table and its event log are
+ * wired; Redis and Kafka are left out, so benchmarks must not touch message lists. Connection
+ * settings use the same environment variables as {@code application.yml}.
+ */
+@Configuration
+@EnableTransactionManagement(proxyTargetClass = true)
+@EnableJpaRepositories(basePackageClasses = ConversationJpaRepository.class)
+public class BenchmarkPersistenceConfig {
+
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(env("DATABASE_URL", "jdbc:postgresql://localhost:5432/chatdb"));
+        dataSource.setUsername(env("DATABASE_USERNAME", "chat"));
+        dataSource.setPassword(env("DATABASE_PASSWORD", "chat"));
+        dataSource.setMaximumPoolSize(16);
+        return dataSource;
+    }
+
+    @Bean(initMethod = "migrate")
+    public Flyway flyway(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load();
+    }
+
+    @Bean
+    @DependsOn("flyway")
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan(ConversationEntity.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        return factory;
+    }
+
+    @Bean
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    @Bean
+    public ObjectMapper objectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+
+    @Bean
+    public ChatProperties chatProperties() {
+        return new ChatProperties();
+    }
+
+    @Bean
+    public ConversationEntityMapper conversationEntityMapper(ObjectMapper objectMapper) {
+        return new ConversationEntityMapper(objectMapper);
+    }
+
+    @Bean
+    public JpaConversationRepository jpaConversationRepository(
+            ConversationJpaRepository conversationJpaRepository,
+            ConversationEntityMapper mapper,
+            ChatProperties chatProperties,
+            ObjectMapper objectMapper,
+            DataSource dataSource) {
+        return new JpaConversationRepository(
+                conversationJpaRepository,
+                mapper,
+                null,
+                new RedisKeyFactory(chatProperties),
+                chatProperties,
+                objectMapper,
+                new RecentWriteTracker(new ChatDataSourceProperties()),
+                new ConversationEventLog(new JdbcTemplate(dataSource), mapper, objectMapper));
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value != null && !value.isBlank() ? value : fallback;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.chat.benchmark;
+
+import com.example.chat.domain.ConversationMetadata;
+import com.example.chat.persistence.ConversationEntity;
+import com.example.chat.persistence.ConversationEntityMapper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of {@link ConversationEntityMapper} in both directions. {@code toMetadata} leaves JSON columns
+ * undecoded until read, so it is measured on its own, with every JSON field read, and as the
+ * read-modify-write round trip the repository does, where undecoded columns are written back as is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConversationMapperBenchmark {
+
+    private ConversationEntityMapper mapper;
+    private ConversationMetadata metadata;
+    private ConversationEntity entity;
+
+    @Setup
+    public void setUp() {
+        mapper = new ConversationEntityMapper(BenchmarkFixtures.objectMapper());
+        metadata = BenchmarkFixtures.assignedConversation();
+        entity = mapper.toEntity(metadata);
+    }
+
+    @Benchmark
+    public ConversationEntity toEntity() {
+        return mapper.toEntity(metadata);
+    }
+
+    @Benchmark
+    public ConversationMetadata toMetadata() {
+        return mapper.toMetadata(entity);
+    }
+
+    @Benchmark
+    public void toMetadataMaterialized(Blackhole blackhole) {
+        ConversationMetadata mapped = mapper.toMetadata(entity);
+        blackhole.consume(mapped.getCustomer().getMetadata().size());
+        blackhole.consume(mapped.getAgent().getMetadata().size());
+        blackhole.consume(mapped.getTags().size());
+        blackhole.consume(mapped.getAttributes().size());
+    }
+
+    @Benchmark
+    public ConversationEntity roundTrip() {
+        return mapper.toEntity(mapper.toMetadata(entity));
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.chat.benchmark;
+
+import com.example.chat.domain.ChatParticipant;
+import com.example.chat.domain.ConversationMetadata;
+import com.example.chat.domain.ConversationStatus;
+import com.example.chat.domain.ParticipantType;
+import com.example.chat.persistence.ConversationJpaRepository;
+import com.example.chat.persistence.JpaConversationRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Rows/sec of the conversation write paths against a local PostgreSQL: the full-row merge done by
+ * {@code saveConversation} versus the narrow version-checked updates used for state transitions.
+ * Each thread updates its own set of rows so the numbers are not dominated by optimistic conflicts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ConversationUpdateBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Persistence {
+
+        AnnotationConfigApplicationContext context;
+        JpaConversationRepository repository;
+        ConversationJpaRepository jpaRepository;
+        TransactionTemplate transactionTemplate;
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = new AnnotationConfigApplicationContext(BenchmarkPersistenceConfig.class);
+            repository = context.getBean(JpaConversationRepository.class);
+            jpaRepository = context.getBean(ConversationJpaRepository.class);
+            transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Rows {
+
+        @Param("256")
+        int rowsPerThread;
+
+        List<ConversationMetadata> conversations;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void insert(Persistence persistence) {
+            conversations = new ArrayList<>(rowsPerThread);
+            for (int i = 0; i < rowsPerThread; i++) {
+                ConversationMetadata conversation = sampleConversation();
+                persistence.repository.saveConversation(conversation);
+                conversations.add(persistence.repository.getConversation(conversation.getId()).orElseThrow());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void delete(Persistence persistence) {
+            persistence.jpaRepository.deleteAllById(
+                    conversations.stream().map(ConversationMetadata::getId).toList());
+        }
+
+        ConversationMetadata next() {
+            ConversationMetadata conversation = conversations.get(cursor);
+            cursor = (cursor + 1) % conversations.size();
+            return conversation;
+        }
+    }
+
+    @Benchmark
+    public ConversationMetadata fullRowSave(Persistence persistence, Rows rows) {
+        String id = rows.next().getId();
+        return persistence.transactionTemplate.execute(status -> {
+            ConversationMetadata conversation = persistence.repository.getConversation(id).orElseThrow();
+            conversation.setUpdatedAt(Instant.now());
+            persistence.repository.saveConversation(conversation);
+            return conversation;
+        });
+    }
+
+    @Benchmark
+    public ConversationMetadata narrowTouch(Persistence persistence, Rows rows) {
+        String id = rows.next().getId();
+        return persistence.transactionTemplate.execute(status -> {
+            ConversationMetadata conversation = persistence.repository.getConversation(id).orElseThrow();
+            conversation.setUpdatedAt(Instant.now());
+            persistence.repository.touch(conversation);
+            return conversation;
+        });
+    }
+
+    @Benchmark
+    public ConversationMetadata narrowTouchWithKnownVersion(Persistence persistence, Rows rows) {
+        ConversationMetadata conversation = rows.next();
+        conversation.setUpdatedAt(Instant.now());
+        persistence.repository.touch(conversation);
+        return conversation;
+    }
+
+    private static ConversationMetadata sampleConversation() {
+        Instant now = Instant.now();
+        return ConversationMetadata.builder()
+                .id(UUID.randomUUID().toString())
+                .status(ConversationStatus.OPEN)
+                .customer(ChatParticipant.builder()
+                        .id("bench-" + UUID.randomUUID())
+                        .type(ParticipantType.CUSTOMER)
+                        .displayName("Benchmark Customer")
+                        .metadata(Map.of("role", "customer", "phone", "+10000000000", "locale", "en-US"))
+                        .build())
+                .tags(List.of("benchmark", "web"))
+                .attributes(Map.of("channel", "web", "page", "/checkout", "campaign", "spring-sale"))
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.chat.benchmark;
+
+import com.example.chat.service.id.IdGenerator;
+import com.example.chat.service.id.RandomUuidIdGenerator;
+import com.example.chat.service.id.TimeOrderedIdGenerator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Id generation throughput of the random (v4) and time-ordered (v7) generators, single-threaded and
+ * with eight threads sharing one generator instance as the service beans do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IdGeneratorBenchmark {
+
+    private final IdGenerator random = new RandomUuidIdGenerator();
+    private final IdGenerator timeOrdered = new TimeOrderedIdGenerator();
+
+    @Benchmark
+    public String randomUuid() {
+        return random.nextId();
+    }
+
+    @Benchmark
+    public String timeOrdered() {
+        return timeOrdered.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String randomUuidContended() {
+        return random.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String timeOrderedContended() {
+        return timeOrdered.nextId();
+    }
+}
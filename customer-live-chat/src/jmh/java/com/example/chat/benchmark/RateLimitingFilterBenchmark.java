@@ -0,0 +1,112 @@
+package com.example.chat.benchmark;
+
+import com.example.chat.config.ChatProperties;
+import com.example.chat.config.ChatSecurityProperties;
+import com.example.chat.config.LocalRateLimitBucketStore;
+import com.example.chat.config.RateLimitingFilter;
+import com.example.chat.config.RouteTemplateResolver;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * Per-request overhead of {@link RateLimitingFilter} with the local bucket store: route template
+ * resolution plus bucket lookup and consumption. Requests rotate over {@code distinctIds}
+ * conversation ids and {@code distinctClients} client addresses to mimic real URI churn.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RateLimitingFilterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Filter {
+
+        RateLimitingFilter filter;
+
+        @Setup
+        public void setUp() {
+            ChatSecurityProperties properties = new ChatSecurityProperties();
+            ChatSecurityProperties.RateLimit rateLimit = properties.getRateLimit();
+            rateLimit.setCapacity(Long.MAX_VALUE / 2);
+            rateLimit.setRefillTokens(Long.MAX_VALUE / 2);
+
+            PathPatternParser parser = new PathPatternParser();
+            RouteTemplateResolver resolver = new RouteTemplateResolver(() -> List.of(
+                    parser.parse("/api/conversations"),
+                    parser.parse("/api/conversations/{conversationId}"),
+                    parser.parse("/api/conversations/{conversationId}/messages"),
+                    parser.parse("/api/conversations/{conversationId}/close"),
+                    parser.parse("/api/agents/{agentId}/conversations"),
+                    parser.parse("/api/queue")));
+            filter = new RateLimitingFilter(
+                    properties,
+                    new LocalRateLimitBucketStore(rateLimit.getMaxBuckets(), Duration.ofMinutes(5)),
+                    resolver,
+                    new ChatProperties());
+        }
+    }
+
+    /**
+     * Mock requests are not thread-safe (the filter sets request attributes), so each thread cycles
+     * through its own copies.
+     */
+    @State(Scope.Thread)
+    public static class Requests {
+
+        @Param({"1000"})
+        int distinctIds;
+
+        @Param({"100"})
+        int distinctClients;
+
+        MockHttpServletRequest[] requests;
+        int cursor;
+
+        @Setup
+        public void setUp() {
+            requests = new MockHttpServletRequest[distinctIds];
+            for (int i = 0; i < distinctIds; i++) {
+                MockHttpServletRequest request =
+                        new MockHttpServletRequest("GET", "/api/conversations/conv-" + i + "/messages");
+                request.setRemoteAddr("10.0.0." + (i % distinctClients));
+                requests[i] = request;
+            }
+        }
+
+        MockHttpServletRequest next() {
+            MockHttpServletRequest request = requests[cursor];
+            cursor = (cursor + 1) % requests.length;
+            return request;
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletResponse filterRequest(Filter filter, Requests requests) throws Exception {
+        return doFilter(filter, requests.next());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public MockHttpServletResponse filterRequestContended(Filter filter, Requests requests) throws Exception {
+        return doFilter(filter, requests.next());
+    }
+
+    private static MockHttpServletResponse doFilter(Filter filter, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.chat.benchmark;
+
+import com.example.chat.domain.ChatMessage;
+import com.example.chat.domain.QueueEntry;
+import com.example.chat.websocket.SessionBinding;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.handler.State;
+import org.redisson.codec.TypedJsonJacksonCodec;
+
+/**
+ * {@link TypedJsonJacksonCodec} encode and decode for the values the service keeps in Redis, built
+ * exactly like the repositories and gateway build them: messages as list values, queue entries and
+ * session bindings as map values.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RedisCodecBenchmark {
+
+    private static final State DECODER_STATE = new State();
+
+    private Codec messageCodec;
+    private Codec queueEntryCodec;
+    private Codec sessionCodec;
+
+    private ChatMessage message;
+    private QueueEntry queueEntry;
+    private SessionBinding sessionBinding;
+
+    private byte[] encodedMessage;
+    private byte[] encodedQueueEntry;
+    private byte[] encodedSessionBinding;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        messageCodec = new TypedJsonJacksonCodec(ChatMessage.class, objectMapper);
+        queueEntryCodec = new TypedJsonJacksonCodec(String.class, QueueEntry.class, objectMapper);
+        sessionCodec = new TypedJsonJacksonCodec(String.class, SessionBinding.class, objectMapper);
+
+        message = BenchmarkFixtures.message("conversation-1");
+        queueEntry = BenchmarkFixtures.queueEntry();
+        sessionBinding = BenchmarkFixtures.sessionBinding();
+
+        encodedMessage = toBytes(messageCodec.getValueEncoder().encode(message));
+        encodedQueueEntry = toBytes(queueEntryCodec.getMapValueEncoder().encode(queueEntry));
+        encodedSessionBinding = toBytes(sessionCodec.getMapValueEncoder().encode(sessionBinding));
+    }
+
+    @Benchmark
+    public int encodeMessage() throws IOException {
+        return release(messageCodec.getValueEncoder().encode(message));
+    }
+
+    @Benchmark
+    public Object decodeMessage() throws IOException {
+        return messageCodec.getValueDecoder().decode(Unpooled.wrappedBuffer(encodedMessage), DECODER_STATE);
+    }
+
+    @Benchmark
+    public int encodeQueueEntry() throws IOException {
+        return release(queueEntryCodec.getMapValueEncoder().encode(queueEntry));
+    }
+
+    @Benchmark
+    public Object decodeQueueEntry() throws IOException {
+        return queueEntryCodec.getMapValueDecoder().decode(Unpooled.wrappedBuffer(encodedQueueEntry), DECODER_STATE);
+    }
+
+    @Benchmark
+    public int encodeSessionBinding() throws IOException {
+        return release(sessionCodec.getMapValueEncoder().encode(sessionBinding));
+    }
+
+    @Benchmark
+    public Object decodeSessionBinding() throws IOException {
+        return sessionCodec.getMapValueDecoder().decode(Unpooled.wrappedBuffer(encodedSessionBinding), DECODER_STATE);
+    }
+
+    private static byte[] toBytes(ByteBuf buffer) {
+        try {
+            return ByteBufUtil.getBytes(buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static int release(ByteBuf buffer) {
+        int size = buffer.readableBytes();
+        buffer.release();
+        return size;
+    }
+}
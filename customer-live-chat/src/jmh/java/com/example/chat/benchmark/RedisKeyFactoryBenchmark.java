@@ -0,0 +1,59 @@
+package com.example.chat.benchmark;
+
+import com.example.chat.config.ChatProperties;
+import com.example.chat.service.RedisKeyFactory;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Key formatting in {@link RedisKeyFactory}, called several times per conversation operation: a
+ * per-conversation key, a per-participant key and a fixed queue key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RedisKeyFactoryBenchmark {
+
+    private RedisKeyFactory keyFactory;
+    private String conversationId;
+    private String participantId;
+
+    @Setup
+    public void setUp() {
+        keyFactory = new RedisKeyFactory(new ChatProperties());
+        conversationId = UUID.randomUUID().toString();
+        participantId = "customer-" + UUID.randomUUID();
+    }
+
+    @Benchmark
+    public String conversationKey() {
+        return keyFactory.conversationKey(conversationId);
+    }
+
+    @Benchmark
+    public String messagesKey() {
+        return keyFactory.messagesKey(conversationId);
+    }
+
+    @Benchmark
+    public String conversationAssignmentLockKey() {
+        return keyFactory.conversationAssignmentLockKey(conversationId);
+    }
+
+    @Benchmark
+    public String presenceOnlineKey() {
+        return keyFactory.presenceOnlineKey();
+    }
+
+    @Benchmark
+    public String queueLockKey() {
+        return keyFactory.queueLockKey();
+    }
+}
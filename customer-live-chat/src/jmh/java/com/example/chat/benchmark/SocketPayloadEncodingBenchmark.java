@@ -0,0 +1,94 @@
+package com.example.chat.benchmark;
+
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.protocol.EngineIOVersion;
+import com.corundumstudio.socketio.protocol.Packet;
+import com.corundumstudio.socketio.protocol.PacketEncoder;
+import com.corundumstudio.socketio.protocol.PacketType;
+import com.example.chat.config.SpringJacksonJsonSupport;
+import com.example.chat.domain.ChatMessage;
+import com.example.chat.domain.ConversationMetadata;
+import com.example.chat.domain.QueueEntry;
+import com.example.chat.dto.SocketHandshakeResponse;
+import com.example.chat.service.QueueEventSubscriber;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Socket.IO event encoding through {@link SpringJacksonJsonSupport}, framed by netty-socketio's
+ * {@link PacketEncoder} the same way every room broadcast is: a chat message, the handshake
+ * response and a queue snapshot of {@code queueSize} entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SocketPayloadEncodingBenchmark {
+
+    @Param("50")
+    int queueSize;
+
+    private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+
+    private PacketEncoder encoder;
+    private ChatMessage message;
+    private SocketHandshakeResponse handshake;
+    private List<QueueEntry> queueSnapshot;
+
+    @Setup
+    public void setUp() {
+        encoder = new PacketEncoder(new Configuration(), new SpringJacksonJsonSupport(BenchmarkFixtures.objectMapper()));
+        ConversationMetadata conversation = BenchmarkFixtures.assignedConversation();
+        message = BenchmarkFixtures.message(conversation.getId());
+        handshake = SocketHandshakeResponse.builder()
+                .participant(conversation.getCustomer())
+                .conversation(conversation)
+                .build();
+        queueSnapshot = new ArrayList<>(queueSize);
+        for (int i = 0; i < queueSize; i++) {
+            queueSnapshot.add(BenchmarkFixtures.queueEntry());
+        }
+    }
+
+    @Benchmark
+    public int chatMessage() throws IOException {
+        return encode("chat:message", message);
+    }
+
+    @Benchmark
+    public int handshakeResponse() throws IOException {
+        return encode("system:event", handshake);
+    }
+
+    @Benchmark
+    public int queueSnapshot() throws IOException {
+        return encode(QueueEventSubscriber.QUEUE_EVENT, queueSnapshot);
+    }
+
+    private int encode(String event, Object payload) throws IOException {
+        Packet packet = new Packet(PacketType.MESSAGE, EngineIOVersion.V4);
+        packet.setSubType(PacketType.EVENT);
+        packet.setName(event);
+        packet.setData(Collections.singletonList(payload));
+        ByteBuf buffer = encoder.allocateBuffer(allocator);
+        try {
+            encoder.encodePacket(packet, buffer, allocator, false);
+            return buffer.readableBytes();
+        } finally {
+            buffer.release();
+        }
+    }
+}
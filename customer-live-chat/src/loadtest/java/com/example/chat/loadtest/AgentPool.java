@@ -0,0 +1,194 @@
+package com.example.chat.loadtest;
+
+import io.socket.client.Ack;
+import io.socket.client.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Simulated agents. Every agent keeps a queue subscription open, as the agent dashboard does, and
+ * holds up to {@code agent-concurrency} conversations. Conversations wait in arrival order for a
+ * free slot without blocking a thread.
+ *
+ * <p>With {@code --agent-socket=multiplexed} the subscription is a {@code scope=agent} socket that
+ * also carries the agent's conversations: sessions join and leave rooms on it and messages are
+ * dispatched to them by conversation id.
+ */
+final class AgentPool {
+
+    private final LoadTestOptions options;
+    private final SocketConnector connector;
+    private final LatencyReport report;
+    private final Executor executor;
+
+    private final List<String> agentIds = new ArrayList<>();
+    private final List<Socket> queueSockets = new ArrayList<>();
+    private final Map<String, Socket> agentSockets = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<Object[]>> messageListeners = new ConcurrentHashMap<>();
+    private final Deque<String> freeSlots = new ArrayDeque<>();
+    private final Deque<SlotRequest> waiting = new ArrayDeque<>();
+    private final AtomicLong queueSnapshots = new AtomicLong();
+
+    AgentPool(LoadTestOptions options, SocketConnector connector, LatencyReport report, Executor executor) {
+        this.options = options;
+        this.connector = connector;
+        this.report = report;
+        this.executor = executor;
+        for (int i = 0; i < options.agents; i++) {
+            agentIds.add("lt-" + options.runId + "-agent-" + i);
+        }
+        for (int slot = 0; slot < options.agentConcurrency; slot++) {
+            freeSlots.addAll(agentIds);
+        }
+    }
+
+    /**
+     * Opens the queue subscriptions; completes once every agent received its first snapshot.
+     */
+    CompletableFuture<Void> start() {
+        List<CompletableFuture<Void>> subscribed = new ArrayList<>();
+        for (String agentId : agentIds) {
+            CompletableFuture<Void> firstSnapshot = new CompletableFuture<>();
+            long started = System.nanoTime();
+            Socket socket = multiplexed()
+                    ? connector.socket(Map.of("scope", "agent", "token", agentId, "displayName", "Load Agent"))
+                    : connector.socket(Map.of("scope", "queue", "role", "agent", "token", agentId));
+            if (multiplexed()) {
+                socket.on("chat:message", this::dispatchMessage);
+                agentSockets.put(agentId, socket);
+            }
+            socket.on("queue:snapshot", args -> {
+                queueSnapshots.incrementAndGet();
+                if (firstSnapshot.complete(null)) {
+                    report.recordSince(LatencyReport.QUEUE_HANDSHAKE, started);
+                }
+            });
+            socket.on(Socket.EVENT_CONNECT_ERROR, args -> firstSnapshot.completeExceptionally(
+                    new IllegalStateException("Queue subscription failed for " + agentId)));
+            synchronized (queueSockets) {
+                queueSockets.add(socket);
+            }
+            socket.connect();
+            subscribed.add(firstSnapshot.orTimeout(options.stepTimeout.toMillis(), TimeUnit.MILLISECONDS));
+        }
+        return CompletableFuture.allOf(subscribed.toArray(CompletableFuture[]::new));
+    }
+
+    boolean multiplexed() {
+        return options.agentSocket == LoadTestOptions.AgentSocketMode.MULTIPLEXED;
+    }
+
+    /**
+     * Joins the conversation room on the agent's shared socket; completes with the ack.
+     */
+    CompletableFuture<Void> join(String agentId, String conversationId, Consumer<Object[]> onMessage) {
+        CompletableFuture<Void> joined = new CompletableFuture<>();
+        messageListeners.put(conversationId, onMessage);
+        emit(agentId, "conversation:join", conversationId, joined);
+        return joined;
+    }
+
+    void leave(String agentId, String conversationId) {
+        if (messageListeners.remove(conversationId) != null) {
+            emit(agentId, "conversation:leave", conversationId, new CompletableFuture<>());
+        }
+    }
+
+    Socket socket(String agentId) {
+        return agentSockets.get(agentId);
+    }
+
+    CompletableFuture<String> acquire() {
+        return acquire(1).thenApply(slots -> slots.get(0));
+    }
+
+    /**
+     * Takes {@code count} slots at once, so conversations waiting for several never hold some of
+     * them while blocking each other. The slots belong to different agents where possible.
+     */
+    synchronized CompletableFuture<List<String>> acquire(int count) {
+        if (waiting.isEmpty() && freeSlots.size() >= count) {
+            return CompletableFuture.completedFuture(take(count));
+        }
+        CompletableFuture<List<String>> slots = new CompletableFuture<>();
+        waiting.addLast(new SlotRequest(count, slots));
+        return slots;
+    }
+
+    synchronized void release(String agentId) {
+        freeSlots.addLast(agentId);
+        while (!waiting.isEmpty() && freeSlots.size() >= waiting.peekFirst().count()) {
+            SlotRequest next = waiting.pollFirst();
+            List<String> slots = take(next.count());
+            executor.execute(() -> next.slots().complete(slots));
+        }
+    }
+
+    private List<String> take(int count) {
+        List<String> slots = new ArrayList<>(count);
+        for (Iterator<String> free = freeSlots.iterator(); free.hasNext() && slots.size() < count; ) {
+            String agentId = free.next();
+            if (!slots.contains(agentId)) {
+                slots.add(agentId);
+                free.remove();
+            }
+        }
+        while (slots.size() < count) {
+            slots.add(freeSlots.pollFirst());
+        }
+        return slots;
+    }
+
+    private void emit(String agentId, String event, String conversationId, CompletableFuture<Void> acked) {
+        JSONObject request = new JSONObject();
+        try {
+            request.put("conversationId", conversationId);
+        } catch (JSONException ex) {
+            acked.completeExceptionally(ex);
+            return;
+        }
+        socket(agentId).emit(event, new Object[] {request}, (Ack) args -> {
+            JSONObject ack = SocketConnector.payload(args);
+            if (ack != null && ack.has("error")) {
+                acked.completeExceptionally(new IllegalStateException(event + " rejected: " + ack.optString("error")));
+            } else {
+                acked.complete(null);
+            }
+        });
+    }
+
+    private void dispatchMessage(Object[] args) {
+        JSONObject message = SocketConnector.payload(args);
+        Consumer<Object[]> listener = message != null ? messageListeners.get(message.optString("conversationId")) : null;
+        if (listener != null) {
+            listener.accept(args);
+        }
+    }
+
+    long queueSnapshots() {
+        return queueSnapshots.get();
+    }
+
+    void stop() {
+        synchronized (queueSockets) {
+            queueSockets.forEach(Socket::close);
+            queueSockets.clear();
+        }
+        agentSockets.clear();
+    }
+
+    private record SlotRequest(int count, CompletableFuture<List<String>> slots) {
+    }
+}
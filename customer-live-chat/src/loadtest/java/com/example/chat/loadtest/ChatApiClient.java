@@ -0,0 +1,75 @@
+package com.example.chat.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The REST calls of the conversation lifecycle that have no socket equivalent: queueing for an
+ * agent, accepting and closing.
+ */
+final class ChatApiClient {
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final Duration timeout;
+
+    ChatApiClient(LoadTestOptions options, Executor executor) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(options.stepTimeout)
+                .executor(executor)
+                .build();
+        this.baseUrl = options.httpBase();
+        this.timeout = options.stepTimeout;
+    }
+
+    CompletableFuture<Void> queue(String conversationId) {
+        return post("/api/conversations/" + conversationId + "/queue", "{\"channel\":\"loadtest\"}");
+    }
+
+    CompletableFuture<Void> accept(String conversationId, String agentId) {
+        return post(acceptPath(conversationId), acceptBody(agentId));
+    }
+
+    /**
+     * Accepts and completes with the status code, whatever it is; for races where most agents are
+     * expected to lose.
+     */
+    CompletableFuture<Integer> tryAccept(String conversationId, String agentId) {
+        return send(acceptPath(conversationId), acceptBody(agentId)).thenApply(HttpResponse::statusCode);
+    }
+
+    CompletableFuture<Void> close(String conversationId, String agentId) {
+        return post("/api/agent/conversations/" + conversationId + "/close", "{\"agentId\":\"" + agentId + "\"}");
+    }
+
+    private static String acceptPath(String conversationId) {
+        return "/api/agent/conversations/" + conversationId + "/accept";
+    }
+
+    private static String acceptBody(String agentId) {
+        return "{\"agentId\":\"" + agentId + "\",\"displayName\":\"Load Agent\"}";
+    }
+
+    private CompletableFuture<Void> post(String path, String body) {
+        return send(path, body).thenAccept(response -> {
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("POST " + path + " returned " + response.statusCode() + ": " + response.body());
+            }
+        });
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(String path, String body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
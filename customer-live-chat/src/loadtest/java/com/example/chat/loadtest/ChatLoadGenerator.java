@@ -0,0 +1,100 @@
+package com.example.chat.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Socket.IO load generator for sizing chat nodes. Starts {@code agents} queue subscribers, then
+ * brings in {@code customers} conversations at {@code arrival-rate} per second, each running the
+ * full queue, accept, message and close lifecycle, and prints HdrHistogram percentiles per step.
+ * With {@code --accept-race=N} every conversation is accepted by N agents at once, which measures
+ * accept latency under contention and checks that only one of them wins. Run it through
+ * {@code ./gradlew loadTest} against a local instance.
+ */
+public final class ChatLoadGenerator {
+
+    private ChatLoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        System.out.println("Load test " + options.runId + ": " + options);
+
+        LatencyReport report = new LatencyReport();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        SocketConnector connector = new SocketConnector(options);
+        ChatApiClient api = new ChatApiClient(options, workers);
+        AgentPool agents = new AgentPool(options, connector, report, workers);
+
+        int exitCode;
+        try {
+            agents.start().get(options.stepTimeout.toMillis() * 2, TimeUnit.MILLISECONDS);
+            System.out.println("Agents subscribed to the queue: " + options.agents);
+
+            long started = System.nanoTime();
+            List<CompletableFuture<Void>> conversations = runArrivals(options, api, connector, agents, report, scheduler);
+            CompletableFuture.allOf(conversations.stream()
+                            .map(conversation -> conversation.exceptionally(failure -> null))
+                            .toArray(CompletableFuture[]::new))
+                    .join();
+            double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+            long failed = conversations.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+            System.out.printf("%nConversations: %d completed, %d failed in %.1fs (%.1f/s), queue snapshots received: %d%n%n",
+                    conversations.size() - failed, failed, elapsedSeconds,
+                    (conversations.size() - failed) / elapsedSeconds, agents.queueSnapshots());
+            report.print(System.out);
+            if (options.reportDir != null) {
+                report.write(options.reportDir.resolve(options.runId));
+                System.out.println("Percentile distributions written to " + options.reportDir.resolve(options.runId));
+            }
+            exitCode = failed > 0 ? 1 : 0;
+        } finally {
+            agents.stop();
+            scheduler.shutdownNow();
+            workers.shutdownNow();
+            connector.shutdown();
+        }
+        System.exit(exitCode);
+    }
+
+    private static List<CompletableFuture<Void>> runArrivals(
+            LoadTestOptions options,
+            ChatApiClient api,
+            SocketConnector connector,
+            AgentPool agents,
+            LatencyReport report,
+            ScheduledExecutorService scheduler) throws InterruptedException {
+        List<CompletableFuture<Void>> conversations = new ArrayList<>(options.customers);
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch arrived = new CountDownLatch(options.customers);
+        long periodNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / options.arrivalRate));
+        ScheduledFuture<?> arrivals = scheduler.scheduleAtFixedRate(() -> {
+            int index = next.getAndIncrement();
+            if (index >= options.customers) {
+                return;
+            }
+            CompletableFuture<Void> conversation =
+                    new ConversationSession(index, options, api, connector, agents, report, scheduler).run();
+            synchronized (conversations) {
+                conversations.add(conversation);
+            }
+            arrived.countDown();
+        }, 0, periodNanos, TimeUnit.NANOSECONDS);
+        arrived.await();
+        arrivals.cancel(false);
+        synchronized (conversations) {
+            return new ArrayList<>(conversations);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.chat.loadtest;
+
+import io.socket.client.Ack;
+import io.socket.client.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.json.JSONObject;
+
+/**
+ * One customer conversation: connect (which starts the conversation), queue, get accepted by an
+ * agent (or raced for by {@code accept-race} agents) who then joins the room on its shared socket
+ * (or, in {@code per-conversation} mode, over a socket of its own), exchange messages alternately
+ * and close. Message latency is measured from emit on one socket to the room broadcast arriving on
+ * the other; the send time travels in the message content.
+ */
+final class ConversationSession {
+
+    private static final String MESSAGE_EVENT = "chat:message";
+    private static final String CONTENT_PREFIX = "lt:";
+
+    private final int index;
+    private final LoadTestOptions options;
+    private final ChatApiClient api;
+    private final SocketConnector connector;
+    private final AgentPool agents;
+    private final LatencyReport report;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicInteger delivered = new AtomicInteger();
+    private final CompletableFuture<Void> allDelivered = new CompletableFuture<>();
+
+    private volatile String step = "start";
+    private volatile String conversationId;
+    private volatile String agentId;
+    private volatile boolean accepted;
+    private volatile boolean closed;
+    private volatile Socket customerSocket;
+    private volatile Socket agentSocket;
+
+    ConversationSession(
+            int index,
+            LoadTestOptions options,
+            ChatApiClient api,
+            SocketConnector connector,
+            AgentPool agents,
+            LatencyReport report,
+            ScheduledExecutorService scheduler) {
+        this.index = index;
+        this.options = options;
+        this.api = api;
+        this.connector = connector;
+        this.agents = agents;
+        this.report = report;
+        this.scheduler = scheduler;
+    }
+
+    CompletableFuture<Void> run() {
+        String customerId = "lt-" + options.runId + "-customer-" + index;
+        return connectCustomer(customerId)
+                .thenCompose(id -> {
+                    conversationId = id;
+                    return timed(LatencyReport.QUEUE, "queue", api.queue(id));
+                })
+                .thenCompose(ignored -> acceptByAgent())
+                .thenCompose(ignored -> connectAgent())
+                .thenCompose(ignored -> exchangeMessages())
+                .thenCompose(ignored -> timed(LatencyReport.CLOSE, "close", api.close(conversationId, agentId)))
+                .thenRun(() -> closed = true)
+                .whenComplete((ignored, failure) -> finish(failure));
+    }
+
+    private CompletableFuture<String> connectCustomer(String customerId) {
+        step = "customer.handshake";
+        CompletableFuture<String> handshake = new CompletableFuture<>();
+        long started = System.nanoTime();
+        Socket socket = connector.socket(Map.of("role", "customer", "token", customerId, "displayName", "Load Customer"));
+        socket.on("system:event", args -> {
+            JSONObject payload = SocketConnector.payload(args);
+            JSONObject conversation = payload != null ? payload.optJSONObject("conversation") : null;
+            if (conversation != null && handshake.complete(conversation.optString("id"))) {
+                report.recordSince(LatencyReport.CUSTOMER_HANDSHAKE, started);
+            }
+        });
+        socket.on(MESSAGE_EVENT, args -> onMessage(args, "AGENT", LatencyReport.AGENT_TO_CUSTOMER));
+        failOn(socket, handshake);
+        customerSocket = socket;
+        socket.connect();
+        return handshake.orTimeout(options.stepTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private CompletableFuture<Void> acceptByAgent() {
+        step = "accept";
+        long queued = System.nanoTime();
+        if (options.acceptRace > 1) {
+            return raceForAccept(queued);
+        }
+        return agents.acquire().thenCompose(agent -> {
+            agentId = agent;
+            long accepting = System.nanoTime();
+            return api.accept(conversationId, agent).thenRun(() -> {
+                accepted = true;
+                report.recordSince(LatencyReport.ACCEPT, accepting);
+                report.recordSince(LatencyReport.TIME_TO_AGENT, queued);
+            });
+        });
+    }
+
+    /**
+     * Has {@code accept-race} agents accept at the same moment. Exactly one agent may win; every
+     * other accept has to be turned away (409, 410 or 429) and its slot goes back right away.
+     */
+    private CompletableFuture<Void> raceForAccept(long queued) {
+        return agents.acquire(options.acceptRace).thenCompose(contenders -> {
+            long accepting = System.nanoTime();
+            List<CompletableFuture<Integer>> attempts = contenders.stream()
+                    .map(contender -> api.tryAccept(conversationId, contender)
+                            .thenApply(status -> {
+                                report.recordSince(LatencyReport.ACCEPT_RACE, accepting);
+                                return status;
+                            })
+                            .exceptionally(failure -> -1))
+                    .toList();
+            return CompletableFuture.allOf(attempts.toArray(CompletableFuture[]::new)).thenRun(() -> {
+                String winner = null;
+                String secondWinner = null;
+                for (int i = 0; i < contenders.size(); i++) {
+                    String contender = contenders.get(i);
+                    int status = attempts.get(i).join();
+                    boolean won = status / 100 == 2;
+                    if (won && winner == null) {
+                        winner = contender;
+                        report.count("accept-race.won");
+                        continue;
+                    }
+                    if (won && contender.equals(winner)) {
+                        // the same agent racing itself; its second accept is a no-op
+                        report.count("accept-race.repeated");
+                    } else {
+                        report.count("accept-race." + raceOutcome(status));
+                        secondWinner = won ? contender : secondWinner;
+                    }
+                    agents.release(contender);
+                }
+                if (winner == null) {
+                    throw new IllegalStateException("No agent won the accept race");
+                }
+                agentId = winner;
+                accepted = true;
+                if (secondWinner != null) {
+                    throw new IllegalStateException("Both " + winner + " and " + secondWinner + " won the accept race");
+                }
+                report.recordSince(LatencyReport.ACCEPT, accepting);
+                report.recordSince(LatencyReport.TIME_TO_AGENT, queued);
+            });
+        });
+    }
+
+    private static String raceOutcome(int status) {
+        return switch (status) {
+            case 200, 201 -> "won";
+            case 409 -> "conflict";
+            case 410 -> "gone";
+            case 429 -> "agent-full";
+            case -1 -> "error";
+            default -> "status-" + status;
+        };
+    }
+
+    private CompletableFuture<Void> connectAgent() {
+        step = "agent.handshake";
+        long started = System.nanoTime();
+        if (agents.multiplexed()) {
+            agentSocket = agents.socket(agentId);
+            return agents.join(agentId, conversationId, args -> onMessage(args, "CUSTOMER", LatencyReport.CUSTOMER_TO_AGENT))
+                    .thenRun(() -> report.recordSince(LatencyReport.AGENT_HANDSHAKE, started))
+                    .orTimeout(options.stepTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        CompletableFuture<Void> joined = new CompletableFuture<>();
+        Socket socket = connector.socket(Map.of("role", "agent", "token", agentId, "conversationId", conversationId));
+        socket.on("system:event", args -> {
+            if (joined.complete(null)) {
+                report.recordSince(LatencyReport.AGENT_HANDSHAKE, started);
+            }
+        });
+        socket.on(MESSAGE_EVENT, args -> onMessage(args, "CUSTOMER", LatencyReport.CUSTOMER_TO_AGENT));
+        failOn(socket, joined);
+        agentSocket = socket;
+        socket.connect();
+        return joined.orTimeout(options.stepTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private CompletableFuture<Void> exchangeMessages() {
+        step = "messages";
+        if (options.messages <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long intervalNanos = options.messageInterval.toNanos();
+        for (int sequence = 0; sequence < options.messages; sequence++) {
+            int messageSequence = sequence;
+            scheduler.schedule(() -> send(messageSequence), sequence * intervalNanos, TimeUnit.NANOSECONDS);
+        }
+        long budget = options.stepTimeout.toNanos() + options.messages * intervalNanos;
+        return allDelivered.orTimeout(budget, TimeUnit.NANOSECONDS);
+    }
+
+    private void send(int sequence) {
+        if (allDelivered.isDone()) {
+            return;
+        }
+        Socket socket = sequence % 2 == 0 ? customerSocket : agentSocket;
+        JSONObject payload = new JSONObject();
+        try {
+            payload.put("conversationId", conversationId);
+            payload.put("type", "TEXT");
+            payload.put("content", CONTENT_PREFIX + sequence + ":" + System.nanoTime());
+        } catch (org.json.JSONException ex) {
+            allDelivered.completeExceptionally(ex);
+            return;
+        }
+        socket.emit(MESSAGE_EVENT, new Object[] {payload}, (Ack) args -> {
+            JSONObject ack = SocketConnector.payload(args);
+            if (ack != null && ack.has("error")) {
+                allDelivered.completeExceptionally(new IllegalStateException("Message rejected: " + ack.optString("error")));
+            }
+        });
+    }
+
+    private void onMessage(Object[] args, String expectedSenderType, String histogram) {
+        JSONObject message = SocketConnector.payload(args);
+        if (message == null) {
+            return;
+        }
+        JSONObject sender = message.optJSONObject("sender");
+        String content = message.optString("content", "");
+        if (sender == null || !expectedSenderType.equals(sender.optString("type")) || !content.startsWith(CONTENT_PREFIX)) {
+            return;
+        }
+        long sentAt = Long.parseLong(content.substring(content.lastIndexOf(':') + 1));
+        report.recordSince(histogram, sentAt);
+        if (delivered.incrementAndGet() == options.messages) {
+            allDelivered.complete(null);
+        }
+    }
+
+    private <T> CompletableFuture<T> timed(String histogram, String stepName, CompletableFuture<T> call) {
+        step = stepName;
+        long started = System.nanoTime();
+        return call.thenApply(result -> {
+            report.recordSince(histogram, started);
+            return result;
+        });
+    }
+
+    private void failOn(Socket socket, CompletableFuture<?> pending) {
+        socket.on(Socket.EVENT_CONNECT_ERROR, args -> pending.completeExceptionally(new IllegalStateException(
+                "Socket connect failed during " + step + (args.length > 0 ? ": " + args[0] : ""))));
+        socket.on("system:error", args -> {
+            IllegalStateException error = new IllegalStateException("Server error during " + step);
+            pending.completeExceptionally(error);
+            allDelivered.completeExceptionally(error);
+        });
+        socket.on(Socket.EVENT_DISCONNECT, args -> allDelivered.completeExceptionally(
+                new IllegalStateException("Socket disconnected during " + step)));
+    }
+
+    private void finish(Throwable failure) {
+        if (failure != null) {
+            report.fail(step, failure);
+        }
+        if (customerSocket != null) {
+            customerSocket.close();
+        }
+        if (agentId == null) {
+            return;
+        }
+        if (agents.multiplexed()) {
+            agents.leave(agentId, conversationId);
+        } else if (agentSocket != null) {
+            agentSocket.close();
+        }
+        if (accepted && !closed) {
+            // the server still counts the conversation against the agent until it is closed
+            api.close(conversationId, agentId).whenComplete((ignored, error) -> agents.release(agentId));
+        } else {
+            agents.release(agentId);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.chat.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * One HdrHistogram per measured step, in microseconds, plus outcome and failure counters. Values above the
+ * trackable range are clamped so a stuck request still shows up as the maximum.
+ */
+final class LatencyReport {
+
+    static final String CUSTOMER_HANDSHAKE = "customer.handshake";
+    static final String AGENT_HANDSHAKE = "agent.handshake";
+    static final String QUEUE_HANDSHAKE = "agent.queue.handshake";
+    static final String QUEUE = "conversation.queue";
+    static final String ACCEPT = "conversation.accept";
+    static final String ACCEPT_RACE = "conversation.accept.raced";
+    static final String TIME_TO_AGENT = "conversation.time-to-agent";
+    static final String CUSTOMER_TO_AGENT = "message.customer-to-agent";
+    static final String AGENT_TO_CUSTOMER = "message.agent-to-customer";
+    static final String CLOSE = "conversation.close";
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, AtomicLong> outcomes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> failures = new ConcurrentHashMap<>();
+    private final Map<String, String> firstFailureCauses = new ConcurrentHashMap<>();
+
+    void recordSince(String name, long startNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        histograms.computeIfAbsent(name, key -> new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3))
+                .recordValue(Math.min(Math.max(micros, 0), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    void count(String outcome) {
+        outcomes.computeIfAbsent(outcome, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    void fail(String step, Throwable cause) {
+        failures.computeIfAbsent(step, key -> new AtomicLong()).incrementAndGet();
+        Throwable root = cause;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        firstFailureCauses.putIfAbsent(step, root.toString());
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-28s %8s %9s %9s %9s %9s %9s %9s%n",
+                "step (ms)", "count", "p50", "p90", "p99", "p99.9", "max", "mean");
+        histograms.forEach((name, histogram) -> out.printf("%-28s %8d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name,
+                histogram.getTotalCount(),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()),
+                histogram.getMean() / 1000.0));
+        if (!outcomes.isEmpty()) {
+            out.println("outcomes: " + new ConcurrentSkipListMap<>(outcomes));
+        }
+        if (!failures.isEmpty()) {
+            out.println("failures: " + new ConcurrentSkipListMap<>(failures));
+            new ConcurrentSkipListMap<>(firstFailureCauses)
+                    .forEach((step, cause) -> out.println("  first " + step + " failure: " + cause));
+        }
+    }
+
+    /**
+     * Writes one {@code <step>.hgrm} percentile distribution per histogram, in milliseconds, for
+     * plotting with the HdrHistogram tools.
+     */
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                entry.getValue().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
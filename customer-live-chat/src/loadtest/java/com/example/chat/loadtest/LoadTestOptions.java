@@ -0,0 +1,129 @@
+package com.example.chat.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options in {@code --name=value} form. Unknown options fail fast so a typo does not
+ * silently run the default scenario.
+ */
+final class LoadTestOptions {
+
+    String host = "localhost";
+    int httpPort = 8383;
+    int socketPort = 9094;
+
+    /** Customer conversations to run in total. */
+    int customers = 500;
+
+    /** New customers connecting per second. */
+    double arrivalRate = 20;
+
+    /** Simulated agents sharing the accepted conversations. */
+    int agents = 50;
+
+    /** Conversations an agent holds at once; keep in line with {@code chat.queue.max-concurrent-by-agent}. */
+    int agentConcurrency = 3;
+
+    /**
+     * {@code multiplexed}: one {@code scope=agent} socket per agent that joins each accepted
+     * conversation; {@code per-conversation}: a queue socket per agent plus a socket per conversation.
+     */
+    AgentSocketMode agentSocket = AgentSocketMode.MULTIPLEXED;
+
+    /**
+     * Agents accepting every conversation at the same moment. Above 1 each conversation is raced
+     * for; the winner carries on and the others must be turned away.
+     */
+    int acceptRace = 1;
+
+    /** Messages exchanged per conversation, alternating customer and agent. */
+    int messages = 10;
+
+    /** Pause between two messages of one conversation. */
+    Duration messageInterval = Duration.ofMillis(500);
+
+    /** Upper bound for every step of a conversation (handshake, accept, message delivery). */
+    Duration stepTimeout = Duration.ofSeconds(30);
+
+    /** Where the {@code .hgrm} percentile files are written; nothing is written when unset. */
+    Path reportDir;
+
+    String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions();
+        values.forEach((name, value) -> {
+            switch (name) {
+                case "host" -> options.host = value;
+                case "http-port" -> options.httpPort = Integer.parseInt(value);
+                case "socket-port" -> options.socketPort = Integer.parseInt(value);
+                case "customers" -> options.customers = Integer.parseInt(value);
+                case "arrival-rate" -> options.arrivalRate = Double.parseDouble(value);
+                case "agents" -> options.agents = Integer.parseInt(value);
+                case "agent-concurrency" -> options.agentConcurrency = Integer.parseInt(value);
+                case "agent-socket" -> options.agentSocket = AgentSocketMode.parse(value);
+                case "accept-race" -> options.acceptRace = Integer.parseInt(value);
+                case "messages" -> options.messages = Integer.parseInt(value);
+                case "message-interval" -> options.messageInterval = Duration.parse(value);
+                case "step-timeout" -> options.stepTimeout = Duration.parse(value);
+                case "report-dir" -> options.reportDir = Path.of(value);
+                case "run-id" -> options.runId = value;
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        });
+        if (options.customers <= 0 || options.arrivalRate <= 0 || options.agents <= 0 || options.agentConcurrency <= 0) {
+            throw new IllegalArgumentException("customers, arrival-rate, agents and agent-concurrency must be positive");
+        }
+        if (options.acceptRace <= 0 || options.acceptRace > options.agents * options.agentConcurrency) {
+            throw new IllegalArgumentException("accept-race must be between 1 and agents x agent-concurrency");
+        }
+        return options;
+    }
+
+    String httpBase() {
+        return "http://" + host + ":" + httpPort;
+    }
+
+    String socketBase() {
+        return "http://" + host + ":" + socketPort;
+    }
+
+    @Override
+    public String toString() {
+        return "customers=%d arrivalRate=%.1f/s agents=%d x %d (%s) acceptRace=%d messages=%d interval=%s target=%s/%d"
+                .formatted(customers, arrivalRate, agents, agentConcurrency, agentSocket.option, acceptRace, messages,
+                        messageInterval, host, socketPort);
+    }
+
+    enum AgentSocketMode {
+        MULTIPLEXED("multiplexed"),
+        PER_CONVERSATION("per-conversation");
+
+        final String option;
+
+        AgentSocketMode(String option) {
+            this.option = option;
+        }
+
+        static AgentSocketMode parse(String value) {
+            for (AgentSocketMode mode : values()) {
+                if (mode.option.equalsIgnoreCase(value)) {
+                    return mode;
+                }
+            }
+            throw new IllegalArgumentException("--agent-socket must be multiplexed or per-conversation");
+        }
+    }
+}
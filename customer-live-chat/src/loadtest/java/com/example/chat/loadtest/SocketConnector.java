@@ -0,0 +1,72 @@
+package com.example.chat.loadtest;
+
+import io.socket.client.IO;
+import io.socket.client.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import okhttp3.OkHttpClient;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Opens websocket-only Socket.IO connections that share one OkHttp client, so thousands of sockets
+ * do not each bring their own connection pool and dispatcher. Reconnection is off: a dropped socket
+ * is a failure to report, not something to hide.
+ */
+final class SocketConnector {
+
+    private final OkHttpClient okHttpClient;
+    private final URI uri;
+
+    SocketConnector(LoadTestOptions options) {
+        this.okHttpClient = new OkHttpClient.Builder()
+                .connectTimeout(options.stepTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(0, TimeUnit.MILLISECONDS)
+                .build();
+        this.okHttpClient.dispatcher().setMaxRequests(Integer.MAX_VALUE);
+        this.okHttpClient.dispatcher().setMaxRequestsPerHost(Integer.MAX_VALUE);
+        this.uri = URI.create(options.socketBase());
+    }
+
+    Socket socket(Map<String, String> query) {
+        IO.Options options = new IO.Options();
+        options.transports = new String[] {"websocket"};
+        options.forceNew = true;
+        options.reconnection = false;
+        options.callFactory = okHttpClient;
+        options.webSocketFactory = okHttpClient;
+        options.query = query.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        return IO.socket(uri, options);
+    }
+
+    void shutdown() {
+        okHttpClient.dispatcher().executorService().shutdown();
+        okHttpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * Returns the JSON object among the event arguments, which is the last argument for every event
+     * the gateway emits.
+     */
+    static JSONObject payload(Object[] args) {
+        for (int i = args.length - 1; i >= 0; i--) {
+            if (args[i] instanceof JSONObject json) {
+                return json;
+            }
+            if (args[i] instanceof String text && text.startsWith("{")) {
+                try {
+                    return new JSONObject(text);
+                } catch (JSONException ignored) {
+                    // not a payload, keep looking
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,417 @@
+package com.example.chat.analytics;
+
+import com.example.chat.config.ChatProperties;
+import com.example.chat.domain.ChatMessage;
+import com.example.chat.domain.ParticipantType;
+import com.example.chat.dto.OperationsSnapshot;
+import com.example.chat.event.ChatEvent;
+import com.example.chat.event.ChatMessageEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Windowed operations aggregates folded from the lifecycle and message streams: queue depth, time
+ * to first response (queued until the first agent message), handle time (accepted until closed),
+ * messages per minute and agent utilization. Everything lives in memory with fixed bounds: one
+ * bucket per minute of the window, and at most {@code max-tracked-conversations} open conversations
+ * and {@code max-tracked-agents} agents, the least recently seen dropped first.
+ *
+ * <p>Events are bucketed by when they happened, not when they arrived, so rereading the topics after
+ * a restart rebuilds the same window. Messages and lifecycle events come from different topics and
+ * may arrive in either order; a first response is counted once both its queue and its message
+ * event have been seen, even when the message is read after the conversation's close.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.analytics", name = "enabled", havingValue = "true")
+public class OperationsAnalytics {
+
+    private static final long MINUTE_MILLIS = Duration.ofMinutes(1).toMillis();
+    private static final long HIGHEST_TRACKABLE_MILLIS = Duration.ofDays(1).toMillis();
+
+    private final ChatProperties chatProperties;
+    private final MinuteBucket[] buckets;
+    private final Map<String, ConversationState> conversations;
+    private final Map<String, AgentState> agents;
+    private final Map<String, ConversationState> closed;
+    private final Counter evictions;
+    private final MeterRegistry registry;
+    private final Histogram windowFirstResponse = histogram();
+    private final Histogram windowHandleTime = histogram();
+
+    private int queueDepth;
+    private Instant lastEventAt;
+
+    public OperationsAnalytics(ChatProperties chatProperties, MeterRegistry registry) {
+        this.chatProperties = chatProperties;
+        this.registry = registry;
+        ChatProperties.Analytics config = chatProperties.getAnalytics();
+        int minutes = (int) Math.max(1, Math.ceilDiv(config.getWindow().toMillis(), MINUTE_MILLIS));
+        this.buckets = new MinuteBucket[minutes];
+        int maxConversations = Math.max(1, config.getMaxTrackedConversations());
+        this.conversations = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ConversationState> eldest) {
+                if (size() <= maxConversations) {
+                    return false;
+                }
+                forget(eldest.getValue());
+                evictions.increment();
+                return true;
+            }
+        };
+        this.closed = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ConversationState> eldest) {
+                return size() > maxConversations;
+            }
+        };
+        int maxAgents = Math.max(1, config.getMaxTrackedAgents());
+        this.agents = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AgentState> eldest) {
+                return size() > maxAgents;
+            }
+        };
+        this.evictions = Counter.builder("chat.analytics.evictions")
+                .description("Open conversations dropped from the analytics state to stay within its bound")
+                .register(registry);
+        Gauge.builder("chat.analytics.conversations", this, OperationsAnalytics::trackedConversations)
+                .description("Open conversations tracked by the operations analytics")
+                .register(registry);
+    }
+
+    public synchronized void record(ChatEvent event) {
+        if (event == null || event.getType() == null || event.getConversationId() == null || event.getOccurredAt() == null) {
+            count("lifecycle", "invalid");
+            return;
+        }
+        Instant at = event.getOccurredAt();
+        seen(at);
+        MinuteBucket bucket = bucket(at);
+        switch (event.getType()) {
+            case CONVERSATION_STARTED -> {
+                if (bucket != null) {
+                    bucket.started++;
+                }
+            }
+            case CONVERSATION_QUEUED -> {
+                ConversationState state = conversations.computeIfAbsent(event.getConversationId(), id -> new ConversationState());
+                release(state, at);
+                if (!state.queued) {
+                    state.queued = true;
+                    queueDepth++;
+                }
+                if (state.queuedAt == null) {
+                    state.queuedAt = at;
+                }
+                recordFirstResponse(state);
+                trackDepth(bucket);
+            }
+            case CONVERSATION_ACCEPTED -> {
+                ConversationState state = conversations.computeIfAbsent(event.getConversationId(), id -> new ConversationState());
+                dequeue(state);
+                Object agentId = event.getPayload() != null ? event.getPayload().get("agentId") : null;
+                if (agentId != null && !agentId.toString().equals(state.agentId)) {
+                    release(state, at);
+                    state.agentId = agentId.toString();
+                    AgentState agent = agents.computeIfAbsent(state.agentId, id -> new AgentState());
+                    agent.active++;
+                    agent.lastSeen = at;
+                }
+                if (state.acceptedAt == null) {
+                    state.acceptedAt = at;
+                }
+                trackDepth(bucket);
+            }
+            case CONVERSATION_CLOSED -> {
+                ConversationState state = conversations.remove(event.getConversationId());
+                if (bucket != null) {
+                    bucket.closed++;
+                }
+                if (state != null) {
+                    if (state.acceptedAt != null && bucket != null && !at.isBefore(state.acceptedAt)) {
+                        bucket.handleTime().recordValue(clamp(Duration.between(state.acceptedAt, at).toMillis()));
+                    }
+                    forget(state);
+                    trackDepth(bucket);
+                }
+                // kept so a first response read after the close still counts
+                closed.put(event.getConversationId(), state != null ? state : new ConversationState());
+            }
+            default -> {
+                // message counts come from the message stream
+            }
+        }
+        count("lifecycle", bucket != null ? "applied" : "expired");
+    }
+
+    public synchronized void record(ChatMessageEvent event) {
+        ChatMessage message = event != null ? event.getMessage() : null;
+        if (message == null || event.getConversationId() == null) {
+            count("messages", "invalid");
+            return;
+        }
+        Instant at = message.getTimestamp() != null ? message.getTimestamp() : event.getOccurredAt();
+        if (at == null) {
+            count("messages", "invalid");
+            return;
+        }
+        seen(at);
+        MinuteBucket bucket = bucket(at);
+        ParticipantType senderType = message.getSender() != null ? message.getSender().getType() : null;
+        if (bucket != null && senderType == ParticipantType.CUSTOMER) {
+            bucket.customerMessages++;
+        } else if (bucket != null && senderType == ParticipantType.AGENT) {
+            bucket.agentMessages++;
+        }
+        if (senderType == ParticipantType.AGENT) {
+            // a message read after its conversation's close must not bring the conversation back
+            ConversationState state = closed.get(event.getConversationId());
+            if (state == null) {
+                state = conversations.computeIfAbsent(event.getConversationId(), id -> new ConversationState());
+            }
+            if (state.firstResponseAt == null || at.isBefore(state.firstResponseAt)) {
+                state.firstResponseAt = at;
+            }
+            recordFirstResponse(state);
+            AgentState agent = message.getSender().getId() != null ? agents.get(message.getSender().getId()) : null;
+            if (agent != null) {
+                agent.lastSeen = at;
+            }
+        }
+        count("messages", bucket != null ? "applied" : "expired");
+    }
+
+    public synchronized OperationsSnapshot snapshot(Instant now) {
+        long currentMinute = now.toEpochMilli() / MINUTE_MILLIS;
+        List<OperationsSnapshot.Minute> minutes = new ArrayList<>(buckets.length);
+        Histogram firstResponse = windowFirstResponse;
+        Histogram handleTime = windowHandleTime;
+        firstResponse.reset();
+        handleTime.reset();
+        long messages = 0;
+        int depth = -1;
+        for (long minute = currentMinute - buckets.length + 1; minute <= currentMinute; minute++) {
+            MinuteBucket bucket = buckets[index(minute)];
+            boolean current = bucket != null && bucket.minute == minute;
+            if (current && bucket.depthSeen) {
+                depth = bucket.depthEnd;
+            }
+            int shownDepth = depth >= 0 ? depth : queueDepth;
+            minutes.add(OperationsSnapshot.Minute.builder()
+                    .start(Instant.ofEpochMilli(minute * MINUTE_MILLIS))
+                    .queueDepth(minute == currentMinute ? queueDepth : shownDepth)
+                    .queueDepthMax(current && bucket.depthSeen ? bucket.depthMax : shownDepth)
+                    .conversationsStarted(current ? bucket.started : 0)
+                    .conversationsClosed(current ? bucket.closed : 0)
+                    .customerMessages(current ? bucket.customerMessages : 0)
+                    .agentMessages(current ? bucket.agentMessages : 0)
+                    .build());
+            if (current) {
+                messages += bucket.customerMessages + bucket.agentMessages;
+                if (bucket.firstResponse != null) {
+                    firstResponse.add(bucket.firstResponse);
+                }
+                if (bucket.handleTime != null) {
+                    handleTime.add(bucket.handleTime);
+                }
+            }
+        }
+
+        int capacity = Math.max(1, chatProperties.getQueue().getMaxConcurrentByAgent());
+        Instant agentCutoff = now.minus(chatProperties.getAnalytics().getWindow());
+        agents.values().removeIf(agent -> agent.active <= 0 && agent.lastSeen != null && agent.lastSeen.isBefore(agentCutoff));
+        List<OperationsSnapshot.AgentLoad> loads = new ArrayList<>(agents.size());
+        int active = 0;
+        int busyAgents = 0;
+        for (Map.Entry<String, AgentState> entry : agents.entrySet()) {
+            int agentActive = Math.max(0, entry.getValue().active);
+            active += agentActive;
+            busyAgents += agentActive > 0 ? 1 : 0;
+            loads.add(OperationsSnapshot.AgentLoad.builder()
+                    .agentId(entry.getKey())
+                    .activeConversations(agentActive)
+                    .capacity(capacity)
+                    .utilization((double) agentActive / capacity)
+                    .build());
+        }
+        loads.sort(Comparator.comparingInt(OperationsSnapshot.AgentLoad::getActiveConversations).reversed()
+                .thenComparing(OperationsSnapshot.AgentLoad::getAgentId));
+
+        return OperationsSnapshot.builder()
+                .generatedAt(now)
+                .window(Duration.ofMinutes(buckets.length))
+                .lastEventAt(lastEventAt)
+                .queueDepth(queueDepth)
+                .openConversations(conversations.size())
+                .messagesPerMinute((double) messages / buckets.length)
+                .timeToFirstResponse(latency(firstResponse))
+                .handleTime(latency(handleTime))
+                .agentUtilization(busyAgents > 0 ? (double) active / (busyAgents * capacity) : 0)
+                .minutes(minutes)
+                .agents(loads)
+                .build();
+    }
+
+    private synchronized int trackedConversations() {
+        return conversations.size();
+    }
+
+    private void recordFirstResponse(ConversationState state) {
+        if (state.firstResponseRecorded || state.queuedAt == null || state.firstResponseAt == null
+                || state.firstResponseAt.isBefore(state.queuedAt)) {
+            return;
+        }
+        state.firstResponseRecorded = true;
+        MinuteBucket bucket = bucket(state.firstResponseAt);
+        if (bucket != null) {
+            bucket.firstResponse().recordValue(clamp(Duration.between(state.queuedAt, state.firstResponseAt).toMillis()));
+        }
+    }
+
+    private void dequeue(ConversationState state) {
+        if (state.queued) {
+            state.queued = false;
+            queueDepth--;
+        }
+    }
+
+    private void release(ConversationState state, Instant at) {
+        if (state.agentId == null) {
+            return;
+        }
+        AgentState agent = agents.get(state.agentId);
+        if (agent != null) {
+            agent.active = Math.max(0, agent.active - 1);
+            agent.lastSeen = at;
+        }
+        state.agentId = null;
+    }
+
+    /**
+     * Drops a conversation's share of the queue depth and its agent's load.
+     */
+    private void forget(ConversationState state) {
+        dequeue(state);
+        release(state, lastEventAt);
+    }
+
+    private void trackDepth(MinuteBucket bucket) {
+        if (bucket != null) {
+            bucket.depthSeen = true;
+            bucket.depthEnd = queueDepth;
+            bucket.depthMax = Math.max(bucket.depthMax, queueDepth);
+        }
+    }
+
+    private void seen(Instant at) {
+        if (lastEventAt == null || at.isAfter(lastEventAt)) {
+            lastEventAt = at;
+        }
+    }
+
+    /**
+     * The bucket of the minute {@code at} falls in, or {@code null} if that minute has left the
+     * window. Events stamped ahead of this node's clock count towards the current minute.
+     */
+    private MinuteBucket bucket(Instant at) {
+        long currentMinute = System.currentTimeMillis() / MINUTE_MILLIS;
+        long minute = Math.min(at.toEpochMilli() / MINUTE_MILLIS, currentMinute);
+        if (minute <= currentMinute - buckets.length) {
+            return null;
+        }
+        int index = index(minute);
+        MinuteBucket bucket = buckets[index];
+        if (bucket == null || bucket.minute < minute) {
+            bucket = new MinuteBucket(minute);
+            buckets[index] = bucket;
+        }
+        return bucket.minute == minute ? bucket : null;
+    }
+
+    private int index(long minute) {
+        return (int) Math.floorMod(minute, (long) buckets.length);
+    }
+
+    private void count(String topic, String outcome) {
+        registry.counter("chat.analytics.events", "stream", topic, "outcome", outcome).increment();
+    }
+
+    private static long clamp(long millis) {
+        return Math.max(0, Math.min(millis, HIGHEST_TRACKABLE_MILLIS));
+    }
+
+    private static Histogram histogram() {
+        return new Histogram(HIGHEST_TRACKABLE_MILLIS, 2);
+    }
+
+    private static OperationsSnapshot.Latency latency(Histogram histogram) {
+        long count = histogram.getTotalCount();
+        return OperationsSnapshot.Latency.builder()
+                .count(count)
+                .meanMs(count > 0 ? Math.round(histogram.getMean()) : 0)
+                .p50Ms(count > 0 ? histogram.getValueAtPercentile(50) : 0)
+                .p90Ms(count > 0 ? histogram.getValueAtPercentile(90) : 0)
+                .maxMs(count > 0 ? histogram.getMaxValue() : 0)
+                .build();
+    }
+
+    private static final class MinuteBucket {
+
+        private final long minute;
+        private long started;
+        private long closed;
+        private long customerMessages;
+        private long agentMessages;
+        private boolean depthSeen;
+        private int depthEnd;
+        private int depthMax;
+        private Histogram firstResponse;
+        private Histogram handleTime;
+
+        private MinuteBucket(long minute) {
+            this.minute = minute;
+        }
+
+        private Histogram firstResponse() {
+            if (firstResponse == null) {
+                firstResponse = histogram();
+            }
+            return firstResponse;
+        }
+
+        private Histogram handleTime() {
+            if (handleTime == null) {
+                handleTime = histogram();
+            }
+            return handleTime;
+        }
+    }
+
+    private static final class ConversationState {
+
+        private boolean queued;
+        private Instant queuedAt;
+        private Instant acceptedAt;
+        private Instant firstResponseAt;
+        private boolean firstResponseRecorded;
+        private String agentId;
+    }
+
+    private static final class AgentState {
+
+        private int active;
+        private Instant lastSeen;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.chat.analytics;
+
+import com.example.chat.config.ChatProperties;
+import com.example.chat.event.ChatEvent;
+import com.example.chat.event.ChatMessageEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds {@link OperationsAnalytics} from the lifecycle and message topics. Every node reads every
+ * partition in a consumer group of its own, since supervisors may connect to any node and socket
+ * rooms are node-local. On assignment the consumer seeks back one analytics window, so a started or
+ * restarted node fills its window from Kafka alone.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "chat.analytics", name = "enabled", havingValue = "true")
+public class OperationsEventConsumer implements ConsumerSeekAware {
+
+    private final OperationsAnalytics analytics;
+    private final ChatProperties chatProperties;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+            id = "chat-operations-analytics",
+            idIsGroup = false,
+            containerFactory = "analyticsListenerContainerFactory",
+            topics = {"${chat.kafka.lifecycle-topic:chat.lifecycle}", "${chat.kafka.message-topic:chat.messages}"})
+    public void onRecord(ConsumerRecord<String, String> record) {
+        if (record.value() == null) {
+            return;
+        }
+        try {
+            if (record.topic().equals(chatProperties.getKafka().getMessageTopic())) {
+                analytics.record(objectMapper.readValue(record.value(), ChatMessageEvent.class));
+            } else {
+                analytics.record(objectMapper.readValue(record.value(), ChatEvent.class));
+            }
+        } catch (JsonProcessingException ex) {
+            log.warn("Skipping unreadable event at {}-{}@{}", record.topic(), record.partition(), record.offset(), ex);
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        long windowStart = System.currentTimeMillis() - chatProperties.getAnalytics().getWindow().toMillis();
+        callback.seekToTimestamp(assignments.keySet(), windowStart);
+    }
+}
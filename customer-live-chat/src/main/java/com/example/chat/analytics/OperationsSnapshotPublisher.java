@@ -0,0 +1,35 @@
+package com.example.chat.analytics;
+
+import com.corundumstudio.socketio.BroadcastOperations;
+import com.corundumstudio.socketio.SocketIOServer;
+import java.time.Instant;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pushes the operations aggregates to the supervisor sockets connected to this node. The snapshot
+ * comes from memory only, so dashboards never cost a PostgreSQL or Redis query, however many are
+ * open.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "chat.analytics", name = "enabled", havingValue = "true")
+public class OperationsSnapshotPublisher {
+
+    public static final String SUPERVISOR_ROOM = "supervisors";
+    public static final String SNAPSHOT_EVENT = "analytics:snapshot";
+
+    private final OperationsAnalytics analytics;
+    private final SocketIOServer socketIOServer;
+
+    @Scheduled(fixedRateString = "#{T(java.time.Duration).parse('${chat.analytics.push-interval:PT1S}').toMillis()}")
+    public void publish() {
+        BroadcastOperations room = socketIOServer.getRoomOperations(SUPERVISOR_ROOM);
+        if (room.getClients().isEmpty()) {
+            return;
+        }
+        room.sendEvent(SNAPSHOT_EVENT, analytics.snapshot(Instant.now()));
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.chat.cluster;
+
+import com.example.chat.config.ChatProperties;
+import com.example.chat.service.RedisKeyFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Live nodes of the cluster and the hash ring that gives every conversation its owner. Each node
+ * holds a lease in the members sorted set, scored by lease expiry, and publishes its address next
+ * to it. One script per heartbeat renews the lease, drops members whose lease ran out and returns
+ * the live members, so joins and departures reach every node within a heartbeat and the ring is
+ * rebuilt only when the member set changed. Lookups never touch Redis.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "chat.cluster", name = "affinity", havingValue = "true")
+public class ClusterMembership {
+
+    /**
+     * KEYS: members, addresses. ARGV: node id, lease expiry, now, address. Returns the live members
+     * as (id, address) pairs.
+     */
+    private static final String HEARTBEAT_SCRIPT = """
+            redis.call('zadd', KEYS[1], ARGV[2], ARGV[1])
+            redis.call('hset', KEYS[2], ARGV[1], ARGV[4])
+            local expired = redis.call('zrangebyscore', KEYS[1], '-inf', '(' .. ARGV[3], 'LIMIT', 0, 100)
+            for _, node in ipairs(expired) do
+                redis.call('zrem', KEYS[1], node)
+                redis.call('hdel', KEYS[2], node)
+            end
+            local members = {}
+            for _, node in ipairs(redis.call('zrangebyscore', KEYS[1], ARGV[3], '+inf')) do
+                members[#members + 1] = node
+                members[#members + 1] = redis.call('hget', KEYS[2], node) or ''
+            end
+            return members
+            """;
+
+    private final RedissonClient redissonClient;
+    private final RedisKeyFactory keyFactory;
+    private final ChatProperties chatProperties;
+    private final Environment environment;
+    private final Counter rebalances;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile Map<String, String> members = Map.of();
+    private volatile ConsistentHashRing ring = new ConsistentHashRing(List.of(), 1);
+
+    public ClusterMembership(
+            RedissonClient redissonClient,
+            RedisKeyFactory keyFactory,
+            ChatProperties chatProperties,
+            Environment environment,
+            MeterRegistry registry) {
+        this.redissonClient = redissonClient;
+        this.keyFactory = keyFactory;
+        this.chatProperties = chatProperties;
+        this.environment = environment;
+        this.rebalances = Counter.builder("chat.cluster.rebalances")
+                .description("Times this node rebuilt the conversation ring after members joined or left")
+                .register(registry);
+        Gauge.builder("chat.cluster.members", this, membership -> membership.members.size())
+                .description("Live cluster members seen by this node")
+                .register(registry);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * The owner of the conversation, or {@code null} before the first heartbeat. An owner that is
+     * not this node always comes with the address it published.
+     */
+    public Member owner(String conversationId) {
+        String owner = ring.owner(conversationId);
+        if (owner == null) {
+            return null;
+        }
+        return new Member(owner, members.get(owner));
+    }
+
+    /**
+     * Renews this node's lease and rebuilds the ring when members joined or left. A failed renewal
+     * keeps the last ring; other nodes drop this one once its lease runs out.
+     */
+    @Scheduled(fixedDelayString = "#{T(java.time.Duration).parse('${chat.cluster.heartbeat-interval:PT1S}').toMillis()}")
+    public void heartbeat() {
+        ChatProperties.Cluster config = chatProperties.getCluster();
+        long now = System.currentTimeMillis();
+        List<Object> live;
+        try {
+            live = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                    RScript.Mode.READ_WRITE,
+                    HEARTBEAT_SCRIPT,
+                    RScript.ReturnType.MULTI,
+                    List.of(keyFactory.clusterMembersKey(), keyFactory.clusterAddressesKey()),
+                    nodeId,
+                    String.valueOf(now + config.getMemberLease().toMillis()),
+                    String.valueOf(now),
+                    advertisedUrl());
+        } catch (RuntimeException ex) {
+            log.warn("Failed to renew cluster membership of node {}", nodeId, ex);
+            return;
+        }
+        Map<String, String> current = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < live.size(); i += 2) {
+            current.put(String.valueOf(live.get(i)), String.valueOf(live.get(i + 1)));
+        }
+        if (!current.keySet().equals(members.keySet())) {
+            ring = new ConsistentHashRing(current.keySet(), Math.max(config.getVirtualNodes(), 1));
+            if (!members.isEmpty()) {
+                rebalances.increment();
+            }
+            log.info("Cluster membership changed: {} members, this node is {}", current.size(), nodeId);
+        }
+        members = Map.copyOf(current);
+    }
+
+    /**
+     * Leaves right away so the other nodes take over this node's conversations on their next
+     * heartbeat instead of after the lease.
+     */
+    @PreDestroy
+    public void leave() {
+        try {
+            RBatch batch = redissonClient.createBatch();
+            batch.getScoredSortedSet(keyFactory.clusterMembersKey(), StringCodec.INSTANCE).removeAsync(nodeId);
+            batch.getMap(keyFactory.clusterAddressesKey(), StringCodec.INSTANCE).fastRemoveAsync(nodeId);
+            batch.execute();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to leave the cluster as node {}", nodeId, ex);
+        }
+    }
+
+    private String advertisedUrl() {
+        String configured = chatProperties.getCluster().getAdvertisedUrl();
+        if (StringUtils.hasText(configured)) {
+            return configured;
+        }
+        String port = environment.getProperty("local.server.port", environment.getProperty("server.port", "8080"));
+        try {
+            return "http://%s:%s".formatted(InetAddress.getLocalHost().getHostAddress(), port);
+        } catch (UnknownHostException ex) {
+            return "http://localhost:" + port;
+        }
+    }
+
+    public record Member(String nodeId, String url) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.chat.cluster;
+
+import com.example.chat.domain.ChatMessageType;
+import com.example.chat.domain.ChatParticipant;
+
+/**
+ * A conversation change as it is forwarded to the conversation's owner node. Only the fields of
+ * the operation are set.
+ */
+public record ConversationMutation(
+        Operation operation,
+        String conversationId,
+        ChatParticipant participant,
+        String channel,
+        String content,
+        ChatMessageType messageType) {
+
+    public static ConversationMutation accept(String conversationId, ChatParticipant agent) {
+        return new ConversationMutation(Operation.ACCEPT, conversationId, agent, null, null, null);
+    }
+
+    public static ConversationMutation queue(String conversationId, String channel) {
+        return new ConversationMutation(Operation.QUEUE, conversationId, null, channel, null, null);
+    }
+
+    public static ConversationMutation sendMessage(
+            String conversationId, ChatParticipant sender, String content, ChatMessageType type) {
+        return new ConversationMutation(Operation.SEND_MESSAGE, conversationId, sender, null, content, type);
+    }
+
+    public static ConversationMutation close(String conversationId, ChatParticipant closedBy) {
+        return new ConversationMutation(Operation.CLOSE, conversationId, closedBy, null, null, null);
+    }
+
+    public enum Operation {
+        ACCEPT,
+        QUEUE,
+        SEND_MESSAGE,
+        CLOSE
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.chat.cluster;
+
+import com.example.chat.event.PublishedEvents;
+
+/**
+ * The owner's answer to a forwarded mutation: the value the mutation returned and the events it
+ * published.
+ */
+public record ConversationMutationResult(Object result, PublishedEvents events) {
+}
@@ -0,0 +1,269 @@
+package com.example.chat.cluster;
+
+import com.example.chat.config.ChatProperties;
+import com.example.chat.event.ChatEventPublisher;
+import com.example.chat.event.PublishedEvents;
+import com.example.chat.observability.ChatTracing;
+import com.example.chat.persistence.RecentWriteTracker;
+import com.example.chat.service.exception.ServiceException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.net.ConnectException;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+/**
+ * Sends conversation mutations to the conversation's owner node when {@code chat.cluster.affinity}
+ * is on. On the owner every conversation has a single in-memory writer: its mutations run one
+ * after another in arrival order, so they never race each other for the version check. Mutations
+ * for other conversations run side by side on virtual threads.
+ *
+ * <p>Mutations received on another node are forwarded once over HTTP; the owner runs them without
+ * looking at the ring again, so a forward never loops while members see different rings. The owner
+ * returns the events the mutation published and the forwarding node hands them to its own
+ * listeners, so sockets connected there see them as if the mutation had run locally. If the
+ * owner cannot be reached the mutation runs locally; if it was reached but did not answer in time
+ * the caller gets a 504 instead, since the owner may still apply it. Ownership only decides where
+ * writes queue up; the version-checked writes stay the fence, so two nodes briefly writing the same
+ * conversation after a rebalance still cannot lose an update.
+ *
+ * <p>With affinity off mutations run inline on the calling thread, exactly as without this class.
+ */
+@Slf4j
+@Component
+public class ConversationWriteRouter {
+
+    public static final String INTERNAL_PATH = "/internal/cluster";
+    public static final String FORWARDED_BY_HEADER = "X-Chat-Forwarded-By";
+    public static final String SECRET_HEADER = "X-Chat-Cluster-Secret";
+
+    private static final ThreadLocal<PublishedEvents> FORWARDED = new ThreadLocal<>();
+    private static final ThreadLocal<String> WRITING = new ThreadLocal<>();
+
+    private final ChatProperties chatProperties;
+    private final ClusterMembership membership;
+    private final ChatTracing tracing;
+    private final MeterRegistry registry;
+    private final ObjectProvider<ChatEventPublisher> eventPublisher;
+    private final RecentWriteTracker recentWriteTracker;
+    private final ObjectMapper objectMapper;
+    private final RestClient restClient;
+
+    private final Map<String, CompletableFuture<Void>> writers = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("conversation-writer-", 0).factory());
+
+    public ConversationWriteRouter(
+            ChatProperties chatProperties,
+            ObjectProvider<ClusterMembership> membership,
+            ChatTracing tracing,
+            MeterRegistry registry,
+            ObjectProvider<ChatEventPublisher> eventPublisher,
+            RecentWriteTracker recentWriteTracker,
+            ObjectMapper objectMapper,
+            RestClient.Builder restClientBuilder) {
+        this.chatProperties = chatProperties;
+        this.membership = membership.getIfAvailable();
+        this.tracing = tracing;
+        this.registry = registry;
+        this.eventPublisher = eventPublisher;
+        this.recentWriteTracker = recentWriteTracker;
+        this.objectMapper = objectMapper;
+        ChatProperties.Cluster config = chatProperties.getCluster();
+        if (config.isAffinity() && !StringUtils.hasText(config.getSecret())) {
+            throw new IllegalStateException(
+                    "chat.cluster.secret must be set when chat.cluster.affinity is on; forwarded mutations act as any participant");
+        }
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(
+                HttpClient.newBuilder().connectTimeout(config.getForwardTimeout()).build());
+        requestFactory.setReadTimeout(config.getForwardTimeout());
+        this.restClient = restClientBuilder.requestFactory(requestFactory).build();
+        Gauge.builder("chat.cluster.writer.pending", pending, AtomicInteger::get)
+                .description("Conversation mutations queued or running on this node's single writers")
+                .register(registry);
+        Gauge.builder("chat.cluster.writer.conversations", writers, Map::size)
+                .description("Conversations with a mutation queued or running on this node")
+                .register(registry);
+    }
+
+    /**
+     * Whether {@code secret}, as sent in {@link #SECRET_HEADER}, proves the request came from a
+     * cluster member. Always false with affinity off.
+     */
+    public boolean isClusterMember(String secret) {
+        return isClusterMember(chatProperties.getCluster(), secret);
+    }
+
+    public static boolean isClusterMember(ChatProperties.Cluster config, String secret) {
+        return config.isAffinity()
+                && StringUtils.hasText(config.getSecret())
+                && secret != null
+                && MessageDigest.isEqual(
+                        config.getSecret().getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Runs {@code local} on the single writer of the conversation if this node owns it or the
+     * mutation was forwarded here, and otherwise forwards {@code mutation} to the owner and returns
+     * its result.
+     */
+    public <T> T route(ConversationMutation mutation, Class<T> resultType, Supplier<T> local) {
+        if (membership == null || !chatProperties.getCluster().isAffinity()) {
+            return local.get();
+        }
+        String conversationId = mutation.conversationId();
+        if (conversationId.equals(WRITING.get())) {
+            // already on this conversation's writer
+            return local.get();
+        }
+        PublishedEvents forwarded = FORWARDED.get();
+        if (forwarded != null) {
+            return write(conversationId, ChatEventPublisher.recording(forwarded, local));
+        }
+        ClusterMembership.Member owner = membership.owner(conversationId);
+        if (owner == null || owner.nodeId().equals(membership.nodeId()) || !StringUtils.hasText(owner.url())) {
+            return write(conversationId, local);
+        }
+        return forward(owner, mutation, resultType, local);
+    }
+
+    /**
+     * Runs {@code mutation} as one forwarded to this node, so {@link #route} keeps it here, and
+     * returns its result with the events it published.
+     */
+    public ConversationMutationResult receive(Supplier<?> mutation) {
+        PublishedEvents events = PublishedEvents.recorder();
+        FORWARDED.set(events);
+        try {
+            return new ConversationMutationResult(mutation.get(), events);
+        } finally {
+            FORWARDED.remove();
+        }
+    }
+
+    private <T> T write(String conversationId, Supplier<T> mutation) {
+        Supplier<T> task = tracing.withCurrentSpan(mutation);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        pending.incrementAndGet();
+        CompletableFuture<Void> tail = writers.compute(conversationId, (id, previous) ->
+                (previous != null ? previous : CompletableFuture.<Void>completedFuture(null))
+                        .thenRunAsync(() -> runWriter(conversationId, task, result), executor));
+        tail.whenComplete((ignored, ex) -> writers.remove(conversationId, tail));
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+
+    private <T> void runWriter(String conversationId, Supplier<T> task, CompletableFuture<T> result) {
+        WRITING.set(conversationId);
+        try {
+            result.complete(task.get());
+        } catch (Throwable ex) {
+            result.completeExceptionally(ex);
+        } finally {
+            WRITING.remove();
+            pending.decrementAndGet();
+        }
+    }
+
+    private <T> T forward(ClusterMembership.Member owner, ConversationMutation mutation, Class<T> resultType, Supplier<T> local) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "forwarded";
+        try {
+            ConversationMutationResult response = restClient.post()
+                    .uri(owner.url() + INTERNAL_PATH + "/conversations/{id}/mutations", mutation.conversationId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(FORWARDED_BY_HEADER, membership.nodeId())
+                    .headers(headers -> {
+                        tracing.currentContext().forEach(headers::set);
+                        if (StringUtils.hasText(chatProperties.getCluster().getSecret())) {
+                            headers.set(SECRET_HEADER, chatProperties.getCluster().getSecret());
+                        }
+                    })
+                    .body(mutation)
+                    .retrieve()
+                    .body(ConversationMutationResult.class);
+            recentWriteTracker.recordConversationWrite(mutation.conversationId());
+            if (response == null) {
+                return null;
+            }
+            if (response.events() != null) {
+                eventPublisher.getObject().relay(response.events());
+            }
+            return objectMapper.convertValue(response.result(), resultType);
+        } catch (RestClientResponseException ex) {
+            outcome = "rejected";
+            throw toServiceException(ex);
+        } catch (ResourceAccessException ex) {
+            if (!(ex.getCause() instanceof ConnectException || ex.getCause() instanceof HttpConnectTimeoutException)) {
+                // the owner may have applied it, so running it here could apply it twice
+                outcome = "timeout";
+                throw new ServiceException(HttpStatus.GATEWAY_TIMEOUT, "Owner node did not answer in time", ex);
+            }
+            outcome = "fallback";
+            log.warn("Owner {} of conversation {} is unreachable, applying {} locally",
+                    owner.nodeId(), mutation.conversationId(), mutation.operation());
+            return write(mutation.conversationId(), local);
+        } finally {
+            sample.stop(Timer.builder("chat.cluster.forward")
+                    .description("Conversation mutations forwarded to their owner node")
+                    .tag("operation", mutation.operation().name().toLowerCase(Locale.ROOT))
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
+    }
+
+    /**
+     * The owner's error as if it had been raised here, so callers see the same status and code.
+     */
+    private static ServiceException toServiceException(RestClientResponseException ex) {
+        HttpStatus status = HttpStatus.resolve(ex.getStatusCode().value());
+        Map<?, ?> body = null;
+        try {
+            body = ex.getResponseBodyAs(Map.class);
+        } catch (RuntimeException ignored) {
+            // not an error payload of ours
+        }
+        String message = body != null && body.get("error") instanceof String error ? error : ex.getStatusText();
+        String code = body != null && body.get("code") instanceof String value ? value : null;
+        return new ServiceException(status != null ? status : HttpStatus.BAD_GATEWAY, message, code);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.chat.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "chat.datasource")
+public class ChatDataSourceProperties {
+
+    /**
+     * Read replicas that serve read-only transactions. When empty, everything runs on the primary
+     * {@code spring.datasource}.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * How long reads of a conversation (or an agent's conversations) stay pinned to the primary after
+     * this node changed it, so participants see their own writes despite replication lag. The record
+     * of recent writes is node-local: the guarantee only holds when the participant's next read reaches
+     * a node that took the write. That is the node that ran it and, with {@code chat.cluster.affinity},
+     * also the node that forwarded it to the owner. Reads on any other node may lag.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<Replica> replicas) {
+        this.replicas = replicas != null ? new ArrayList<>(replicas) : new ArrayList<>();
+    }
+
+    public Duration getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    public static class Replica {
+
+        /**
+         * JDBC URL of the replica.
+         */
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * Maximum connections kept open to this replica.
+         */
+        private int maximumPoolSize = 10;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.chat.config;
 
+import com.example.chat.service.id.IdGenerator;
+import com.example.chat.service.id.RandomUuidIdGenerator;
+import com.example.chat.service.id.TimeOrderedIdGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -12,7 +16,7 @@ import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 @Configuration
-@EnableConfigurationProperties({ChatProperties.class, ChatSecurityProperties.class})
+@EnableConfigurationProperties({ChatProperties.class, ChatSecurityProperties.class, ChatDataSourceProperties.class})
 public class ChatModuleConfig {
 
     @Bean
@@ -37,5 +41,13 @@ public class ChatModuleConfig {
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         return mapper;
     }
-}
 
+    @Bean
+    @ConditionalOnMissingBean
+    public IdGenerator idGenerator(ChatProperties chatProperties) {
+        return switch (chatProperties.getIds().getStrategy()) {
+            case RANDOM -> new RandomUuidIdGenerator();
+            case TIME_ORDERED -> new TimeOrderedIdGenerator();
+        };
+    }
+}
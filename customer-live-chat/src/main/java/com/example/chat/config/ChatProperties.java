@@ -1,8 +1,11 @@
 package com.example.chat.config;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 @Validated
@@ -26,6 +29,36 @@ public class ChatProperties {
     @NestedConfigurationProperty
     private final Housekeeping housekeeping = new Housekeeping();
 
+    @NestedConfigurationProperty
+    private final Presence presence = new Presence();
+
+    @NestedConfigurationProperty
+    private final Resume resume = new Resume();
+
+    @NestedConfigurationProperty
+    private final SocketIo socketio = new SocketIo();
+
+    @NestedConfigurationProperty
+    private final Ids ids = new Ids();
+
+    @NestedConfigurationProperty
+    private final Retention retention = new Retention();
+
+    @NestedConfigurationProperty
+    private final Metrics metrics = new Metrics();
+
+    @NestedConfigurationProperty
+    private final Tracing tracing = new Tracing();
+
+    @NestedConfigurationProperty
+    private final Profiling profiling = new Profiling();
+
+    @NestedConfigurationProperty
+    private final Cluster cluster = new Cluster();
+
+    @NestedConfigurationProperty
+    private final Analytics analytics = new Analytics();
+
     public String getNamespace() {
         return namespace;
     }
@@ -54,6 +87,46 @@ public class ChatProperties {
         return housekeeping;
     }
 
+    public Presence getPresence() {
+        return presence;
+    }
+
+    public Resume getResume() {
+        return resume;
+    }
+
+    public SocketIo getSocketio() {
+        return socketio;
+    }
+
+    public Ids getIds() {
+        return ids;
+    }
+
+    public Retention getRetention() {
+        return retention;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Tracing getTracing() {
+        return tracing;
+    }
+
+    public Profiling getProfiling() {
+        return profiling;
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    public Analytics getAnalytics() {
+        return analytics;
+    }
+
     @Validated
     public static class Redis {
 
@@ -68,7 +141,7 @@ public class ChatProperties {
         private Duration conversationTtl = Duration.ofHours(24);
 
         /**
-         * Redis key time-to-live for presence entries.
+         * How long a participant stays online after their last heartbeat.
          */
         private Duration presenceTtl = Duration.ofMinutes(5);
 
@@ -196,6 +269,30 @@ public class ChatProperties {
          */
         private Duration maxDuration = Duration.ofHours(12);
 
+        /**
+         * Whether a customer connecting without a conversation id rejoins their open conversation
+         * instead of starting a new one.
+         */
+        private boolean reuseOpen = true;
+
+        /**
+         * Attempts of an accept, queue, close or message before a version conflict is returned to
+         * the caller. Each retry starts over from a fresh read.
+         */
+        private int transitionAttempts = 5;
+
+        /**
+         * Upper bound of the random pause before the first retry of a conflicting transition; it
+         * doubles with every further attempt.
+         */
+        private Duration transitionBackoff = Duration.ofMillis(10);
+
+        /**
+         * Every this many versions a conversation's event log entry also carries a snapshot of the
+         * whole conversation, so replaying it never folds more than this many events.
+         */
+        private int snapshotEvery = 50;
+
         public Duration getInactivityTimeout() {
             return inactivityTimeout;
         }
@@ -211,6 +308,38 @@ public class ChatProperties {
         public void setMaxDuration(Duration maxDuration) {
             this.maxDuration = maxDuration;
         }
+
+        public boolean isReuseOpen() {
+            return reuseOpen;
+        }
+
+        public void setReuseOpen(boolean reuseOpen) {
+            this.reuseOpen = reuseOpen;
+        }
+
+        public int getTransitionAttempts() {
+            return transitionAttempts;
+        }
+
+        public void setTransitionAttempts(int transitionAttempts) {
+            this.transitionAttempts = transitionAttempts;
+        }
+
+        public Duration getTransitionBackoff() {
+            return transitionBackoff;
+        }
+
+        public void setTransitionBackoff(Duration transitionBackoff) {
+            this.transitionBackoff = transitionBackoff;
+        }
+
+        public int getSnapshotEvery() {
+            return snapshotEvery;
+        }
+
+        public void setSnapshotEvery(int snapshotEvery) {
+            this.snapshotEvery = snapshotEvery;
+        }
     }
 
     @Validated
@@ -229,5 +358,655 @@ public class ChatProperties {
             this.interval = interval;
         }
     }
-}
 
+    @Validated
+    public static class Presence {
+
+        /**
+         * How often coalesced heartbeats and session changes are written to Redis.
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+    }
+
+    @Validated
+    public static class Resume {
+
+        /**
+         * How long a resume token handed out in the Socket.IO handshake lets a client reconnect
+         * without the conversation lookup.
+         */
+        private Duration tokenTtl = Duration.ofMinutes(15);
+
+        /**
+         * Key that signs resume tokens. Must be the same on every node so a client can resume on any
+         * of them; when blank, each node signs with a random key and only honours its own tokens.
+         * Required with {@code chat.cluster.affinity}, which only makes sense with several nodes.
+         */
+        private String secret;
+
+        /**
+         * Most missed messages replayed in the handshake; clients page through the rest over REST.
+         */
+        private int maxReplay = 200;
+
+        public Duration getTokenTtl() {
+            return tokenTtl;
+        }
+
+        public void setTokenTtl(Duration tokenTtl) {
+            this.tokenTtl = tokenTtl;
+        }
+
+        public String getSecret() {
+            return secret;
+        }
+
+        public void setSecret(String secret) {
+            this.secret = secret;
+        }
+
+        public int getMaxReplay() {
+            return maxReplay;
+        }
+
+        public void setMaxReplay(int maxReplay) {
+            this.maxReplay = maxReplay;
+        }
+    }
+
+    /**
+     * Outbound buffering and handshake admission of Socket.IO connections; host and port are read by
+     * {@code SocketIoConfig}.
+     */
+    @Validated
+    public static class SocketIo {
+
+        /**
+         * Pending outbound bytes above which a connection turns unwritable; queue snapshots for it
+         * are then conflated to the latest one.
+         */
+        private DataSize writeBufferHighWaterMark = DataSize.ofKilobytes(256);
+
+        /**
+         * Pending outbound bytes below which an unwritable connection turns writable again.
+         */
+        private DataSize writeBufferLowWaterMark = DataSize.ofKilobytes(64);
+
+        /**
+         * Hard cap on pending outbound bytes per connection; a client over it is disconnected. Chat
+         * messages wait for the connection to drain instead of counting against it.
+         */
+        private DataSize maxBuffered = DataSize.ofMegabytes(4);
+
+        /**
+         * How long a connection may stay unwritable before the client is disconnected as a slow
+         * consumer.
+         */
+        private Duration maxUnwritable = Duration.ofSeconds(15);
+
+        /**
+         * Chat messages a connection may have waiting for its websocket to drain before the client is
+         * disconnected; it gets them back when it resumes.
+         */
+        private int maxQueuedMessages = 500;
+
+        /**
+         * Socket handshakes per second this node starts once the burst is used up.
+         */
+        private int handshakeRate = 200;
+
+        /**
+         * Socket handshakes that may start at once before the rate applies.
+         */
+        private int handshakeBurst = 400;
+
+        /**
+         * Longest a handshake waits for its turn; connects that would wait longer are told to retry.
+         */
+        private Duration handshakeMaxQueueWait = Duration.ofSeconds(2);
+
+        /**
+         * Handshakes running or waiting on this node above which new connects are told to retry.
+         */
+        private int handshakeMaxPending = 2000;
+
+        public DataSize getWriteBufferHighWaterMark() {
+            return writeBufferHighWaterMark;
+        }
+
+        public void setWriteBufferHighWaterMark(DataSize writeBufferHighWaterMark) {
+            this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+        }
+
+        public DataSize getWriteBufferLowWaterMark() {
+            return writeBufferLowWaterMark;
+        }
+
+        public void setWriteBufferLowWaterMark(DataSize writeBufferLowWaterMark) {
+            this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+        }
+
+        public DataSize getMaxBuffered() {
+            return maxBuffered;
+        }
+
+        public void setMaxBuffered(DataSize maxBuffered) {
+            this.maxBuffered = maxBuffered;
+        }
+
+        public Duration getMaxUnwritable() {
+            return maxUnwritable;
+        }
+
+        public void setMaxUnwritable(Duration maxUnwritable) {
+            this.maxUnwritable = maxUnwritable;
+        }
+
+        public int getMaxQueuedMessages() {
+            return maxQueuedMessages;
+        }
+
+        public void setMaxQueuedMessages(int maxQueuedMessages) {
+            this.maxQueuedMessages = maxQueuedMessages;
+        }
+
+        public int getHandshakeRate() {
+            return handshakeRate;
+        }
+
+        public void setHandshakeRate(int handshakeRate) {
+            this.handshakeRate = handshakeRate;
+        }
+
+        public int getHandshakeBurst() {
+            return handshakeBurst;
+        }
+
+        public void setHandshakeBurst(int handshakeBurst) {
+            this.handshakeBurst = handshakeBurst;
+        }
+
+        public Duration getHandshakeMaxQueueWait() {
+            return handshakeMaxQueueWait;
+        }
+
+        public void setHandshakeMaxQueueWait(Duration handshakeMaxQueueWait) {
+            this.handshakeMaxQueueWait = handshakeMaxQueueWait;
+        }
+
+        public int getHandshakeMaxPending() {
+            return handshakeMaxPending;
+        }
+
+        public void setHandshakeMaxPending(int handshakeMaxPending) {
+            this.handshakeMaxPending = handshakeMaxPending;
+        }
+    }
+
+    @Validated
+    public static class Retention {
+
+        /**
+         * Whether expired partitions are dropped. Upcoming partitions are created either way.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Age after which whole monthly conversation partitions are dropped.
+         */
+        private Duration conversationRetention = Duration.ofDays(180);
+
+        /**
+         * Number of future monthly partitions kept ready ahead of the current month.
+         */
+        private int partitionsAhead = 2;
+
+        /**
+         * Creation-time window searched by open-conversation queries. Must exceed
+         * {@code chat.conversation.max-duration}; older partitions are pruned from those scans.
+         */
+        private Duration openConversationWindow = Duration.ofDays(7);
+
+        /**
+         * Interval between partition maintenance runs.
+         */
+        private Duration maintenanceInterval = Duration.ofHours(6);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getConversationRetention() {
+            return conversationRetention;
+        }
+
+        public void setConversationRetention(Duration conversationRetention) {
+            this.conversationRetention = conversationRetention;
+        }
+
+        public int getPartitionsAhead() {
+            return partitionsAhead;
+        }
+
+        public void setPartitionsAhead(int partitionsAhead) {
+            this.partitionsAhead = partitionsAhead;
+        }
+
+        public Duration getOpenConversationWindow() {
+            return openConversationWindow;
+        }
+
+        public void setOpenConversationWindow(Duration openConversationWindow) {
+            this.openConversationWindow = openConversationWindow;
+        }
+
+        public Duration getMaintenanceInterval() {
+            return maintenanceInterval;
+        }
+
+        public void setMaintenanceInterval(Duration maintenanceInterval) {
+            this.maintenanceInterval = maintenanceInterval;
+        }
+    }
+
+    @Validated
+    public static class Ids {
+
+        /**
+         * Identifier format used for conversations, messages and events.
+         */
+        private Strategy strategy = Strategy.TIME_ORDERED;
+
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(Strategy strategy) {
+            this.strategy = strategy;
+        }
+
+        public enum Strategy {
+            /**
+             * Version 7 UUIDs that sort by creation time.
+             */
+            TIME_ORDERED,
+            /**
+             * Version 4 random UUIDs.
+             */
+            RANDOM
+        }
+    }
+
+    @Validated
+    public static class Metrics {
+
+        /**
+         * Count Redis calls per conversation operation ({@code chat.redis.round.trips}). Wraps the
+         * Redisson client and every object, batch and connection it hands out in a counting proxy,
+         * so it is off by default; the Redis round-trip budget check turns it on.
+         */
+        private boolean redisRoundTrips;
+
+        public boolean isRedisRoundTrips() {
+            return redisRoundTrips;
+        }
+
+        public void setRedisRoundTrips(boolean redisRoundTrips) {
+            this.redisRoundTrips = redisRoundTrips;
+        }
+    }
+
+    @Validated
+    public static class Tracing {
+
+        /**
+         * Where finished spans are written. Additional {@code brave.handler.SpanHandler} beans (for
+         * example a Zipkin reporter) are used alongside this one.
+         */
+        private Exporter exporter = Exporter.LOG;
+
+        /**
+         * Target of the {@code file} exporter: one Zipkin v2 JSON span per line.
+         */
+        private String file = "logs/chat-traces.jsonl";
+
+        public Exporter getExporter() {
+            return exporter;
+        }
+
+        public void setExporter(Exporter exporter) {
+            this.exporter = exporter;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public enum Exporter {
+            /**
+             * One line per span on the {@code chat.tracing} logger.
+             */
+            LOG,
+            /**
+             * Zipkin v2 JSON lines appended to {@link Tracing#file}.
+             */
+            FILE,
+            /**
+             * Spans are only handed to other registered handlers.
+             */
+            NONE
+        }
+    }
+
+    @Validated
+    public static class Profiling {
+
+        /**
+         * Expose the admin endpoint that starts and stops JFR recordings on this node.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Duration used when a recording is started without one, and the upper bound for any
+         * requested duration.
+         */
+        private Duration maxDuration = Duration.ofMinutes(5);
+
+        /**
+         * Disk space a recording may use before the oldest data is discarded.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(100);
+
+        /**
+         * Directory for recording files. Defaults to the JVM temp directory. Files are deleted once
+         * streamed back.
+         */
+        private String directory;
+
+        /**
+         * JFR settings the recording starts from: {@code default} (low overhead) or {@code profile}.
+         */
+        private String settings = "profile";
+
+        /**
+         * Lock waits at or above this duration are recorded as {@code com.example.chat.LockWait}.
+         */
+        private Duration lockWaitThreshold = Duration.ofMillis(1);
+
+        /**
+         * Conversation saves at or above this duration are recorded as
+         * {@code com.example.chat.SaveConversation}.
+         */
+        private Duration slowSaveThreshold = Duration.ofMillis(20);
+
+        /**
+         * Room broadcasts at or above this duration are recorded as {@code com.example.chat.Broadcast}.
+         */
+        private Duration slowBroadcastThreshold = Duration.ofMillis(20);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getMaxDuration() {
+            return maxDuration;
+        }
+
+        public void setMaxDuration(Duration maxDuration) {
+            this.maxDuration = maxDuration;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public String getSettings() {
+            return settings;
+        }
+
+        public void setSettings(String settings) {
+            this.settings = settings;
+        }
+
+        public Duration getLockWaitThreshold() {
+            return lockWaitThreshold;
+        }
+
+        public void setLockWaitThreshold(Duration lockWaitThreshold) {
+            this.lockWaitThreshold = lockWaitThreshold;
+        }
+
+        public Duration getSlowSaveThreshold() {
+            return slowSaveThreshold;
+        }
+
+        public void setSlowSaveThreshold(Duration slowSaveThreshold) {
+            this.slowSaveThreshold = slowSaveThreshold;
+        }
+
+        public Duration getSlowBroadcastThreshold() {
+            return slowBroadcastThreshold;
+        }
+
+        public void setSlowBroadcastThreshold(Duration slowBroadcastThreshold) {
+            this.slowBroadcastThreshold = slowBroadcastThreshold;
+        }
+    }
+
+    @Validated
+    public static class Cluster {
+
+        /**
+         * Give every conversation an owner node by consistent hashing over the live members and run
+         * its accept, queue, send and close on that node's single writer. Mutations arriving on other
+         * nodes are forwarded to the owner.
+         */
+        private boolean affinity = false;
+
+        /**
+         * How often a node renews its membership lease and picks up joined and departed members.
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(1);
+
+        /**
+         * Members whose lease is older than this are dropped from the ring and their conversations
+         * move to the remaining nodes.
+         */
+        private Duration memberLease = Duration.ofSeconds(5);
+
+        /**
+         * Points per member on the hash ring; more points spread conversations more evenly.
+         */
+        private int virtualNodes = 128;
+
+        /**
+         * Base URL other nodes use to reach this one. Defaults to {@code http://<host address>:<server port>}.
+         */
+        private String advertisedUrl;
+
+        /**
+         * How long a forwarded mutation may take on the owner before the caller gives up.
+         */
+        private Duration forwardTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Shared secret sent with forwarded mutations; the owner rejects forwards without it. Required
+         * with {@code affinity} on, since a forward acts as whichever participant it names.
+         */
+        private String secret;
+
+        public boolean isAffinity() {
+            return affinity;
+        }
+
+        public void setAffinity(boolean affinity) {
+            this.affinity = affinity;
+        }
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+
+        public Duration getMemberLease() {
+            return memberLease;
+        }
+
+        public void setMemberLease(Duration memberLease) {
+            this.memberLease = memberLease;
+        }
+
+        public int getVirtualNodes() {
+            return virtualNodes;
+        }
+
+        public void setVirtualNodes(int virtualNodes) {
+            this.virtualNodes = virtualNodes;
+        }
+
+        public String getAdvertisedUrl() {
+            return advertisedUrl;
+        }
+
+        public void setAdvertisedUrl(String advertisedUrl) {
+            this.advertisedUrl = advertisedUrl;
+        }
+
+        public Duration getForwardTimeout() {
+            return forwardTimeout;
+        }
+
+        public void setForwardTimeout(Duration forwardTimeout) {
+            this.forwardTimeout = forwardTimeout;
+        }
+
+        public String getSecret() {
+            return secret;
+        }
+
+        public void setSecret(String secret) {
+            this.secret = secret;
+        }
+    }
+
+    @Validated
+    public static class Analytics {
+
+        /**
+         * Consume the lifecycle and message topics on this node and push windowed operations
+         * aggregates to supervisor sockets connected here.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Span of the per-minute aggregates. On start the consumer rereads the topics from this far
+         * back, so a restarted node shows the whole window again.
+         */
+        private Duration window = Duration.ofMinutes(15);
+
+        /**
+         * How often the aggregates are pushed to the supervisor room.
+         */
+        private Duration pushInterval = Duration.ofSeconds(1);
+
+        /**
+         * Open conversations tracked for queue depth, first response and handle time; the least
+         * recently seen one is dropped beyond this.
+         */
+        private int maxTrackedConversations = 50_000;
+
+        /**
+         * Agents tracked for utilization; the least recently seen one is dropped beyond this.
+         */
+        private int maxTrackedAgents = 1_000;
+
+        /**
+         * Agent ids allowed to open {@code scope=supervisor} sockets and receive the fleet-wide
+         * aggregates. Any other agent is refused; when empty, nobody can subscribe.
+         */
+        private List<String> supervisors = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public Duration getPushInterval() {
+            return pushInterval;
+        }
+
+        public void setPushInterval(Duration pushInterval) {
+            this.pushInterval = pushInterval;
+        }
+
+        public int getMaxTrackedConversations() {
+            return maxTrackedConversations;
+        }
+
+        public void setMaxTrackedConversations(int maxTrackedConversations) {
+            this.maxTrackedConversations = maxTrackedConversations;
+        }
+
+        public int getMaxTrackedAgents() {
+            return maxTrackedAgents;
+        }
+
+        public void setMaxTrackedAgents(int maxTrackedAgents) {
+            this.maxTrackedAgents = maxTrackedAgents;
+        }
+
+        public List<String> getSupervisors() {
+            return supervisors;
+        }
+
+        public void setSupervisors(List<String> supervisors) {
+            this.supervisors = supervisors != null ? new ArrayList<>(supervisors) : new ArrayList<>();
+        }
+    }
+}
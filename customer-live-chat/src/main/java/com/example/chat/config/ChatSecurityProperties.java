@@ -17,6 +17,8 @@ public class ChatSecurityProperties {
 
     private final RateLimit rateLimit = new RateLimit();
 
+    private final SocketRateLimit socketRateLimit = new SocketRateLimit();
+
     /**
      * Explicit list of origins allowed to call the HTTP API. Ignored when
      * {@link #allowedOriginPatterns} is configured.
@@ -43,6 +45,10 @@ public class ChatSecurityProperties {
         return rateLimit;
     }
 
+    public SocketRateLimit getSocketRateLimit() {
+        return socketRateLimit;
+    }
+
     public List<String> getAllowedOrigins() {
         return allowedOrigins;
     }
@@ -78,6 +84,23 @@ public class ChatSecurityProperties {
          */
         private Duration refillPeriod = Duration.ofSeconds(60);
 
+        /**
+         * Where buckets live: {@code local} keeps them in this node's memory, {@code redis} shares them
+         * across nodes at the cost of one Redis round trip per request.
+         */
+        private Store store = Store.LOCAL;
+
+        /**
+         * Maximum number of local buckets kept before the least recently used ones are evicted.
+         */
+        private long maxBuckets = 100_000;
+
+        /**
+         * Idle time after which a bucket is evicted. Defaults to the time needed to refill a bucket
+         * completely, after which a fresh bucket behaves identically.
+         */
+        private Duration idleTimeout;
+
         public long getCapacity() {
             return capacity;
         }
@@ -101,6 +124,143 @@ public class ChatSecurityProperties {
         public void setRefillPeriod(Duration refillPeriod) {
             this.refillPeriod = refillPeriod;
         }
+
+        public Store getStore() {
+            return store;
+        }
+
+        public void setStore(Store store) {
+            this.store = store;
+        }
+
+        public long getMaxBuckets() {
+            return maxBuckets;
+        }
+
+        public void setMaxBuckets(long maxBuckets) {
+            this.maxBuckets = maxBuckets;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public enum Store {
+            LOCAL,
+            REDIS
+        }
     }
-}
 
+    @Validated
+    public static class SocketRateLimit {
+
+        /**
+         * Toggle to enable or disable throttling of inbound Socket.IO chat messages.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Burst of messages a single socket session may send.
+         */
+        private long sessionCapacity = 10;
+
+        /**
+         * Messages restored to a session's bucket every {@link #refillPeriod}.
+         */
+        private long sessionRefillTokens = 10;
+
+        /**
+         * Burst of messages a participant may send across all of their sessions.
+         */
+        private long participantCapacity = 20;
+
+        /**
+         * Messages restored to a participant's bucket every {@link #refillPeriod}.
+         */
+        private long participantRefillTokens = 20;
+
+        /**
+         * Interval at which session and participant buckets are replenished.
+         */
+        private Duration refillPeriod = Duration.ofSeconds(10);
+
+        /**
+         * Rejected messages within {@link #violationWindow} after which the session is disconnected.
+         * Zero or less never disconnects.
+         */
+        private int maxViolations = 30;
+
+        /**
+         * Window over which rejected messages are counted towards {@link #maxViolations}.
+         */
+        private Duration violationWindow = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getSessionCapacity() {
+            return sessionCapacity;
+        }
+
+        public void setSessionCapacity(long sessionCapacity) {
+            this.sessionCapacity = sessionCapacity;
+        }
+
+        public long getSessionRefillTokens() {
+            return sessionRefillTokens;
+        }
+
+        public void setSessionRefillTokens(long sessionRefillTokens) {
+            this.sessionRefillTokens = sessionRefillTokens;
+        }
+
+        public long getParticipantCapacity() {
+            return participantCapacity;
+        }
+
+        public void setParticipantCapacity(long participantCapacity) {
+            this.participantCapacity = participantCapacity;
+        }
+
+        public long getParticipantRefillTokens() {
+            return participantRefillTokens;
+        }
+
+        public void setParticipantRefillTokens(long participantRefillTokens) {
+            this.participantRefillTokens = participantRefillTokens;
+        }
+
+        public Duration getRefillPeriod() {
+            return refillPeriod;
+        }
+
+        public void setRefillPeriod(Duration refillPeriod) {
+            this.refillPeriod = refillPeriod;
+        }
+
+        public int getMaxViolations() {
+            return maxViolations;
+        }
+
+        public void setMaxViolations(int maxViolations) {
+            this.maxViolations = maxViolations;
+        }
+
+        public Duration getViolationWindow() {
+            return violationWindow;
+        }
+
+        public void setViolationWindow(Duration violationWindow) {
+            this.violationWindow = violationWindow;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.chat.config;
+
+import com.example.chat.persistence.ReadReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Replaces the auto-configured data source with a primary/replica router once at least one
+ * {@code chat.datasource.replicas} entry is configured.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "chat.datasource", name = "replicas[0].url")
+public class DataSourceRoutingConfig implements DisposableBean {
+
+    private final List<HikariDataSource> replicaPools = new ArrayList<>();
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties dataSourceProperties,
+            ChatDataSourceProperties chatDataSourceProperties) {
+        List<DataSource> replicas = new ArrayList<>();
+        int index = 0;
+        for (ChatDataSourceProperties.Replica replica : chatDataSourceProperties.getReplicas()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("chat-replica-" + index++);
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.getUsername());
+            pool.setPassword(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.getPassword());
+            pool.setDriverClassName(dataSourceProperties.getDriverClassName());
+            pool.setMaximumPoolSize(Math.max(replica.getMaximumPoolSize(), 1));
+            pool.setReadOnly(true);
+            replicaPools.add(pool);
+            replicas.add(pool);
+        }
+        return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primaryDataSource, replicas));
+    }
+
+    @Override
+    public void destroy() {
+        replicaPools.forEach(HikariDataSource::close);
+    }
+}
@@ -2,14 +2,22 @@ package com.example.chat.config;
 
 import com.example.chat.event.ChatEvent;
 import com.example.chat.event.ChatMessageEvent;
+import java.util.Map;
+import java.util.UUID;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 
 @Configuration
 public class KafkaConfig {
@@ -22,7 +30,9 @@ public class KafkaConfig {
     @Bean
     public KafkaTemplate<String, ChatEvent> chatEventKafkaTemplate(
             ProducerFactory<String, ChatEvent> chatEventProducerFactory) {
-        return new KafkaTemplate<>(chatEventProducerFactory);
+        KafkaTemplate<String, ChatEvent> template = new KafkaTemplate<>(chatEventProducerFactory);
+        template.setObservationEnabled(true);
+        return template;
     }
 
     @Bean
@@ -33,7 +43,30 @@ public class KafkaConfig {
     @Bean
     public KafkaTemplate<String, ChatMessageEvent> chatMessageKafkaTemplate(
             ProducerFactory<String, ChatMessageEvent> chatMessageProducerFactory) {
-        return new KafkaTemplate<>(chatMessageProducerFactory);
+        KafkaTemplate<String, ChatMessageEvent> template = new KafkaTemplate<>(chatMessageProducerFactory);
+        template.setObservationEnabled(true);
+        return template;
+    }
+
+    /**
+     * Listener containers for the operations analytics. Each node joins a consumer group of its own
+     * and commits no offsets: it reads every partition and seeks to the start of the analytics
+     * window whenever partitions are assigned.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "chat.analytics", name = "enabled", havingValue = "true")
+    public ConcurrentKafkaListenerContainerFactory<String, String> analyticsListenerContainerFactory(
+            KafkaProperties properties) {
+        Map<String, Object> config = properties.buildConsumerProperties(null);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, properties.getConsumer().getGroupId() + "-analytics-" + UUID.randomUUID());
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(config));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
     }
 
     @Bean
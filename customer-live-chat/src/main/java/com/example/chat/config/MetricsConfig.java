@@ -0,0 +1,32 @@
+package com.example.chat.config;
+
+import com.corundumstudio.socketio.SocketIOServer;
+import com.example.chat.observability.RedisRoundTripCountingPostProcessor;
+import com.example.chat.service.AgentQueueService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "chat.metrics", name = "redis-round-trips", havingValue = "true")
+    public static RedisRoundTripCountingPostProcessor redisRoundTripCountingPostProcessor() {
+        return new RedisRoundTripCountingPostProcessor();
+    }
+
+    @Bean
+    public MeterBinder chatGauges(AgentQueueService agentQueueService, SocketIOServer socketIOServer) {
+        return registry -> {
+            Gauge.builder("chat.queue.length", agentQueueService, AgentQueueService::size)
+                    .description("Conversations waiting for an agent")
+                    .register(registry);
+            Gauge.builder("chat.socket.connected", socketIOServer, server -> server.getAllClients().size())
+                    .description("Socket.IO clients connected to this node")
+                    .register(registry);
+        };
+    }
+}
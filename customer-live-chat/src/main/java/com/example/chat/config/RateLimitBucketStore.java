@@ -0,0 +1,13 @@
+package com.example.chat.config;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import java.util.function.Supplier;
+
+/**
+ * Holds the rate-limit bucket for each client/route key.
+ */
+public interface RateLimitBucketStore {
+
+    Bucket resolve(String key, Supplier<BucketConfiguration> configuration);
+}
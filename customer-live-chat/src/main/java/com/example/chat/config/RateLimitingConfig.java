@@ -0,0 +1,50 @@
+package com.example.chat.config;
+
+import com.example.chat.service.RedisKeyFactory;
+import java.time.Duration;
+import java.util.Objects;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+@Configuration
+public class RateLimitingConfig {
+
+    @Bean
+    public RouteTemplateResolver routeTemplateResolver(
+            @Qualifier("requestMappingHandlerMapping") ObjectProvider<RequestMappingHandlerMapping> handlerMapping) {
+        return new RouteTemplateResolver(() -> handlerMapping.getObject().getHandlerMethods().keySet().stream()
+                .map(RequestMappingInfo::getPathPatternsCondition)
+                .filter(Objects::nonNull)
+                .flatMap(condition -> condition.getPatterns().stream())
+                .toList());
+    }
+
+    @Bean
+    public RateLimitBucketStore rateLimitBucketStore(
+            ChatSecurityProperties securityProperties,
+            ObjectProvider<RedissonClient> redissonClient,
+            RedisKeyFactory keyFactory) {
+        ChatSecurityProperties.RateLimit rateLimit = securityProperties.getRateLimit();
+        if (rateLimit.getStore() == ChatSecurityProperties.RateLimit.Store.REDIS) {
+            return new RedisRateLimitBucketStore(redissonClient.getObject(), keyFactory);
+        }
+        return new LocalRateLimitBucketStore(rateLimit.getMaxBuckets(), resolveIdleTimeout(rateLimit));
+    }
+
+    private Duration resolveIdleTimeout(ChatSecurityProperties.RateLimit rateLimit) {
+        Duration idleTimeout = rateLimit.getIdleTimeout();
+        if (idleTimeout != null && !idleTimeout.isZero() && !idleTimeout.isNegative()) {
+            return idleTimeout;
+        }
+        Duration refillPeriod = RateLimitingFilter.effectiveRefillPeriod(rateLimit);
+        long capacity = Math.max(rateLimit.getCapacity(), 1);
+        long refillTokens = Math.max(rateLimit.getRefillTokens(), 1);
+        long periodsToFill = (capacity + refillTokens - 1) / refillTokens;
+        return refillPeriod.multipliedBy(periodsToFill);
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.chat.config;
 
+import com.example.chat.cluster.ConversationWriteRouter;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.Refill;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -10,8 +12,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
@@ -19,26 +19,41 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+/**
+ * Per-client request throttling. Buckets are keyed by client IP and route template rather than the
+ * raw URI, so requests carrying ids in the path share one bucket per route and the number of live
+ * buckets stays proportional to active clients instead of growing with every distinct URL.
+ */
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE + 1)
 public class RateLimitingFilter extends OncePerRequestFilter {
 
     private final ChatSecurityProperties securityProperties;
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final RateLimitBucketStore bucketStore;
+    private final RouteTemplateResolver routeTemplateResolver;
+    private final ChatProperties chatProperties;
 
-    public RateLimitingFilter(ChatSecurityProperties securityProperties) {
+    public RateLimitingFilter(
+            ChatSecurityProperties securityProperties,
+            RateLimitBucketStore bucketStore,
+            RouteTemplateResolver routeTemplateResolver,
+            ChatProperties chatProperties) {
         this.securityProperties = securityProperties;
+        this.bucketStore = bucketStore;
+        this.routeTemplateResolver = routeTemplateResolver;
+        this.chatProperties = chatProperties;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        if (!securityProperties.isRateLimitingEnabled() || isAsyncDispatch(request) || "OPTIONS".equalsIgnoreCase(request.getMethod())) {
+        if (!securityProperties.isRateLimitingEnabled() || isAsyncDispatch(request) || "OPTIONS".equalsIgnoreCase(request.getMethod())
+                || isClusterForward(request)) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        Bucket bucket = buckets.computeIfAbsent(resolveKey(request), this::newBucket);
+        Bucket bucket = bucketStore.resolve(resolveKey(request), this::bucketConfiguration);
         if (bucket.tryConsume(1)) {
             filterChain.doFilter(request, response);
             return;
@@ -47,22 +62,36 @@ public class RateLimitingFilter extends OncePerRequestFilter {
         writeRateLimitResponse(response);
     }
 
-    private Bucket newBucket(String key) {
-        ChatSecurityProperties.RateLimit limitConfig = securityProperties.getRateLimit();
-        Duration refillPeriod = limitConfig.getRefillPeriod();
-        if (refillPeriod.isZero() || refillPeriod.isNegative()) {
-            refillPeriod = Duration.ofSeconds(60);
-        }
+    /**
+     * Mutations forwarded by another node were already throttled there, per client. Only requests
+     * carrying the cluster secret count as forwards; anything else on the internal path is
+     * throttled like any other route.
+     */
+    private boolean isClusterForward(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(ConversationWriteRouter.INTERNAL_PATH + "/")
+                && ConversationWriteRouter.isClusterMember(
+                        chatProperties.getCluster(), request.getHeader(ConversationWriteRouter.SECRET_HEADER));
+    }
 
+    private BucketConfiguration bucketConfiguration() {
+        ChatSecurityProperties.RateLimit limitConfig = securityProperties.getRateLimit();
         long capacity = Math.max(limitConfig.getCapacity(), 1);
         long refillTokens = Math.max(limitConfig.getRefillTokens(), 1);
 
-        Bandwidth limit = Bandwidth.classic(capacity, Refill.greedy(refillTokens, refillPeriod));
-        return Bucket.builder()
+        Bandwidth limit = Bandwidth.classic(capacity, Refill.greedy(refillTokens, effectiveRefillPeriod(limitConfig)));
+        return BucketConfiguration.builder()
                 .addLimit(limit)
                 .build();
     }
 
+    static Duration effectiveRefillPeriod(ChatSecurityProperties.RateLimit limitConfig) {
+        Duration refillPeriod = limitConfig.getRefillPeriod();
+        if (refillPeriod == null || refillPeriod.isZero() || refillPeriod.isNegative()) {
+            return Duration.ofSeconds(60);
+        }
+        return refillPeriod;
+    }
+
     private void writeRateLimitResponse(HttpServletResponse response) throws IOException {
         response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
         response.setCharacterEncoding(StandardCharsets.UTF_8.name());
@@ -78,8 +107,6 @@ public class RateLimitingFilter extends OncePerRequestFilter {
         String clientIp = forwardedFor != null && !forwardedFor.isBlank()
                 ? forwardedFor.split(",")[0].trim()
                 : request.getRemoteAddr();
-        String path = request.getRequestURI();
-        return clientIp + ":" + path;
+        return clientIp + ":" + routeTemplateResolver.resolve(request);
     }
 }
-
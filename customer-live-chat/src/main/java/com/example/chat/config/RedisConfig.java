@@ -1,6 +1,9 @@
 package com.example.chat.config;
 
+import com.example.chat.observability.RedisRoundTripCountingPostProcessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.redisson.api.RedissonClient;
+import org.redisson.spring.data.connection.RedissonConnectionFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -12,6 +15,15 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @Configuration
 public class RedisConfig {
 
+    /**
+     * Spring Data Redis connections on top of the shared Redisson client. Declared here so the
+     * concrete client is used even when {@link RedissonClient} is wrapped for metrics.
+     */
+    @Bean
+    public RedisConnectionFactory redisConnectionFactory(RedissonClient redissonClient) {
+        return new RedissonConnectionFactory(RedisRoundTripCountingPostProcessor.unwrap(redissonClient));
+    }
+
     @Bean
     public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
         StringRedisTemplate template = new StringRedisTemplate();
@@ -0,0 +1,36 @@
+package com.example.chat.config;
+
+import com.example.chat.observability.RedisRoundTripCountingPostProcessor;
+import com.example.chat.service.RedisKeyFactory;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.redis.redisson.cas.RedissonBasedProxyManager;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+
+/**
+ * Buckets shared by all nodes through Redis compare-and-swap. Redis expires each bucket once it
+ * would have refilled completely, so the key space stays bounded too.
+ */
+public class RedisRateLimitBucketStore implements RateLimitBucketStore {
+
+    private final ProxyManager<String> proxyManager;
+    private final RedisKeyFactory keyFactory;
+
+    public RedisRateLimitBucketStore(RedissonClient redissonClient, RedisKeyFactory keyFactory) {
+        this.keyFactory = keyFactory;
+        Redisson redisson = (Redisson) RedisRoundTripCountingPostProcessor.unwrap(redissonClient);
+        this.proxyManager = RedissonBasedProxyManager.builderFor(redisson.getCommandExecutor())
+                .withExpirationStrategy(ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(Duration.ZERO))
+                .build();
+    }
+
+    @Override
+    public Bucket resolve(String key, Supplier<BucketConfiguration> configuration) {
+        return proxyManager.builder().build(keyFactory.rateLimitKey(key), configuration);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.chat.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+
+/**
+ * Maps a request to the route template that will handle it (for example
+ * {@code /api/conversations/{conversationId}/messages}), so per-route state is keyed by route rather
+ * than by concrete URI. Requests that match no route share a single {@value #UNMATCHED} key.
+ */
+public class RouteTemplateResolver {
+
+    static final String UNMATCHED = "*";
+
+    private final Supplier<Collection<PathPattern>> patternSource;
+    private volatile List<PathPattern> patterns;
+
+    public RouteTemplateResolver(Supplier<Collection<PathPattern>> patternSource) {
+        this.patternSource = patternSource;
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        if (contextPath != null && !contextPath.isEmpty() && path.startsWith(contextPath)) {
+            path = path.substring(contextPath.length());
+        }
+        PathContainer container = PathContainer.parsePath(path);
+        for (PathPattern pattern : patterns()) {
+            if (pattern.matches(container)) {
+                return pattern.getPatternString();
+            }
+        }
+        return UNMATCHED;
+    }
+
+    private List<PathPattern> patterns() {
+        List<PathPattern> resolved = patterns;
+        if (resolved == null) {
+            resolved = patternSource.get().stream()
+                    .distinct()
+                    .sorted(PathPattern.SPECIFICITY_COMPARATOR)
+                    .toList();
+            patterns = resolved;
+        }
+        return resolved;
+    }
+}
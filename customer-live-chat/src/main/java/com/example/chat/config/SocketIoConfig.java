@@ -1,9 +1,12 @@
 package com.example.chat.config;
 
 import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.SocketIOChannelInitializer;
 import com.corundumstudio.socketio.SocketIOServer;
 import com.corundumstudio.socketio.Transport;
+import com.example.chat.websocket.SocketOutboundBuffers;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.Channel;
 import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
@@ -18,7 +21,8 @@ public class SocketIoConfig implements DisposableBean {
     public SocketIOServer socketIOServer(
             @Value("${chat.socketio.host:0.0.0.0}") String host,
             @Value("${chat.socketio.port:9094}") int port,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            SocketOutboundBuffers outboundBuffers) {
         Configuration configuration = new Configuration();
         configuration.setHostname(host);
         configuration.setPort(port);
@@ -28,6 +32,13 @@ public class SocketIoConfig implements DisposableBean {
         configuration.setJsonSupport(new SpringJacksonJsonSupport(objectMapper));
 
         server = new SocketIOServer(configuration);
+        server.setPipelineFactory(new SocketIOChannelInitializer() {
+            @Override
+            protected void initChannel(Channel channel) throws Exception {
+                super.initChannel(channel);
+                outboundBuffers.configure(channel);
+            }
+        });
         server.start();
         return server;
     }
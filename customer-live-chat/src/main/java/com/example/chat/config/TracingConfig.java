@@ -0,0 +1,50 @@
+package com.example.chat.config;
+
+import brave.handler.SpanHandler;
+import com.example.chat.analytics.OperationsSnapshotPublisher;
+import com.example.chat.cluster.ClusterMembership;
+import com.example.chat.observability.ChatTracing;
+import com.example.chat.observability.JsonFileSpanHandler;
+import com.example.chat.observability.LogSpanHandler;
+import com.example.chat.observability.RepositoryTracingPostProcessor;
+import com.example.chat.service.PresenceService;
+import io.micrometer.observation.ObservationPredicate;
+import java.nio.file.Path;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.support.ScheduledTaskObservationContext;
+
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public static RepositoryTracingPostProcessor repositoryTracingPostProcessor(ObjectProvider<ChatTracing> tracing) {
+        return new RepositoryTracingPostProcessor(tracing);
+    }
+
+    /**
+     * The presence flush, the cluster heartbeat and the analytics push run every second; their spans
+     * would drown out the chat traces.
+     */
+    @Bean
+    public ObservationPredicate skipPresenceFlushObservations() {
+        return (name, context) -> !(context instanceof ScheduledTaskObservationContext task
+                && (PresenceService.class.isAssignableFrom(task.getTargetClass())
+                        || ClusterMembership.class.isAssignableFrom(task.getTargetClass())
+                        || OperationsSnapshotPublisher.class.isAssignableFrom(task.getTargetClass())));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "chat.tracing", name = "exporter", havingValue = "log", matchIfMissing = true)
+    public SpanHandler logSpanHandler() {
+        return new LogSpanHandler();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "chat.tracing", name = "exporter", havingValue = "file")
+    public SpanHandler jsonFileSpanHandler(ChatProperties chatProperties) {
+        return new JsonFileSpanHandler(Path.of(chatProperties.getTracing().getFile()));
+    }
+}
@@ -10,11 +10,16 @@ import com.example.chat.dto.AgentActionRequest;
 import com.example.chat.service.AgentQueueService;
 import com.example.chat.service.ConversationService;
 import com.example.chat.service.ParticipantIdentityService;
+import com.example.chat.service.PresenceService;
+import com.example.chat.service.exception.ServiceException;
 import jakarta.validation.Valid;
+import java.time.Instant;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -30,19 +35,24 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/agent")
 public class AgentController {
 
+    private static final int MAX_PRESENCE_IDS = 500;
+
     private final AgentQueueService agentQueueService;
     private final ConversationService conversationService;
     private final ParticipantIdentityService participantIdentityService;
+    private final PresenceService presenceService;
     private final ChatProperties chatProperties;
 
     public AgentController(
             AgentQueueService agentQueueService,
             ConversationService conversationService,
             ParticipantIdentityService participantIdentityService,
+            PresenceService presenceService,
             ChatProperties chatProperties) {
         this.agentQueueService = agentQueueService;
         this.conversationService = conversationService;
         this.participantIdentityService = participantIdentityService;
+        this.presenceService = presenceService;
         this.chatProperties = chatProperties;
     }
 
@@ -53,6 +63,25 @@ public class AgentController {
         return ResponseEntity.ok(agentQueueService.listQueue(page, size));
     }
 
+    /**
+     * Last-seen times of the given participants that are online, or, without {@code ids}, everyone
+     * seen since {@code since}.
+     */
+    @GetMapping("/presence")
+    public ResponseEntity<Map<String, Instant>> presence(
+            @RequestParam(name = "ids", required = false) List<String> participantIds,
+            @RequestParam(name = "since", required = false) Instant since,
+            @RequestParam(name = "limit", defaultValue = "200") int limit) {
+        if (participantIds != null && !participantIds.isEmpty()) {
+            if (participantIds.size() > MAX_PRESENCE_IDS) {
+                throw new ServiceException(
+                        HttpStatus.BAD_REQUEST, "At most %d ids per presence lookup".formatted(MAX_PRESENCE_IDS));
+            }
+            return ResponseEntity.ok(presenceService.lastSeen(participantIds));
+        }
+        return ResponseEntity.ok(presenceService.onlineSince(since, Math.max(1, Math.min(limit, 1000))));
+    }
+
     @GetMapping("/conversations")
     public ResponseEntity<List<ConversationMetadata>> listAgentConversations(
             @RequestHeader("X-Agent-Id") String agentId,
@@ -75,7 +104,8 @@ public class AgentController {
     public ResponseEntity<List<com.example.chat.domain.ChatMessage>> listConversationMessages(
             @PathVariable String conversationId,
             @RequestHeader("X-Agent-Id") String agentId,
-            @RequestParam(name = "limit", defaultValue = "100") int limit) {
+            @RequestParam(name = "limit", defaultValue = "100") int limit,
+            @RequestParam(name = "after", required = false) Long afterSequence) {
         ConversationMetadata conversation = conversationService
                 .getConversation(conversationId)
                 .orElseThrow(() -> new IllegalArgumentException("Conversation not found"));
@@ -85,6 +115,9 @@ public class AgentController {
         }
 
         int resolvedLimit = Math.max(1, Math.min(limit, 500));
+        if (afterSequence != null) {
+            return ResponseEntity.ok(conversationService.getMessagesAfter(conversationId, afterSequence, resolvedLimit));
+        }
         return ResponseEntity.ok(conversationService.getRecentMessages(conversationId, resolvedLimit));
     }
 
@@ -0,0 +1,65 @@
+package com.example.chat.controller;
+
+import com.example.chat.cluster.ConversationMutation;
+import com.example.chat.cluster.ConversationMutationResult;
+import com.example.chat.cluster.ConversationWriteRouter;
+import com.example.chat.domain.ConversationMetadata;
+import com.example.chat.service.ConversationService;
+import com.example.chat.service.exception.ServiceException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Receives conversation mutations forwarded by other nodes to this node as the conversation's
+ * owner. Only exposed with {@code chat.cluster.affinity=true}.
+ */
+@RestController
+@RequestMapping(ConversationWriteRouter.INTERNAL_PATH)
+@ConditionalOnProperty(prefix = "chat.cluster", name = "affinity", havingValue = "true")
+public class ClusterMutationController {
+
+    private final ConversationService conversationService;
+    private final ConversationWriteRouter writeRouter;
+
+    public ClusterMutationController(ConversationService conversationService, ConversationWriteRouter writeRouter) {
+        this.conversationService = conversationService;
+        this.writeRouter = writeRouter;
+    }
+
+    @PostMapping("/conversations/{conversationId}/mutations")
+    public ResponseEntity<ConversationMutationResult> apply(
+            @PathVariable String conversationId,
+            @RequestBody ConversationMutation mutation,
+            @RequestHeader(name = ConversationWriteRouter.SECRET_HEADER, required = false) String secret) {
+        requireSecret(secret);
+        if (mutation.operation() == null || !conversationId.equals(mutation.conversationId())) {
+            throw new ServiceException(HttpStatus.BAD_REQUEST, "Mutation does not match the conversation");
+        }
+        return ResponseEntity.ok(writeRouter.receive(() -> switch (mutation.operation()) {
+            case ACCEPT -> conversationService.acceptConversation(mutation.participant(), conversationId);
+            case QUEUE -> {
+                ConversationMetadata conversation = conversationService
+                        .getConversation(conversationId)
+                        .orElseThrow(() -> new ServiceException(HttpStatus.NOT_FOUND, "Conversation not found"));
+                conversationService.queueForAgent(conversation, mutation.channel());
+                yield null;
+            }
+            case SEND_MESSAGE -> conversationService.sendMessage(
+                    conversationId, mutation.participant(), mutation.content(), mutation.messageType());
+            case CLOSE -> conversationService.closeConversation(conversationId, mutation.participant());
+        }));
+    }
+
+    private void requireSecret(String secret) {
+        if (!writeRouter.isClusterMember(secret)) {
+            throw new ServiceException(HttpStatus.FORBIDDEN, "Not a cluster member");
+        }
+    }
+}
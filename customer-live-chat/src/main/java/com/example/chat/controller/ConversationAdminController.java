@@ -0,0 +1,31 @@
+package com.example.chat.controller;
+
+import com.example.chat.domain.ConversationMetadata;
+import com.example.chat.service.ConversationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/conversations")
+public class ConversationAdminController {
+
+    private final ConversationService conversationService;
+
+    public ConversationAdminController(ConversationService conversationService) {
+        this.conversationService = conversationService;
+    }
+
+    @GetMapping("/{conversationId}/replay")
+    public ResponseEntity<ConversationMetadata> replay(@PathVariable String conversationId) {
+        return ResponseEntity.of(conversationService.replayConversation(conversationId));
+    }
+
+    @PostMapping("/{conversationId}/rebuild")
+    public ResponseEntity<ConversationMetadata> rebuild(@PathVariable String conversationId) {
+        return ResponseEntity.ok(conversationService.rebuildConversation(conversationId));
+    }
+}
@@ -25,6 +25,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -85,8 +86,16 @@ public class ConversationController {
                 .build());
     }
 
+    /**
+     * The latest 100 messages, or with {@code after} the next 100 after that sequence number.
+     */
     @GetMapping("/{conversationId}/messages")
-    public ResponseEntity<List<ChatMessage>> getMessages(@PathVariable String conversationId) {
+    public ResponseEntity<List<ChatMessage>> getMessages(
+            @PathVariable String conversationId,
+            @RequestParam(name = "after", required = false) Long afterSequence) {
+        if (afterSequence != null) {
+            return ResponseEntity.ok(conversationService.getMessagesAfter(conversationId, afterSequence, 100));
+        }
         return ResponseEntity.ok(conversationService.getRecentMessages(conversationId, 100));
     }
 
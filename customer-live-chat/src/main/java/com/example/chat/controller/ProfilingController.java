@@ -0,0 +1,66 @@
+package com.example.chat.controller;
+
+import com.example.chat.dto.FlightRecordingStatus;
+import com.example.chat.observability.FlightRecordingService;
+import com.example.chat.service.exception.ServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/admin/profiling")
+@ConditionalOnProperty(prefix = "chat.profiling", name = "enabled", havingValue = "true")
+public class ProfilingController {
+
+    private final FlightRecordingService flightRecordingService;
+
+    public ProfilingController(FlightRecordingService flightRecordingService) {
+        this.flightRecordingService = flightRecordingService;
+    }
+
+    @PostMapping("/recording")
+    public ResponseEntity<FlightRecordingStatus> startRecording(
+            @RequestParam(name = "duration", required = false) Duration duration,
+            @RequestParam(name = "settings", required = false) String settings) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(flightRecordingService.start(duration, settings));
+    }
+
+    @GetMapping("/recording")
+    public ResponseEntity<FlightRecordingStatus> currentRecording() {
+        return ResponseEntity.of(flightRecordingService.current());
+    }
+
+    @PostMapping("/recording/stop")
+    public ResponseEntity<StreamingResponseBody> stopRecording() {
+        Path file = flightRecordingService.stop();
+        if (!Files.isRegularFile(file)) {
+            throw new ServiceException(HttpStatus.GONE, "Recording file is no longer available", "recording_missing");
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(file.getFileName().toString())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
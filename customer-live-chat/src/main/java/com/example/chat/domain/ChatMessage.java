@@ -21,5 +21,11 @@ public class ChatMessage implements Serializable {
     private String content;
     private Map<String, Object> metadata;
     private Instant timestamp;
+
+    /**
+     * Position in the conversation, starting at 0. Derived from the message list when read, so
+     * clients can resume after the last message they saw.
+     */
+    private Long sequence;
 }
 
@@ -0,0 +1,17 @@
+package com.example.chat.dto;
+
+import com.example.chat.domain.ChatParticipant;
+import com.example.chat.domain.ConversationMetadata;
+import java.util.List;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Handshake reply of a multiplexed agent socket: the agent and the conversations it rejoined.
+ */
+@Value
+@Builder
+public class AgentSessionResponse {
+    ChatParticipant participant;
+    List<ConversationMetadata> conversations;
+}
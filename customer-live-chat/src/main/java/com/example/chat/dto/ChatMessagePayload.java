@@ -13,5 +13,10 @@ public class ChatMessagePayload {
     private String content;
 
     private String type = "TEXT";
+
+    /**
+     * Optional W3C trace context of the client, so the server-side spans join the client's trace.
+     */
+    private String traceparent;
 }
 
@@ -0,0 +1,12 @@
+package com.example.chat.dto;
+
+import lombok.Data;
+
+/**
+ * Payload of {@code conversation:join} and {@code conversation:leave} on a multiplexed agent socket.
+ */
+@Data
+public class ConversationRoomRequest {
+
+    private String conversationId;
+}
@@ -0,0 +1,18 @@
+package com.example.chat.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class FlightRecordingStatus {
+    String name;
+    String state;
+    String settings;
+    Instant startedAt;
+    Duration duration;
+    long maxSizeBytes;
+    long sizeBytes;
+}
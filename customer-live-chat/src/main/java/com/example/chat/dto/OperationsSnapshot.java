@@ -0,0 +1,79 @@
+package com.example.chat.dto;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Operations aggregates pushed to supervisor sockets on {@code analytics:snapshot}. Durations are in
+ * milliseconds and cover the whole window; {@code minutes} holds one entry per minute, oldest first.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationsSnapshot implements Serializable {
+
+    private Instant generatedAt;
+    private Duration window;
+    /**
+     * Time of the newest event applied; how far this trails {@code generatedAt} is the stream lag.
+     */
+    private Instant lastEventAt;
+    private int queueDepth;
+    private int openConversations;
+    private double messagesPerMinute;
+    private Latency timeToFirstResponse;
+    private Latency handleTime;
+    /**
+     * Active conversations over the capacity of all agents holding at least one.
+     */
+    private double agentUtilization;
+    private List<Minute> minutes;
+    private List<AgentLoad> agents;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Minute implements Serializable {
+
+        private Instant start;
+        private int queueDepth;
+        private int queueDepthMax;
+        private long conversationsStarted;
+        private long conversationsClosed;
+        private long customerMessages;
+        private long agentMessages;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Latency implements Serializable {
+
+        private long count;
+        private long meanMs;
+        private long p50Ms;
+        private long p90Ms;
+        private long maxMs;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AgentLoad implements Serializable {
+
+        private String agentId;
+        private int activeConversations;
+        private int capacity;
+        private double utilization;
+    }
+}
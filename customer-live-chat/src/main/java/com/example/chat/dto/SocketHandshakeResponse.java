@@ -1,7 +1,9 @@
 package com.example.chat.dto;
 
+import com.example.chat.domain.ChatMessage;
 import com.example.chat.domain.ChatParticipant;
 import com.example.chat.domain.ConversationMetadata;
+import java.util.List;
 import lombok.Builder;
 import lombok.Value;
 
@@ -9,6 +11,15 @@ import lombok.Value;
 @Builder
 public class SocketHandshakeResponse {
     ChatParticipant participant;
+    /** Left out when the connection was resumed; the client already has it. */
     ConversationMetadata conversation;
+    String conversationId;
+    boolean resumed;
+    /** Present on the next reconnect together with the sequence of the last message seen. */
+    String resumeToken;
+    /** Messages after the {@code lastSequence} the client reconnected with, oldest first. */
+    List<ChatMessage> missedMessages;
+    /** More messages were missed than {@code chat.resume.max-replay}; fetch the rest over REST. */
+    boolean missedMessagesTruncated;
 }
 
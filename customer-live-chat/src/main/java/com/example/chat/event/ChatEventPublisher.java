@@ -1,27 +1,88 @@
 package com.example.chat.event;
 
+import com.example.chat.observability.ChatMetrics;
+import io.micrometer.core.instrument.Timer;
 import java.util.List;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class ChatEventPublisher {
 
+    private static final ThreadLocal<PublishedEvents> RECORDING = new ThreadLocal<>();
+
     private final List<ChatEventListener> listeners;
     private final KafkaTemplate<String, ChatEvent> chatEventKafkaTemplate;
     private final KafkaTemplate<String, ChatMessageEvent> chatMessageKafkaTemplate;
     private final com.example.chat.config.ChatProperties chatProperties;
 
+    private final ChatMetrics metrics;
+
     public void publishLifecycleEvent(ChatEvent event) {
         listeners.forEach(listener -> listener.onLifecycleEvent(event));
-        chatEventKafkaTemplate.send(chatProperties.getKafka().getLifecycleTopic(), event.getConversationId(), event);
+        PublishedEvents recording = RECORDING.get();
+        if (recording != null) {
+            recording.lifecycleEvents().add(event);
+        }
+        send(chatEventKafkaTemplate, chatProperties.getKafka().getLifecycleTopic(), event.getConversationId(), event);
     }
 
     public void publishMessageEvent(ChatMessageEvent event) {
         listeners.forEach(listener -> listener.onMessageEvent(event));
-        chatMessageKafkaTemplate.send(chatProperties.getKafka().getMessageTopic(), event.getConversationId(), event);
+        PublishedEvents recording = RECORDING.get();
+        if (recording != null) {
+            recording.messageEvents().add(event);
+        }
+        send(chatMessageKafkaTemplate, chatProperties.getKafka().getMessageTopic(), event.getConversationId(), event);
+    }
+
+    /**
+     * Delivers events another node published to this node's listeners only; the publishing node
+     * already sent them to Kafka. Messages go first, as every mutation publishes its message before
+     * the lifecycle event about it.
+     */
+    public void relay(PublishedEvents events) {
+        events.messageEvents().forEach(event -> listeners.forEach(listener -> listener.onMessageEvent(event)));
+        events.lifecycleEvents().forEach(event -> listeners.forEach(listener -> listener.onLifecycleEvent(event)));
+    }
+
+    /**
+     * {@code action} with every event it publishes on its thread also added to {@code into}.
+     */
+    public static <T> Supplier<T> recording(PublishedEvents into, Supplier<T> action) {
+        return () -> {
+            PublishedEvents outer = RECORDING.get();
+            RECORDING.set(into);
+            try {
+                return action.get();
+            } finally {
+                if (outer != null) {
+                    RECORDING.set(outer);
+                } else {
+                    RECORDING.remove();
+                }
+            }
+        };
+    }
+
+    private <T> void send(KafkaTemplate<String, T> template, String topic, String key, T event) {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            template.send(topic, key, event).whenComplete((result, failure) -> {
+                metrics.recordKafkaSend(sample, topic, failure);
+                if (failure != null) {
+                    log.warn("Failed to publish event for conversation {} to {}", key, topic, failure);
+                }
+            });
+        } catch (RuntimeException ex) {
+            metrics.recordKafkaSend(sample, topic, ex);
+            throw ex;
+        }
     }
 }
 
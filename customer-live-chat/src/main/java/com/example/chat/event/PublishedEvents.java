@@ -0,0 +1,15 @@
+package com.example.chat.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Events published while a forwarded mutation ran on the conversation's owner, handed back so the
+ * forwarding node can deliver them to the sockets connected to it.
+ */
+public record PublishedEvents(List<ChatMessageEvent> messageEvents, List<ChatEvent> lifecycleEvents) {
+
+    public static PublishedEvents recorder() {
+        return new PublishedEvents(new ArrayList<>(), new ArrayList<>());
+    }
+}
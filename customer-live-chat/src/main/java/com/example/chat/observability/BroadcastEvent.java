@@ -0,0 +1,26 @@
+package com.example.chat.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Socket.IO room broadcast that took longer than the threshold.
+ */
+@Name("com.example.chat.Broadcast")
+@Label("Slow Socket Broadcast")
+@Category({"Chat", "Socket.IO"})
+@Description("Room fan-out slower than the configured threshold")
+@Threshold("20 ms")
+@StackTrace(false)
+public final class BroadcastEvent extends jdk.jfr.Event {
+
+    @Label("Event")
+    String event;
+
+    @Label("Room")
+    String room;
+}
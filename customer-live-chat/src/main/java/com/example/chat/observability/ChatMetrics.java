@@ -0,0 +1,216 @@
+package com.example.chat.observability;
+
+import com.example.chat.config.ChatProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.redisson.api.RLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters for the chat hot paths. Timer names are prefixed with {@code chat.} so a single
+ * {@code management.metrics.distribution.percentiles-histogram.chat} switch turns on histograms for
+ * all of them. Lock waits, version conflicts, broadcasts and housekeeping cycles are also emitted as
+ * JFR events so they show up in flight recordings next to GC and thread activity.
+ */
+@Component
+public class ChatMetrics {
+
+    static final String OUTCOME_SUCCESS = "success";
+    static final String OUTCOME_ERROR = "error";
+
+    private final MeterRegistry registry;
+    private final boolean countRedisRoundTrips;
+    private final AtomicLong activeConversations = new AtomicLong();
+    private final AtomicLong housekeepingBacklog = new AtomicLong();
+
+    public ChatMetrics(MeterRegistry registry, ChatProperties chatProperties) {
+        this.registry = registry;
+        this.countRedisRoundTrips = chatProperties.getMetrics().isRedisRoundTrips();
+        Gauge.builder("chat.conversations.active", activeConversations, AtomicLong::get)
+                .description("Conversations not closed yet, as of the last housekeeping cycle")
+                .register(registry);
+        Gauge.builder("chat.housekeeping.backlog", housekeepingBacklog, AtomicLong::get)
+                .description("Stale queue entries and conversations found by the last housekeeping cycle")
+                .register(registry);
+    }
+
+    /**
+     * Times a conversation operation and, with {@code chat.metrics.redis-round-trips} on, records how
+     * many Redis calls it made on this thread.
+     */
+    public <T> T recordOperation(String operation, Supplier<T> action) {
+        long startRoundTrips = RedisRoundTrips.current();
+        long start = System.nanoTime();
+        String outcome = OUTCOME_ERROR;
+        try {
+            T result = action.get();
+            outcome = OUTCOME_SUCCESS;
+            return result;
+        } finally {
+            Timer.builder("chat.conversation.operation")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (countRedisRoundTrips) {
+                DistributionSummary.builder("chat.redis.round.trips")
+                        .description("Redis calls issued per conversation operation")
+                        .tag("operation", operation)
+                        .register(registry)
+                        .record(RedisRoundTrips.current() - startRoundTrips);
+            }
+        }
+    }
+
+    public void recordOperation(String operation, Runnable action) {
+        recordOperation(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Counts a transition that lost a version check and runs the {@code backoff} before it is retried
+     * from a fresh read, recording how long it waited.
+     */
+    public void recordConflict(String operation, String conversationId, int attempt, Runnable backoff) {
+        Counter.builder("chat.conversation.conflicts")
+                .description("Conversation transitions retried after a concurrent change")
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+        ConversationConflictEvent event = new ConversationConflictEvent();
+        event.begin();
+        long start = System.nanoTime();
+        backoff.run();
+        long waited = System.nanoTime() - start;
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.conversationId = conversationId;
+            event.attempt = attempt;
+            event.commit();
+        }
+        Timer.builder("chat.conversation.conflict.backoff")
+                .tag("operation", operation)
+                .register(registry)
+                .record(waited, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Acquires {@code lock}, recording the wait, and returns a handle whose {@link LockHandle#unlock()}
+     * records how long the lock was held.
+     */
+    public LockHandle lock(RLock lock, String lockName) {
+        LockWaitEvent event = new LockWaitEvent();
+        event.begin();
+        long start = System.nanoTime();
+        lock.lock();
+        long acquired = System.nanoTime();
+        event.end();
+        if (event.shouldCommit()) {
+            event.lock = lockName;
+            event.key = lock.getName();
+            event.commit();
+        }
+        Timer.builder("chat.lock.wait")
+                .tag("lock", lockName)
+                .register(registry)
+                .record(acquired - start, TimeUnit.NANOSECONDS);
+        return new LockHandle(lock, lockName, acquired);
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(registry);
+    }
+
+    public void recordKafkaSend(Timer.Sample sample, String topic, Throwable failure) {
+        sample.stop(Timer.builder("chat.kafka.send")
+                .tag("topic", topic)
+                .tag("outcome", failure == null ? OUTCOME_SUCCESS : OUTCOME_ERROR)
+                .tag("exception", failure == null ? "none" : failure.getClass().getSimpleName())
+                .register(registry));
+    }
+
+    public void recordHandshake(Timer.Sample sample, String scope, boolean success) {
+        sample.stop(Timer.builder("chat.socket.handshake")
+                .tag("scope", scope)
+                .tag("outcome", success ? OUTCOME_SUCCESS : OUTCOME_ERROR)
+                .register(registry));
+    }
+
+    public void recordFanout(String event, String room, Runnable broadcast) {
+        BroadcastEvent broadcastEvent = new BroadcastEvent();
+        broadcastEvent.begin();
+        long start = System.nanoTime();
+        try {
+            broadcast.run();
+        } finally {
+            broadcastEvent.end();
+            if (broadcastEvent.shouldCommit()) {
+                broadcastEvent.event = event;
+                broadcastEvent.room = room;
+                broadcastEvent.commit();
+            }
+            Timer.builder("chat.socket.fanout")
+                    .tag("event", event)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public HousekeepingCycle startHousekeeping() {
+        return new HousekeepingCycle();
+    }
+
+    public void updateActiveConversations(long count) {
+        activeConversations.set(count);
+    }
+
+    public final class LockHandle {
+
+        private final RLock lock;
+        private final String lockName;
+        private final long acquiredAt;
+
+        private LockHandle(RLock lock, String lockName, long acquiredAt) {
+            this.lock = lock;
+            this.lockName = lockName;
+            this.acquiredAt = acquiredAt;
+        }
+
+        public void unlock() {
+            try {
+                lock.unlock();
+            } finally {
+                Timer.builder("chat.lock.hold")
+                        .tag("lock", lockName)
+                        .register(registry)
+                        .record(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    public final class HousekeepingCycle {
+
+        private final Timer.Sample sample = Timer.start(registry);
+        private final HousekeepingCycleEvent event = new HousekeepingCycleEvent();
+
+        private HousekeepingCycle() {
+            event.begin();
+        }
+
+        public void finish(long backlog) {
+            housekeepingBacklog.set(backlog);
+            sample.stop(Timer.builder("chat.housekeeping.cycle").register(registry));
+            event.backlog = backlog;
+            event.commit();
+        }
+    }
+}
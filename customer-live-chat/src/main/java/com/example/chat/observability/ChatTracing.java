@@ -0,0 +1,94 @@
+package com.example.chat.observability;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spans around the chat stages that are not instrumented by Spring itself (socket events, locks,
+ * repository calls, fan-out), plus W3C {@code traceparent} propagation for carriers such as socket
+ * payloads and acks. Falls back to no-op tracing when tracing is disabled.
+ */
+@Component
+public class ChatTracing {
+
+    public static final String TRACEPARENT = "traceparent";
+
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public ChatTracing(ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator) {
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.propagator = propagator.getIfAvailable(() -> Propagator.NOOP);
+    }
+
+    /**
+     * Runs {@code action} in a child span of the current span, or in a new trace if none is active.
+     */
+    public <T> T inSpan(String name, Supplier<T> action) {
+        return inSpan(tracer.nextSpan().name(name), action);
+    }
+
+    public void inSpan(String name, Runnable action) {
+        inSpan(name, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs {@code action} in a span continuing the trace carried in {@code carrier} (for example a
+     * client-supplied {@code traceparent}), or in a new trace if the carrier holds none.
+     */
+    public <T> T inSpan(String name, Map<String, String> carrier, Supplier<T> action) {
+        if (carrier == null || carrier.isEmpty()) {
+            return inSpan(name, action);
+        }
+        Span.Builder builder = propagator.extract(carrier, Map::get).name(name);
+        return inSpan(builder.start(), action);
+    }
+
+    /**
+     * {@code action} bound to the current span, for running it on another thread.
+     */
+    public <T> Supplier<T> withCurrentSpan(Supplier<T> action) {
+        Span span = tracer.currentSpan();
+        if (span == null) {
+            return action;
+        }
+        return () -> {
+            try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+                return action.get();
+            }
+        };
+    }
+
+    /**
+     * The current trace context as propagation headers, for returning it to socket clients.
+     */
+    public Map<String, String> currentContext() {
+        Span span = tracer.currentSpan();
+        Map<String, String> carrier = new HashMap<>();
+        if (span != null) {
+            propagator.inject(span.context(), carrier, Map::put);
+        }
+        return carrier;
+    }
+
+    private <T> T inSpan(Span span, Supplier<T> action) {
+        span.start();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            return action.get();
+        } catch (RuntimeException | Error ex) {
+            span.error(ex);
+            throw ex;
+        } finally {
+            span.end();
+        }
+    }
+}
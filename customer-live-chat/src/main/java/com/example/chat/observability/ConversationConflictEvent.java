@@ -0,0 +1,29 @@
+package com.example.chat.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A conversation transition that lost its version check. The event duration is the backoff before
+ * the retry; every conflict is recorded.
+ */
+@Name("com.example.chat.ConversationConflict")
+@Label("Conversation Conflict")
+@Category({"Chat", "Persistence"})
+@Description("Transition retried after a concurrent change of the conversation")
+@StackTrace(false)
+public final class ConversationConflictEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Conversation")
+    String conversationId;
+
+    @Label("Attempt")
+    @Description("Attempt that lost the version check")
+    int attempt;
+}
@@ -0,0 +1,166 @@
+package com.example.chat.observability;
+
+import com.example.chat.config.ChatProperties;
+import com.example.chat.dto.FlightRecordingStatus;
+import com.example.chat.service.exception.ServiceException;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Runs at most one JFR recording per node. A recording is bounded by {@code chat.profiling.max-duration}
+ * and {@code max-size}; when the duration elapses JFR stops it and writes the file, which stays
+ * available until {@link #stop()} hands it over.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "chat.profiling", name = "enabled", havingValue = "true")
+public class FlightRecordingService {
+
+    private final ChatProperties.Profiling properties;
+
+    private Recording recording;
+    private Path destination;
+    private String settingsName;
+
+    public FlightRecordingService(ChatProperties chatProperties) {
+        this.properties = chatProperties.getProfiling();
+    }
+
+    public synchronized FlightRecordingStatus start(Duration requestedDuration, String requestedSettings) {
+        if (recording != null) {
+            throw new ServiceException(
+                    HttpStatus.CONFLICT, "A recording is already in progress", "recording_in_progress");
+        }
+        Duration duration = boundedDuration(requestedDuration);
+        String settings = StringUtils.hasText(requestedSettings) ? requestedSettings : properties.getSettings();
+
+        Recording started;
+        Path file;
+        try {
+            started = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException ex) {
+            throw new ServiceException(
+                    HttpStatus.BAD_REQUEST, "Unknown JFR settings: " + settings, "invalid_settings", ex);
+        }
+        try {
+            file = Files.createTempFile(directory(), "chat-", ".jfr");
+            started.setName("chat-" + Instant.now().toEpochMilli());
+            started.setToDisk(true);
+            started.setDuration(duration);
+            started.setMaxSize(properties.getMaxSize().toBytes());
+            started.setDestination(file);
+            enableChatEvents(started);
+            started.start();
+        } catch (IOException | RuntimeException ex) {
+            started.close();
+            throw new ServiceException(
+                    HttpStatus.INTERNAL_SERVER_ERROR, "Failed to start recording", "recording_failed", ex);
+        }
+        recording = started;
+        destination = file;
+        settingsName = settings;
+        log.info("Started JFR recording {} ({}, {}) writing to {}", started.getName(), settings, duration, file);
+        return status(started, settings);
+    }
+
+    public synchronized Optional<FlightRecordingStatus> current() {
+        return Optional.ofNullable(recording).map(active -> status(active, settingsName));
+    }
+
+    /**
+     * Stops the recording if it is still running and returns its file. The caller owns the file and
+     * deletes it once streamed.
+     */
+    public synchronized Path stop() {
+        if (recording == null) {
+            throw new ServiceException(HttpStatus.NOT_FOUND, "No recording in progress", "no_recording");
+        }
+        Recording finished = recording;
+        Path file = destination;
+        recording = null;
+        destination = null;
+        settingsName = null;
+        try {
+            if (finished.getState() == RecordingState.RUNNING || finished.getState() == RecordingState.DELAYED) {
+                finished.stop();
+            }
+        } finally {
+            finished.close();
+        }
+        log.info("Stopped JFR recording {} ({} bytes)", finished.getName(), sizeOf(file));
+        return file;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (recording == null) {
+            return;
+        }
+        recording.close();
+        try {
+            Files.deleteIfExists(destination);
+        } catch (IOException ex) {
+            log.warn("Failed to delete recording file {}", destination, ex);
+        }
+        recording = null;
+        destination = null;
+        settingsName = null;
+    }
+
+    private void enableChatEvents(Recording target) {
+        target.enable(LockWaitEvent.class).withThreshold(properties.getLockWaitThreshold());
+        target.enable(SaveConversationEvent.class).withThreshold(properties.getSlowSaveThreshold());
+        target.enable(BroadcastEvent.class).withThreshold(properties.getSlowBroadcastThreshold());
+        target.enable(HousekeepingCycleEvent.class);
+        target.enable(ConversationConflictEvent.class);
+    }
+
+    private Duration boundedDuration(Duration requested) {
+        Duration max = properties.getMaxDuration();
+        if (requested == null || requested.isZero() || requested.isNegative()) {
+            return max;
+        }
+        return requested.compareTo(max) > 0 ? max : requested;
+    }
+
+    private Path directory() throws IOException {
+        if (!StringUtils.hasText(properties.getDirectory())) {
+            return Path.of(System.getProperty("java.io.tmpdir"));
+        }
+        return Files.createDirectories(Path.of(properties.getDirectory()));
+    }
+
+    private FlightRecordingStatus status(Recording source, String settings) {
+        return FlightRecordingStatus.builder()
+                .name(source.getName())
+                .state(source.getState().name())
+                .settings(settings)
+                .startedAt(source.getStartTime())
+                .duration(source.getDuration())
+                .maxSizeBytes(source.getMaxSize())
+                .sizeBytes(source.getSize())
+                .build();
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.chat.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One run of the housekeeping scheduler. Every cycle is recorded.
+ */
+@Name("com.example.chat.HousekeepingCycle")
+@Label("Housekeeping Cycle")
+@Category({"Chat", "Housekeeping"})
+@Description("Queue and conversation TTL enforcement cycle")
+@StackTrace(false)
+public final class HousekeepingCycleEvent extends jdk.jfr.Event {
+
+    @Label("Backlog")
+    @Description("Stale queue entries and conversations found in this cycle")
+    long backlog;
+}
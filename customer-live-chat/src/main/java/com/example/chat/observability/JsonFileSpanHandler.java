@@ -0,0 +1,61 @@
+package com.example.chat.observability;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Appends finished spans to a file as Zipkin v2 JSON, one span per line. The file can be loaded
+ * into Zipkin or inspected with {@code jq}.
+ */
+@Slf4j
+public class JsonFileSpanHandler extends SpanHandler implements AutoCloseable {
+
+    private final BufferedWriter writer;
+
+    public JsonFileSpanHandler(Path file) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.writer = Files.newBufferedWriter(
+                    file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open trace file " + file, ex);
+        }
+    }
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (cause != Cause.FINISHED) {
+            return true;
+        }
+        String json = span.toString();
+        synchronized (writer) {
+            try {
+                writer.write(json);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException ex) {
+                log.debug("Failed to write span {}", span.id(), ex);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writer) {
+            writer.close();
+        }
+    }
+}
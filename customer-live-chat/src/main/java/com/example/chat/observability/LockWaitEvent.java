@@ -0,0 +1,29 @@
+package com.example.chat.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Time spent waiting for a Redisson lock. The event duration is the wait; waits shorter than the
+ * threshold are dropped by the recording.
+ */
+@Name("com.example.chat.LockWait")
+@Label("Chat Lock Wait")
+@Category({"Chat", "Locks"})
+@Description("Time spent acquiring the queue lock")
+@Threshold("1 ms")
+@StackTrace(true)
+public final class LockWaitEvent extends jdk.jfr.Event {
+
+    @Label("Lock")
+    @Description("Logical lock name, such as queue")
+    String lock;
+
+    @Label("Key")
+    @Description("Redis key of the lock")
+    String key;
+}
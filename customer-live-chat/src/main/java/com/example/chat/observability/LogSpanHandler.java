@@ -0,0 +1,34 @@
+package com.example.chat.observability;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import java.util.LinkedHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes each finished span as one line on the {@code chat.tracing} logger, so traces can be read
+ * without any collector running.
+ */
+public class LogSpanHandler extends SpanHandler {
+
+    private static final Logger log = LoggerFactory.getLogger("chat.tracing");
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (cause == Cause.FINISHED && log.isInfoEnabled()) {
+            long durationMicros = span.finishTimestamp() - span.startTimestamp();
+            log.info(
+                    "trace={} span={} parent={} name=\"{}\" durationMs={} tags={}{}",
+                    span.traceId(),
+                    span.id(),
+                    span.parentId() != null ? span.parentId() : "-",
+                    span.name(),
+                    durationMicros / 1000.0,
+                    new LinkedHashMap<>(span.tags()),
+                    span.error() != null ? " error=" + span.error().getClass().getSimpleName() : "");
+        }
+        return true;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.chat.observability;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.redisson.api.RBatch;
+import org.redisson.api.RKeys;
+import org.redisson.api.RObject;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Wraps the {@link RedissonClient} so every call on a Redis object it hands out is counted in
+ * {@link RedisRoundTrips}. Batches count once per {@code execute}. Code that needs the concrete
+ * {@code Redisson} instance must go through {@link #unwrap(RedissonClient)}.
+ *
+ * <p>Spring Data Redis is covered by wrapping the {@link RedisConnectionFactory}: every command on a
+ * connection it hands out counts once, except inside a pipeline or transaction, which count once on
+ * {@code closePipeline}/{@code exec}.
+ */
+public class RedisRoundTripCountingPostProcessor implements BeanPostProcessor {
+
+    private static final Set<String> LOCAL_METHODS =
+            Set.of("getName", "getCodec", "toString", "hashCode", "equals");
+
+    private static final Set<String> LOCAL_CONNECTION_METHODS = Set.of(
+            "close", "isClosed", "getNativeConnection", "isQueueing", "isPipelined", "openPipeline", "multi",
+            "isSubscribed", "getSubscription", "getSentinelConnection");
+
+    private static final Set<String> BATCH_CONNECTION_METHODS = Set.of("closePipeline", "exec");
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof RedisConnectionFactory) {
+            return proxy(bean, invocation -> wrapConnection(invocation.proceed()));
+        }
+        if (!(bean instanceof RedissonClient)) {
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setInterfaces(RedissonClient.class);
+        factory.addAdvice((MethodInterceptor) invocation -> wrap(invocation.proceed()));
+        return factory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    public static RedissonClient unwrap(RedissonClient client) {
+        Object target = AopProxyUtils.getSingletonTarget(client);
+        return target instanceof RedissonClient redisson ? redisson : client;
+    }
+
+    private static Object wrap(Object result) {
+        if (result instanceof RBatch) {
+            return proxy(result, RedisRoundTripCountingPostProcessor::invokeBatch);
+        }
+        if (result instanceof RObject || result instanceof RKeys || result instanceof RScript) {
+            return proxy(result, RedisRoundTripCountingPostProcessor::invokeCounted);
+        }
+        return result;
+    }
+
+    private static Object wrapConnection(Object result) {
+        if (result instanceof RedisConnection connection) {
+            return proxy(connection, invocation -> invokeConnection(invocation, connection));
+        }
+        return result;
+    }
+
+    private static Object invokeConnection(MethodInvocation invocation, RedisConnection connection) throws Throwable {
+        Method method = invocation.getMethod();
+        String name = method.getName();
+        if (method.getDeclaringClass() == Object.class || LOCAL_CONNECTION_METHODS.contains(name)) {
+            return invocation.proceed();
+        }
+        if (name.endsWith("Commands") && method.getParameterCount() == 0) {
+            // keyCommands(), stringCommands(), ... usually return the connection itself
+            Object commands = invocation.proceed();
+            if (commands == invocation.getThis() && invocation instanceof ProxyMethodInvocation proxied) {
+                return proxied.getProxy();
+            }
+            return commands != null ? proxy(commands, nested -> invokeConnection(nested, connection)) : null;
+        }
+        if (BATCH_CONNECTION_METHODS.contains(name) || !(connection.isPipelined() || connection.isQueueing())) {
+            RedisRoundTrips.increment();
+        }
+        return invocation.proceed();
+    }
+
+    private static Object proxy(Object target, MethodInterceptor interceptor) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setInterfaces(ClassUtils.getAllInterfaces(target));
+        factory.addAdvice(interceptor);
+        return factory.getProxy(target.getClass().getClassLoader());
+    }
+
+    private static Object invokeCounted(MethodInvocation invocation) throws Throwable {
+        if (isRemote(invocation.getMethod())) {
+            RedisRoundTrips.increment();
+        }
+        return invocation.proceed();
+    }
+
+    private static Object invokeBatch(MethodInvocation invocation) throws Throwable {
+        if (invocation.getMethod().getName().startsWith("execute")) {
+            RedisRoundTrips.increment();
+        }
+        return invocation.proceed();
+    }
+
+    private static boolean isRemote(Method method) {
+        return method.getDeclaringClass() != Object.class && !LOCAL_METHODS.contains(method.getName());
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.chat.observability;
+
+/**
+ * Per-thread count of Redis calls issued through the application's {@code RedissonClient}. Callers
+ * take a reading before and after a unit of work and subtract.
+ */
+public final class RedisRoundTrips {
+
+    private static final ThreadLocal<long[]> COUNTER = ThreadLocal.withInitial(() -> new long[1]);
+
+    private RedisRoundTrips() {}
+
+    public static long current() {
+        return COUNTER.get()[0];
+    }
+
+    static void increment() {
+        COUNTER.get()[0]++;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.chat.observability;
+
+import com.example.chat.service.ConversationRepository;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Opens a {@code chat.repository.<method>} span around every {@link ConversationRepository} call.
+ * The advice is placed before any transaction advice, so the span covers commit time as well.
+ */
+public class RepositoryTracingPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    public RepositoryTracingPostProcessor(ObjectProvider<ChatTracing> tracing) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return ReflectionUtils.findMethod(
+                        ConversationRepository.class, method.getName(), method.getParameterTypes()) != null;
+            }
+        };
+        pointcut.setClassFilter(ConversationRepository.class::isAssignableFrom);
+        MethodInterceptor interceptor = invocation -> tracing.getObject().inSpan(
+                "chat.repository." + invocation.getMethod().getName(), () -> {
+                    try {
+                        return invocation.proceed();
+                    } catch (RuntimeException | Error ex) {
+                        throw ex;
+                    } catch (Throwable ex) {
+                        throw new UndeclaredThrowableException(ex);
+                    }
+                });
+        this.advisor = new DefaultPointcutAdvisor(pointcut, interceptor);
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+}
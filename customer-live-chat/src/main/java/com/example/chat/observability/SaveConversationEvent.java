@@ -0,0 +1,39 @@
+package com.example.chat.observability;
+
+import com.example.chat.domain.ConversationMetadata;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A full conversation write ({@code saveConversation}) that took longer than the threshold.
+ */
+@Name("com.example.chat.SaveConversation")
+@Label("Slow Conversation Save")
+@Category({"Chat", "Persistence"})
+@Description("Full conversation write slower than the configured threshold")
+@Threshold("20 ms")
+@StackTrace(true)
+public final class SaveConversationEvent extends jdk.jfr.Event {
+
+    @Label("Conversation")
+    String conversationId;
+
+    @Label("Status")
+    String status;
+
+    /**
+     * Ends the event and commits it when the write was slow enough to be recorded.
+     */
+    public void finish(ConversationMetadata conversation) {
+        end();
+        if (shouldCommit()) {
+            conversationId = conversation.getId();
+            status = String.valueOf(conversation.getStatus());
+            commit();
+        }
+    }
+}
@@ -12,6 +12,8 @@ import jakarta.persistence.Version;
 import java.time.Instant;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @Getter
 @Setter
@@ -37,7 +39,8 @@ public class ConversationEntity {
     @Column(name = "customer_type", length = 32)
     private ParticipantType customerType;
 
-    @Column(name = "customer_metadata", columnDefinition = "text")
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "customer_metadata", columnDefinition = "jsonb")
     private String customerMetadata;
 
     @Column(name = "agent_id", length = 128)
@@ -50,7 +53,8 @@ public class ConversationEntity {
     @Column(name = "agent_type", length = 32)
     private ParticipantType agentType;
 
-    @Column(name = "agent_metadata", columnDefinition = "text")
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "agent_metadata", columnDefinition = "jsonb")
     private String agentMetadata;
 
     @Column(name = "created_at", nullable = false)
@@ -65,10 +69,12 @@ public class ConversationEntity {
     @Column(name = "closed_at")
     private Instant closedAt;
 
-    @Column(name = "tags", columnDefinition = "text")
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "tags", columnDefinition = "jsonb")
     private String tags;
 
-    @Column(name = "attributes", columnDefinition = "text")
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "attributes", columnDefinition = "jsonb")
     private String attributes;
 
     @Version
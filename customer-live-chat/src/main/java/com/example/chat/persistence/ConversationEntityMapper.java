@@ -5,7 +5,6 @@ import com.example.chat.domain.ConversationMetadata;
 import com.example.chat.domain.ConversationStatus;
 import com.example.chat.domain.ParticipantType;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.Instant;
 import java.util.Collections;
@@ -13,16 +12,12 @@ import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
-import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
 @Component
 @RequiredArgsConstructor
 public class ConversationEntityMapper {
 
-    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
-    private static final TypeReference<List<String>> LIST_TYPE = new TypeReference<>() {};
-
     private final ObjectMapper objectMapper;
 
     public ConversationEntity toEntity(ConversationMetadata metadata) {
@@ -59,6 +54,10 @@ public class ConversationEntityMapper {
         return entity;
     }
 
+    public String writeParticipantMetadata(ChatParticipant participant) {
+        return participant != null ? writeJson(participant.getMetadata()) : null;
+    }
+
     public ConversationMetadata toMetadata(ConversationEntity entity) {
         if (entity == null) {
             return null;
@@ -112,6 +111,9 @@ public class ConversationEntityMapper {
         if (value == null) {
             return null;
         }
+        if (value instanceof LazyJsonValue lazy && lazy.undecodedJson() != null) {
+            return lazy.undecodedJson();
+        }
         if (value instanceof Map<?, ?> map && map.isEmpty()) {
             return null;
         }
@@ -129,23 +131,14 @@ public class ConversationEntityMapper {
         if (!StringUtils.hasText(json)) {
             return Collections.emptyMap();
         }
-        try {
-            return objectMapper.readValue(json, MAP_TYPE);
-        } catch (JsonProcessingException e) {
-            return Collections.emptyMap();
-        }
+        return new LazyJsonMap(json, objectMapper);
     }
 
     private List<String> readList(String json) {
         if (!StringUtils.hasText(json)) {
             return Collections.emptyList();
         }
-        try {
-            List<String> result = objectMapper.readValue(json, LIST_TYPE);
-            return CollectionUtils.isEmpty(result) ? Collections.emptyList() : result;
-        } catch (JsonProcessingException e) {
-            return Collections.emptyList();
-        }
+        return new LazyJsonList(json, objectMapper);
     }
 }
 
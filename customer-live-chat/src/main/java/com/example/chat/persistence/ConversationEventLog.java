@@ -0,0 +1,240 @@
+package com.example.chat.persistence;
+
+import com.example.chat.domain.ChatMessage;
+import com.example.chat.domain.ChatParticipant;
+import com.example.chat.domain.ConversationMetadata;
+import com.example.chat.domain.ConversationStatus;
+import com.example.chat.domain.ParticipantType;
+import com.example.chat.domain.QueueEntry;
+import com.example.chat.service.exception.ServiceException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads the append-only {@code chat_conversation_events} log that {@link JpaConversationRepository}
+ * writes with every transition, and encodes the event payloads it writes. A conversation replays
+ * from its newest snapshot plus the events after it; its messages replay from the message and
+ * close events, oldest first.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConversationEventLog {
+
+    /**
+     * Every query is bounded by the conversation's {@link CreatedRange}, so it reads the partitions of
+     * one or two months instead of every retained one.
+     */
+    private static final String CONVERSATION = "conversation_id = ? "
+            + "and conversation_created_at >= ? and conversation_created_at < ? ";
+
+    private static final String REPLAY_SQL = "select version, type, occurred_at, data::text, snapshot::text "
+            + "from chat_conversation_events "
+            + "where " + CONVERSATION + "and version >= coalesce("
+            + "(select max(version) from chat_conversation_events where " + CONVERSATION + "and snapshot is not null), 0) "
+            + "order by version, ordinal";
+
+    private static final String MESSAGES_SQL = "select type, data::text from chat_conversation_events "
+            + "where " + CONVERSATION + "and type in ('MESSAGE', 'CLOSED') "
+            + "order by version, ordinal";
+
+    private static final String LAST_QUEUE_ENTRY_SQL = "select data::text from chat_conversation_events "
+            + "where " + CONVERSATION + "and type = 'QUEUED' "
+            + "order by version desc, ordinal desc limit 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConversationEntityMapper mapper;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The conversation as its log describes it, or empty if it has no events.
+     */
+    public Optional<ConversationMetadata> replay(String conversationId) {
+        List<LoggedEvent> events = jdbcTemplate.query(REPLAY_SQL, (rs, row) -> new LoggedEvent(
+                rs.getLong(1),
+                ConversationEventType.valueOf(rs.getString(2)),
+                rs.getTimestamp(3).toInstant(),
+                rs.getString(4),
+                rs.getString(5)), params(conversationId, 2));
+        ConversationMetadata conversation = null;
+        for (LoggedEvent event : events) {
+            if (event.snapshot() != null) {
+                conversation = fromSnapshot(event.snapshot());
+            } else if (conversation != null) {
+                apply(conversation, event);
+            }
+        }
+        return Optional.ofNullable(conversation);
+    }
+
+    /**
+     * The conversation's messages in the order they were logged, without sequence numbers.
+     */
+    public List<ChatMessage> messages(String conversationId) {
+        List<ChatMessage> messages = new ArrayList<>();
+        jdbcTemplate.query(MESSAGES_SQL, rs -> {
+            String data = rs.getString(2);
+            if (data == null) {
+                return;
+            }
+            ChatMessage message = ConversationEventType.CLOSED.name().equals(rs.getString(1))
+                    ? read(data, Closed.class).notice()
+                    : read(data, ChatMessage.class);
+            if (message != null) {
+                messages.add(message);
+            }
+        }, params(conversationId, 1));
+        return messages;
+    }
+
+    public Optional<QueueEntry> lastQueueEntry(String conversationId) {
+        return jdbcTemplate.query(LAST_QUEUE_ENTRY_SQL, (rs, row) -> rs.getString(1), params(conversationId, 1)).stream()
+                .findFirst()
+                .map(data -> read(data, QueueEntry.class));
+    }
+
+    String queued(QueueEntry entry) {
+        return write(entry);
+    }
+
+    String assigned(ChatParticipant agent, Instant acceptedAt) {
+        return write(new Assigned(agent, acceptedAt));
+    }
+
+    String message(ChatMessage message) {
+        return write(message);
+    }
+
+    String closed(Instant closedAt, ChatMessage notice) {
+        return write(new Closed(closedAt, notice));
+    }
+
+    /**
+     * Bind values for {@code times} occurrences of {@link #CONVERSATION}.
+     */
+    private static Object[] params(String conversationId, int times) {
+        CreatedRange created = CreatedRange.of(conversationId);
+        Object[] params = new Object[times * 3];
+        for (int i = 0; i < times; i++) {
+            params[i * 3] = conversationId;
+            params[i * 3 + 1] = Timestamp.from(created.from());
+            params[i * 3 + 2] = Timestamp.from(created.to());
+        }
+        return params;
+    }
+
+    private void apply(ConversationMetadata conversation, LoggedEvent event) {
+        conversation.setVersion(event.version());
+        conversation.setUpdatedAt(event.occurredAt());
+        switch (event.type()) {
+            case QUEUED -> {
+                conversation.setStatus(ConversationStatus.QUEUED);
+                conversation.setAgent(null);
+            }
+            case ASSIGNED -> {
+                Assigned assigned = read(event.data(), Assigned.class);
+                conversation.setStatus(ConversationStatus.ASSIGNED);
+                conversation.setAgent(assigned.agent());
+                conversation.setAcceptedAt(stored(assigned.acceptedAt()));
+            }
+            case CLOSED -> {
+                conversation.setStatus(ConversationStatus.CLOSED);
+                conversation.setClosedAt(stored(read(event.data(), Closed.class).closedAt()));
+            }
+            case STARTED, SAVED, MESSAGE, TOUCHED -> {
+                // only moves updatedAt; full saves always carry a snapshot
+            }
+        }
+    }
+
+    /**
+     * Maps a snapshot, the {@code to_jsonb} image of a {@code chat_conversations} row, the same way
+     * the row itself is mapped.
+     */
+    private ConversationMetadata fromSnapshot(String snapshot) {
+        JsonNode row = read(snapshot, JsonNode.class);
+        ConversationEntity entity = new ConversationEntity();
+        entity.setId(text(row, "id"));
+        String status = text(row, "status");
+        entity.setStatus(status != null ? ConversationStatus.valueOf(status) : null);
+        entity.setCustomerId(text(row, "customer_id"));
+        entity.setCustomerDisplayName(text(row, "customer_display_name"));
+        entity.setCustomerType(participantType(text(row, "customer_type")));
+        entity.setCustomerMetadata(json(row, "customer_metadata"));
+        entity.setAgentId(text(row, "agent_id"));
+        entity.setAgentDisplayName(text(row, "agent_display_name"));
+        entity.setAgentType(participantType(text(row, "agent_type")));
+        entity.setAgentMetadata(json(row, "agent_metadata"));
+        entity.setCreatedAt(instant(row, "created_at"));
+        entity.setUpdatedAt(instant(row, "updated_at"));
+        entity.setAcceptedAt(instant(row, "accepted_at"));
+        entity.setClosedAt(instant(row, "closed_at"));
+        entity.setTags(json(row, "tags"));
+        entity.setAttributes(json(row, "attributes"));
+        JsonNode version = row.get("version");
+        entity.setVersion(version != null && !version.isNull() ? version.asLong() : null);
+        return mapper.toMetadata(entity);
+    }
+
+    private static String text(JsonNode row, String column) {
+        JsonNode value = row.get(column);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+
+    private static String json(JsonNode row, String column) {
+        JsonNode value = row.get(column);
+        return value != null && !value.isNull() ? value.toString() : null;
+    }
+
+    private static Instant instant(JsonNode row, String column) {
+        String value = text(row, column);
+        return value != null ? OffsetDateTime.parse(value).toInstant() : null;
+    }
+
+    /**
+     * {@code instant} at the microsecond precision the row keeps it in.
+     */
+    private static Instant stored(Instant instant) {
+        return instant != null ? instant.truncatedTo(ChronoUnit.MICROS) : null;
+    }
+
+    private static ParticipantType participantType(String value) {
+        return value != null ? ParticipantType.valueOf(value) : null;
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new ServiceException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to encode conversation event", ex);
+        }
+    }
+
+    private <T> T read(String data, Class<T> type) {
+        try {
+            return objectMapper.readValue(data, type);
+        } catch (JsonProcessingException ex) {
+            throw new ServiceException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to decode conversation event", ex);
+        }
+    }
+
+    private record LoggedEvent(long version, ConversationEventType type, Instant occurredAt, String data, String snapshot) {
+    }
+
+    private record Assigned(ChatParticipant agent, Instant acceptedAt) {
+    }
+
+    private record Closed(Instant closedAt, ChatMessage notice) {
+    }
+}
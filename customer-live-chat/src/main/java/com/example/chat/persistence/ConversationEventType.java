@@ -0,0 +1,17 @@
+package com.example.chat.persistence;
+
+/**
+ * Kinds of entries in the {@code chat_conversation_events} log.
+ */
+enum ConversationEventType {
+    /** First save of the conversation; always carries a snapshot. */
+    STARTED,
+    /** Full save of an existing conversation; always carries a snapshot. */
+    SAVED,
+    QUEUED,
+    ASSIGNED,
+    MESSAGE,
+    /** {@code updatedAt} moved without a message. */
+    TOUCHED,
+    CLOSED
+}
@@ -1,8 +1,12 @@
 package com.example.chat.persistence;
 
 import com.example.chat.domain.ConversationStatus;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -12,8 +16,20 @@ public interface ConversationJpaRepository extends JpaRepository<ConversationEnt
 
     List<ConversationEntity> findByAgentIdAndStatusIn(String agentId, List<ConversationStatus> statuses);
 
-    @Query("select c from ConversationEntity c where c.status <> 'CLOSED'")
-    List<ConversationEntity> findOpenConversations();
+    @Query("select c from ConversationEntity c where c.status <> 'CLOSED' and c.createdAt >= :createdAfter")
+    List<ConversationEntity> findOpenConversations(@Param("createdAfter") Instant createdAfter);
+
+    @Query("select count(c) from ConversationEntity c where c.status <> 'CLOSED' and c.createdAt >= :createdAfter")
+    long countOpenConversations(@Param("createdAfter") Instant createdAfter);
+
+    @Query(
+            "select c from ConversationEntity c "
+                    + "where c.customerId = :customerId "
+                    + "and c.status <> 'CLOSED' "
+                    + "and c.createdAt >= :createdAfter "
+                    + "order by c.createdAt desc")
+    List<ConversationEntity> findOpenForCustomer(
+            @Param("customerId") String customerId, @Param("createdAfter") Instant createdAfter, Limit limit);
 
     @Query(
             "select c from ConversationEntity c "
@@ -21,6 +37,194 @@ public interface ConversationJpaRepository extends JpaRepository<ConversationEnt
                     + "and (:statuses is null or c.status in (:statuses))")
     List<ConversationEntity> findForAgent(
             @Param("agentId") String agentId, @Param("statuses") List<ConversationStatus> statuses);
-}
 
+    @Query(
+            "select c from ConversationEntity c "
+                    + "where c.agentId = :agentId "
+                    + "and c.status in (:statuses) "
+                    + "and c.createdAt >= :createdAfter")
+    List<ConversationEntity> findForAgentCreatedAfter(
+            @Param("agentId") String agentId,
+            @Param("statuses") List<ConversationStatus> statuses,
+            @Param("createdAfter") Instant createdAfter);
+
+    /**
+     * Appends the event of the row changed by a {@code moved} CTE to the conversation's log, so the
+     * projection update and the append are a single statement and both miss on a version conflict.
+     * Every {@code snapshotEvery} versions the event also carries the new row.
+     */
+    String APPEND_EVENT = " insert into chat_conversation_events "
+            + "(conversation_id, version, type, occurred_at, conversation_created_at, data, snapshot) "
+            + "select id, version, :type, coalesce(updated_at, created_at), created_at, cast(:data as jsonb), "
+            + "case when version % :snapshotEvery = 0 then to_jsonb(moved) end "
+            + "from moved";
+
+    /**
+     * Matches the expected version. The {@link CreatedRange} bounds let PostgreSQL prune the monthly
+     * partitions the conversation cannot be in.
+     */
+    String VERSION_CHECK = " where id = :id and version = :version"
+            + " and created_at >= :createdFrom and created_at < :createdTo returning *)";
+
+    /**
+     * Ordinal of the last {@code MESSAGE} event of the conversation row {@code c}, found by walking
+     * the primary key backwards.
+     */
+    String LAST_MESSAGE_ORDINAL = "select e.ordinal from chat_conversation_events e "
+            + "where e.conversation_id = c.id and e.conversation_created_at = c.created_at and e.type = 'MESSAGE' "
+            + "order by e.version desc, e.ordinal desc limit 1";
+
+    @Query(
+            "select c from ConversationEntity c "
+                    + "where c.id = :id and c.createdAt >= :createdFrom and c.createdAt < :createdTo")
+    Optional<ConversationEntity> findByIdCreatedBetween(
+            @Param("id") String id, @Param("createdFrom") Instant createdFrom, @Param("createdTo") Instant createdTo);
+
+    /**
+     * Appends a snapshot of the stored row, for saves that replace the whole conversation.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(
+            value = "insert into chat_conversation_events "
+                    + "(conversation_id, version, type, occurred_at, conversation_created_at, data, snapshot) "
+                    + "select id, coalesce(version, 0), :type, coalesce(updated_at, created_at), created_at, null, to_jsonb(c) "
+                    + "from chat_conversations c "
+                    + "where id = :id and created_at >= :createdFrom and created_at < :createdTo "
+                    + "on conflict do nothing",
+            nativeQuery = true)
+    int appendSnapshot(
+            @Param("id") String id,
+            @Param("createdFrom") Instant createdFrom,
+            @Param("createdTo") Instant createdTo,
+            @Param("type") String type);
+
+    /**
+     * Moves {@code updatedAt} of an open conversation for a new message without changing its version,
+     * so messages never fail a version check and never make a transition fail one. The row lock it
+     * takes orders the message against other messages and transitions until the transaction ends.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            value = "update chat_conversations "
+                    + "set updated_at = greatest(coalesce(updated_at, created_at), :updatedAt) "
+                    + "where id = :id and created_at >= :createdFrom and created_at < :createdTo "
+                    + "and status <> 'CLOSED'",
+            nativeQuery = true)
+    int touchOpen(
+            @Param("id") String id,
+            @Param("updatedAt") Instant updatedAt,
+            @Param("createdFrom") Instant createdFrom,
+            @Param("createdTo") Instant createdTo);
+
+    /**
+     * Logs a message at the conversation's current version and returns its ordinal, which numbers
+     * the conversation's messages from 1 across versions. Runs after {@link #touchOpen} in the same
+     * transaction, so it sees every message committed before the row lock was granted.
+     */
+    @Query(
+            value = "insert into chat_conversation_events "
+                    + "(conversation_id, version, ordinal, type, occurred_at, conversation_created_at, data) "
+                    + "select c.id, coalesce(c.version, 0), "
+                    + "coalesce((" + LAST_MESSAGE_ORDINAL + "), 0) + 1, "
+                    + "'MESSAGE', :occurredAt, c.created_at, cast(:data as jsonb) "
+                    + "from chat_conversations c "
+                    + "where c.id = :id and c.created_at >= :createdFrom and c.created_at < :createdTo "
+                    + "returning ordinal",
+            nativeQuery = true)
+    Integer appendMessageEvent(
+            @Param("id") String id,
+            @Param("occurredAt") Instant occurredAt,
+            @Param("createdFrom") Instant createdFrom,
+            @Param("createdTo") Instant createdTo,
+            @Param("data") String data);
+
+    /**
+     * Ordinal of the conversation's last logged message, or {@code null} if it has none.
+     */
+    @Query(
+            value = "select (" + LAST_MESSAGE_ORDINAL + ") from chat_conversations c "
+                    + "where c.id = :id and c.created_at >= :createdFrom and c.created_at < :createdTo",
+            nativeQuery = true)
+    Integer lastMessageOrdinal(
+            @Param("id") String id, @Param("createdFrom") Instant createdFrom, @Param("createdTo") Instant createdTo);
 
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            value = "with moved as (update chat_conversations "
+                    + "set updated_at = :updatedAt, version = version + 1"
+                    + VERSION_CHECK
+                    + APPEND_EVENT,
+            nativeQuery = true)
+    int touch(
+            @Param("id") String id,
+            @Param("updatedAt") Instant updatedAt,
+            @Param("version") Long version,
+            @Param("createdFrom") Instant createdFrom,
+            @Param("createdTo") Instant createdTo,
+            @Param("type") String type,
+            @Param("data") String data,
+            @Param("snapshotEvery") int snapshotEvery);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            value = "with moved as (update chat_conversations "
+                    + "set status = 'QUEUED', "
+                    + "agent_id = null, agent_display_name = null, agent_type = null, agent_metadata = null, "
+                    + "updated_at = :updatedAt, version = version + 1"
+                    + VERSION_CHECK
+                    + APPEND_EVENT,
+            nativeQuery = true)
+    int markQueued(
+            @Param("id") String id,
+            @Param("updatedAt") Instant updatedAt,
+            @Param("version") Long version,
+            @Param("createdFrom") Instant createdFrom,
+            @Param("createdTo") Instant createdTo,
+            @Param("type") String type,
+            @Param("data") String data,
+            @Param("snapshotEvery") int snapshotEvery);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            value = "with moved as (update chat_conversations "
+                    + "set status = 'ASSIGNED', "
+                    + "agent_id = :agentId, agent_display_name = :agentDisplayName, agent_type = :agentType, "
+                    + "agent_metadata = cast(:agentMetadata as jsonb), accepted_at = :acceptedAt, "
+                    + "updated_at = :updatedAt, version = version + 1"
+                    + VERSION_CHECK
+                    + APPEND_EVENT,
+            nativeQuery = true)
+    int markAssigned(
+            @Param("id") String id,
+            @Param("agentId") String agentId,
+            @Param("agentDisplayName") String agentDisplayName,
+            @Param("agentType") String agentType,
+            @Param("agentMetadata") String agentMetadata,
+            @Param("acceptedAt") Instant acceptedAt,
+            @Param("updatedAt") Instant updatedAt,
+            @Param("version") Long version,
+            @Param("createdFrom") Instant createdFrom,
+            @Param("createdTo") Instant createdTo,
+            @Param("type") String type,
+            @Param("data") String data,
+            @Param("snapshotEvery") int snapshotEvery);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            value = "with moved as (update chat_conversations "
+                    + "set status = 'CLOSED', closed_at = :closedAt, "
+                    + "updated_at = :updatedAt, version = version + 1"
+                    + VERSION_CHECK
+                    + APPEND_EVENT,
+            nativeQuery = true)
+    int markClosed(
+            @Param("id") String id,
+            @Param("closedAt") Instant closedAt,
+            @Param("updatedAt") Instant updatedAt,
+            @Param("version") Long version,
+            @Param("createdFrom") Instant createdFrom,
+            @Param("createdTo") Instant createdTo,
+            @Param("type") String type,
+            @Param("data") String data,
+            @Param("snapshotEvery") int snapshotEvery);
+}
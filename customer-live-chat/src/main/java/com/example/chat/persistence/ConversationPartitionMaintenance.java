@@ -0,0 +1,104 @@
+package com.example.chat.persistence;
+
+import com.example.chat.config.ChatProperties;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the monthly partitions of {@code chat_conversations} and its event log
+ * {@code chat_conversation_events} rolling: upcoming months are created ahead of time and months
+ * older than the retention period are dropped as whole tables, which is far cheaper than row
+ * deletes and leaves no bloat behind.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConversationPartitionMaintenance {
+
+    private static final List<String> PARTITIONED_TABLES = List.of("chat_conversations", "chat_conversation_events");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String LIST_PARTITIONS_SQL = "select child.relname from pg_inherits i "
+            + "join pg_class parent on parent.oid = i.inhparent "
+            + "join pg_class child on child.oid = i.inhrelid "
+            + "join pg_namespace ns on ns.oid = parent.relnamespace "
+            + "where parent.relname in ('chat_conversations', 'chat_conversation_events') "
+            + "and ns.nspname = current_schema()";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatProperties chatProperties;
+
+    @Scheduled(
+            initialDelay = 0,
+            fixedDelayString =
+                    "#{T(java.time.Duration).parse('${chat.retention.maintenance-interval:PT6H}').toMillis()}")
+    public void maintainPartitions() {
+        ChatProperties.Retention retention = chatProperties.getRetention();
+        try {
+            // always: there is no default partition, so inserts fail once the months run out
+            YearMonth current = YearMonth.now(ZoneOffset.UTC);
+            for (int i = 0; i <= Math.max(retention.getPartitionsAhead(), 0); i++) {
+                ensurePartition(current.plusMonths(i));
+            }
+            if (retention.isEnabled()) {
+                dropExpiredPartitions(retention.getConversationRetention());
+            }
+        } catch (Exception ex) {
+            log.warn("Conversation partition maintenance failed", ex);
+        }
+    }
+
+    public void ensurePartition(YearMonth month) {
+        for (String table : PARTITIONED_TABLES) {
+            jdbcTemplate.query(
+                    "select " + table + "_ensure_partition(?)",
+                    (RowCallbackHandler) rs -> {},
+                    month.atDay(1));
+        }
+    }
+
+    public List<String> dropExpiredPartitions(Duration retention) {
+        if (retention == null || retention.isZero() || retention.isNegative()) {
+            return List.of();
+        }
+        Instant cutoff = Instant.now().minus(retention);
+        List<String> dropped = listPartitions().stream()
+                .filter(name -> isExpired(name, cutoff))
+                .toList();
+        for (String partition : dropped) {
+            jdbcTemplate.execute("drop table if exists \"" + partition + "\"");
+            log.info("Dropped conversation partition {} (retention {})", partition, retention);
+        }
+        return dropped;
+    }
+
+    public List<String> listPartitions() {
+        return jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class);
+    }
+
+    private boolean isExpired(String partition, Instant cutoff) {
+        String table = partition.substring(0, Math.max(partition.lastIndexOf('_'), 0));
+        if (!PARTITIONED_TABLES.contains(table)) {
+            return false;
+        }
+        try {
+            YearMonth month = YearMonth.parse(partition.substring(table.length() + 1), PARTITION_SUFFIX);
+            LocalDate upperBound = month.plusMonths(1).atDay(1);
+            return !upperBound.atStartOfDay(ZoneOffset.UTC).toInstant().isAfter(cutoff);
+        } catch (DateTimeParseException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.chat.persistence;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Bounds on a conversation's {@code created_at}, derived from its id, so lookups by id on the monthly
+ * partitioned tables only probe the partitions the conversation can be in. Version 7 UUIDs carry the
+ * millisecond they were generated at, which is when the conversation was started; the range allows
+ * a day either side. Any other id (random UUIDs, custom generators, rows from before time-ordered ids)
+ * gets an open range and the lookup scans every partition as before.
+ */
+record CreatedRange(Instant from, Instant to) {
+
+    private static final Duration SLACK = Duration.ofDays(1);
+    private static final CreatedRange ANY =
+            new CreatedRange(Instant.parse("1970-01-01T00:00:00Z"), Instant.parse("9999-01-01T00:00:00Z"));
+
+    static CreatedRange of(String conversationId) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(conversationId);
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            return ANY;
+        }
+        if (uuid.version() != 7 || uuid.variant() != 2) {
+            return ANY;
+        }
+        Instant generatedAt = Instant.ofEpochMilli(uuid.getMostSignificantBits() >>> 16);
+        return new CreatedRange(generatedAt.minus(SLACK), generatedAt.plus(SLACK));
+    }
+}
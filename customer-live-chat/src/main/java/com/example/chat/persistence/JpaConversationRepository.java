@@ -2,14 +2,21 @@ package com.example.chat.persistence;
 
 import com.example.chat.config.ChatProperties;
 import com.example.chat.domain.ChatMessage;
+import com.example.chat.domain.ChatParticipant;
 import com.example.chat.domain.ConversationMetadata;
 import com.example.chat.domain.ConversationStatus;
+import com.example.chat.domain.QueueEntry;
+import com.example.chat.observability.SaveConversationEvent;
 import com.example.chat.service.ConversationRepository;
 import com.example.chat.service.RedisKeyFactory;
+import com.example.chat.service.exception.ServiceException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -17,12 +24,20 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
 import org.redisson.api.RList;
+import org.redisson.api.RListAsync;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 import org.redisson.codec.TypedJsonJacksonCodec;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
@@ -33,12 +48,47 @@ import org.springframework.util.StringUtils;
 @RequiredArgsConstructor
 public class JpaConversationRepository implements ConversationRepository {
 
+    /**
+     * KEYS: messages. ARGV: replace flag, ttl in millis, encoded messages. Returns the number of
+     * messages written, or -1 if the list exists and the flag is not set.
+     */
+    private static final String RESTORE_MESSAGES_SCRIPT = """
+            if ARGV[1] ~= '1' and redis.call('exists', KEYS[1]) == 1 then
+                return -1
+            end
+            redis.call('del', KEYS[1])
+            for i = 3, #ARGV do
+                redis.call('rpush', KEYS[1], ARGV[i])
+            end
+            if #ARGV > 2 and tonumber(ARGV[2]) > 0 then
+                redis.call('pexpire', KEYS[1], ARGV[2])
+            end
+            return #ARGV - 2
+            """;
+
+    /**
+     * KEYS: messages. ARGV: encoded message, ttl in millis, expected sequence number. Returns the new
+     * message's sequence number, or -1 if the list is shorter than the expected sequence number.
+     */
+    private static final String APPEND_MESSAGE_SCRIPT = """
+            if redis.call('llen', KEYS[1]) < tonumber(ARGV[3]) then
+                return -1
+            end
+            local size = redis.call('rpush', KEYS[1], ARGV[1])
+            if tonumber(ARGV[2]) > 0 then
+                redis.call('pexpire', KEYS[1], ARGV[2])
+            end
+            return size - 1
+            """;
+
     private final ConversationJpaRepository conversationJpaRepository;
     private final ConversationEntityMapper mapper;
     private final RedissonClient redissonClient;
     private final RedisKeyFactory keyFactory;
     private final ChatProperties chatProperties;
     private final ObjectMapper objectMapper;
+    private final RecentWriteTracker recentWrites;
+    private final ConversationEventLog eventLog;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -48,10 +98,134 @@ public class JpaConversationRepository implements ConversationRepository {
     @Override
     @Transactional
     public void saveConversation(ConversationMetadata conversation) {
+        SaveConversationEvent event = new SaveConversationEvent();
+        event.begin();
         ConversationMetadata normalized = ensureTimestamps(conversation);
+        ConversationEventType type = normalized.getVersion() == null ? ConversationEventType.STARTED : ConversationEventType.SAVED;
         ConversationEntity entity = mapper.toEntity(normalized);
-        conversationJpaRepository.save(entity);
-        normalized.setVersion(entity.getVersion());
+        ConversationEntity saved = conversationJpaRepository.save(entity);
+        // flushes the save first; a merge that changed nothing keeps its version and logs nothing
+        CreatedRange created = CreatedRange.of(saved.getId());
+        conversationJpaRepository.appendSnapshot(saved.getId(), created.from(), created.to(), type.name());
+        normalized.setVersion(saved.getVersion());
+        recordWrite(normalized);
+        event.finish(normalized);
+    }
+
+    @Override
+    @Transactional
+    public void markQueued(ConversationMetadata conversation, QueueEntry entry) {
+        String data = eventLog.queued(entry);
+        applyTransition(conversation, (version, created) -> conversationJpaRepository.markQueued(
+                conversation.getId(), conversation.getUpdatedAt(), version, created.from(), created.to(),
+                ConversationEventType.QUEUED.name(), data, snapshotEvery()));
+    }
+
+    @Override
+    @Transactional
+    public void markAssigned(ConversationMetadata conversation) {
+        ChatParticipant agent = conversation.getAgent();
+        if (agent == null) {
+            throw new ServiceException(HttpStatus.BAD_REQUEST, "Assigned conversation requires an agent");
+        }
+        String agentMetadata = mapper.writeParticipantMetadata(agent);
+        String data = eventLog.assigned(agent, conversation.getAcceptedAt());
+        applyTransition(conversation, (version, created) -> conversationJpaRepository.markAssigned(
+                conversation.getId(),
+                agent.getId(),
+                agent.getDisplayName(),
+                agent.getType() != null ? agent.getType().name() : null,
+                agentMetadata,
+                conversation.getAcceptedAt(),
+                conversation.getUpdatedAt(),
+                version,
+                created.from(),
+                created.to(),
+                ConversationEventType.ASSIGNED.name(),
+                data,
+                snapshotEvery()));
+    }
+
+    @Override
+    @Transactional
+    public void markClosed(ConversationMetadata conversation, ChatMessage closureNotice) {
+        String data = eventLog.closed(conversation.getClosedAt(), closureNotice);
+        applyTransition(conversation, (version, created) -> conversationJpaRepository.markClosed(
+                conversation.getId(), conversation.getClosedAt(), conversation.getUpdatedAt(), version,
+                created.from(), created.to(), ConversationEventType.CLOSED.name(), data, snapshotEvery()));
+    }
+
+    /**
+     * Logs the message and appends it to the Redis list while holding the conversation's row lock, so
+     * messages get their sequence numbers in the order they are logged, and a close, which waits for
+     * the lock, always comes after them.
+     */
+    @Override
+    @Transactional
+    public long recordMessage(ChatMessage message) {
+        String conversationId = message.getConversationId();
+        CreatedRange created = CreatedRange.of(conversationId);
+        if (conversationJpaRepository.touchOpen(conversationId, message.getTimestamp(), created.from(), created.to()) == 0) {
+            // the only open-row miss is a closed conversation
+            conversationJpaRepository
+                    .findByIdCreatedBetween(conversationId, created.from(), created.to())
+                    .orElseThrow(() -> new ServiceException(HttpStatus.NOT_FOUND, "Conversation not found"));
+            throw new ServiceException(HttpStatus.GONE, "Conversation closed");
+        }
+        int ordinal = conversationJpaRepository.appendMessageEvent(
+                conversationId, message.getTimestamp(), created.from(), created.to(), eventLog.message(message));
+        recentWrites.recordConversationWrite(conversationId);
+        return append(message, ordinal - 1L);
+    }
+
+    @Override
+    @Transactional
+    public void touch(ConversationMetadata conversation) {
+        applyTransition(conversation, (version, created) -> conversationJpaRepository.touch(
+                conversation.getId(), conversation.getUpdatedAt(), version, created.from(), created.to(),
+                ConversationEventType.TOUCHED.name(), null, snapshotEvery()));
+    }
+
+    @Override
+    public Optional<ConversationMetadata> replayConversation(String conversationId) {
+        if (!StringUtils.hasText(conversationId)) {
+            return Optional.empty();
+        }
+        return eventLog.replay(conversationId);
+    }
+
+    @Override
+    public Optional<QueueEntry> lastQueueEntry(String conversationId) {
+        if (!StringUtils.hasText(conversationId)) {
+            return Optional.empty();
+        }
+        return eventLog.lastQueueEntry(conversationId);
+    }
+
+    /**
+     * Rewrites the Redis message list from the event log in one script, either unconditionally or
+     * only while the list is missing, so a restore never lands on messages appended meanwhile.
+     */
+    @Override
+    public int restoreMessages(String conversationId, boolean replace) {
+        if (!StringUtils.hasText(conversationId)) {
+            return -1;
+        }
+        List<ChatMessage> messages = eventLog.messages(conversationId);
+        Duration ttl = chatProperties.getRedis().getConversationTtl();
+        List<Object> args = new ArrayList<>(messages.size() + 2);
+        args.add(replace ? "1" : "0");
+        args.add(ttl != null && !ttl.isNegative() ? String.valueOf(ttl.toMillis()) : "0");
+        for (ChatMessage message : messages) {
+            args.add(encodeMessage(message));
+        }
+        Long restored = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE,
+                RESTORE_MESSAGES_SCRIPT,
+                RScript.ReturnType.INTEGER,
+                List.of(keyFactory.messagesKey(conversationId)),
+                args.toArray());
+        return restored != null ? restored.intValue() : -1;
     }
 
     @Override
@@ -60,7 +234,14 @@ public class JpaConversationRepository implements ConversationRepository {
         if (!StringUtils.hasText(conversationId)) {
             return Optional.empty();
         }
-        return conversationJpaRepository.findById(conversationId).map(mapper::toMetadata);
+        CreatedRange created = CreatedRange.of(conversationId);
+        Supplier<Optional<ConversationMetadata>> query = () -> conversationJpaRepository
+                .findByIdCreatedBetween(conversationId, created.from(), created.to())
+                .map(mapper::toMetadata);
+        if (recentWrites.isConversationRecentlyWritten(conversationId)) {
+            return ReplicaRoutingContext.onPrimary(query);
+        }
+        return query.get();
     }
 
     @Override
@@ -73,14 +254,42 @@ public class JpaConversationRepository implements ConversationRepository {
         messageList(conversationId).delete();
     }
 
+    /**
+     * Appends after the messages logged so far, which for the closure notice are all of them: it is
+     * logged with the {@code CLOSED} event rather than as a message.
+     */
     @Override
-    public void appendMessage(ChatMessage message) {
+    public long appendMessage(ChatMessage message) {
         if (message == null || !StringUtils.hasText(message.getConversationId())) {
-            return;
+            return -1;
         }
-        RList<ChatMessage> list = messageList(message.getConversationId());
-        list.add(message);
-        expireMessages(list);
+        CreatedRange created = CreatedRange.of(message.getConversationId());
+        Integer logged = conversationJpaRepository.lastMessageOrdinal(message.getConversationId(), created.from(), created.to());
+        return append(message, logged != null ? logged : 0L);
+    }
+
+    /**
+     * Appends to the Redis list, whose indexes are the sequence numbers, at the sequence number the
+     * event log gives the message. A list shorter than that (expired after {@code conversation-ttl}
+     * or lost by Redis) is rebuilt from the log instead; callers log the message before appending
+     * it, so the rebuilt list already ends with it and numbering carries on instead of restarting
+     * at 0. A list longer than that holds messages sent before the log existed, and is appended to.
+     */
+    private long append(ChatMessage message, long sequence) {
+        Duration ttl = chatProperties.getRedis().getConversationTtl();
+        Long appended = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE,
+                APPEND_MESSAGE_SCRIPT,
+                RScript.ReturnType.INTEGER,
+                List.of(keyFactory.messagesKey(message.getConversationId())),
+                encodeMessage(message),
+                ttl != null && !ttl.isNegative() ? String.valueOf(ttl.toMillis()) : "0",
+                String.valueOf(sequence));
+        if (appended != null && appended >= 0) {
+            return appended;
+        }
+        restoreMessages(message.getConversationId(), true);
+        return sequence;
     }
 
     @Override
@@ -94,7 +303,26 @@ public class JpaConversationRepository implements ConversationRepository {
             return Collections.emptyList();
         }
         int from = Math.max(0, size - limit);
-        return list.range(from, size - 1);
+        return withSequence(list.range(from, size - 1), from);
+    }
+
+    @Override
+    public List<ChatMessage> getMessagesAfter(String conversationId, long afterSequence, int limit) {
+        if (!StringUtils.hasText(conversationId) || limit <= 0) {
+            return Collections.emptyList();
+        }
+        int from = (int) Math.max(0, afterSequence + 1);
+        RBatch batch = redissonClient.createBatch();
+        RListAsync<ChatMessage> list = batch.getList(keyFactory.messagesKey(conversationId), messageCodec());
+        RFuture<List<ChatMessage>> range = list.rangeAsync(from, from + limit - 1);
+        RFuture<Integer> size = list.sizeAsync();
+        batch.execute();
+        if (afterSequence >= 0 && size.toCompletableFuture().join() == 0
+                && restoreMessages(conversationId, false) > 0) {
+            // the client saw messages the list no longer has: it expired or Redis lost it
+            return withSequence(messageList(conversationId).range(from, from + limit - 1), from);
+        }
+        return withSequence(range.toCompletableFuture().join(), from);
     }
 
     @Override
@@ -111,13 +339,34 @@ public class JpaConversationRepository implements ConversationRepository {
         if (!StringUtils.hasText(agentId)) {
             return Collections.emptyList();
         }
-        List<ConversationEntity> entities;
-        if (CollectionUtils.isEmpty(statuses)) {
-            entities = conversationJpaRepository.findByAgentId(agentId);
-        } else {
-            entities = conversationJpaRepository.findForAgent(agentId, statuses.stream().toList());
+        if (recentWrites.isAgentRecentlyWritten(agentId)) {
+            return ReplicaRoutingContext.onPrimary(() -> queryForAgent(agentId, statuses));
         }
-        return entities.stream().map(mapper::toMetadata).toList();
+        return queryForAgent(agentId, statuses);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ConversationMetadata> findOpenForCustomer(String customerId) {
+        if (!StringUtils.hasText(customerId)) {
+            return Optional.empty();
+        }
+        Supplier<Optional<ConversationMetadata>> query = () -> conversationJpaRepository
+                .findOpenForCustomer(customerId, openConversationWindowStart(), Limit.of(1))
+                .stream()
+                .findFirst()
+                .map(mapper::toMetadata);
+        // a conversation started or closed a moment ago may not have reached the replicas yet
+        if (recentWrites.isCustomerRecentlyWritten(customerId)) {
+            return ReplicaRoutingContext.onPrimary(query);
+        }
+        return query.get();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countOpenConversations() {
+        return conversationJpaRepository.countOpenConversations(openConversationWindowStart());
     }
 
     @Override
@@ -133,6 +382,7 @@ public class JpaConversationRepository implements ConversationRepository {
 
         var predicates = new ArrayList<jakarta.persistence.criteria.Predicate>();
         predicates.add(cb.notEqual(root.get("status"), ConversationStatus.CLOSED));
+        predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), openConversationWindowStart()));
 
         var triggerPredicates = new ArrayList<jakarta.persistence.criteria.Predicate>();
         if (inactivityCutoff != null) {
@@ -160,6 +410,70 @@ public class JpaConversationRepository implements ConversationRepository {
         return query.getResultList().stream().map(mapper::toMetadata).toList();
     }
 
+    /**
+     * Runs a narrow, version-checked update instead of merging the full row. Conversations that were
+     * never persisted (no version yet) still go through {@link #saveConversation(ConversationMetadata)}.
+     */
+    private void applyTransition(ConversationMetadata conversation, VersionedUpdate update) {
+        ConversationMetadata normalized = ensureTimestamps(conversation);
+        Long version = normalized.getVersion();
+        if (version == null) {
+            saveConversation(normalized);
+            return;
+        }
+        if (update.apply(version, CreatedRange.of(normalized.getId())) == 0) {
+            // the retry has to see the newer version, so it reads from the primary
+            recentWrites.recordConversationWrite(normalized.getId());
+            throw new ServiceException(
+                    HttpStatus.CONFLICT, "Conversation was modified concurrently", ConversationRepository.VERSION_CONFLICT);
+        }
+        normalized.setVersion(version + 1);
+        recordWrite(normalized);
+    }
+
+    @FunctionalInterface
+    private interface VersionedUpdate {
+
+        int apply(long version, CreatedRange created);
+    }
+
+    private void recordWrite(ConversationMetadata conversation) {
+        recentWrites.recordConversationWrite(conversation.getId());
+        if (conversation.getAgent() != null) {
+            recentWrites.recordAgentWrite(conversation.getAgent().getId());
+        }
+        if (conversation.getCustomer() != null) {
+            recentWrites.recordCustomerWrite(conversation.getCustomer().getId());
+        }
+    }
+
+    private List<ConversationMetadata> queryForAgent(String agentId, Set<ConversationStatus> statuses) {
+        List<ConversationEntity> entities;
+        if (CollectionUtils.isEmpty(statuses)) {
+            entities = conversationJpaRepository.findByAgentId(agentId);
+        } else if (!statuses.contains(ConversationStatus.CLOSED)) {
+            entities = conversationJpaRepository.findForAgentCreatedAfter(
+                    agentId, statuses.stream().toList(), openConversationWindowStart());
+        } else {
+            entities = conversationJpaRepository.findForAgent(agentId, statuses.stream().toList());
+        }
+        return entities.stream().map(mapper::toMetadata).toList();
+    }
+
+    /**
+     * Lower bound on {@code createdAt} for queries over non-closed conversations. Conversations are
+     * closed after {@code chat.conversation.max-duration}, so this lets PostgreSQL prune all but the
+     * newest monthly partitions.
+     */
+    private Instant openConversationWindowStart() {
+        Duration window = chatProperties.getRetention().getOpenConversationWindow();
+        Duration maxDuration = chatProperties.getConversation().getMaxDuration();
+        if (maxDuration != null && window.compareTo(maxDuration) <= 0) {
+            window = maxDuration.multipliedBy(2);
+        }
+        return Instant.now().minus(window);
+    }
+
     private ConversationMetadata ensureTimestamps(ConversationMetadata conversation) {
         Instant now = Instant.now();
         if (conversation.getCreatedAt() == null) {
@@ -171,6 +485,24 @@ public class JpaConversationRepository implements ConversationRepository {
         return conversation;
     }
 
+    private int snapshotEvery() {
+        return Math.max(1, chatProperties.getConversation().getSnapshotEvery());
+    }
+
+    private String encodeMessage(ChatMessage message) {
+        ByteBuf encoded;
+        try {
+            encoded = messageCodec().getValueEncoder().encode(message);
+        } catch (IOException ex) {
+            throw new ServiceException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to encode message", ex);
+        }
+        try {
+            return encoded.toString(StandardCharsets.UTF_8);
+        } finally {
+            encoded.release();
+        }
+    }
+
     private RList<ChatMessage> messageList(String conversationId) {
         return redissonClient.getList(keyFactory.messagesKey(conversationId), messageCodec());
     }
@@ -182,11 +514,11 @@ public class JpaConversationRepository implements ConversationRepository {
         return messageCodec;
     }
 
-    private void expireMessages(RList<ChatMessage> list) {
-        Duration ttl = chatProperties.getRedis().getConversationTtl();
-        if (ttl != null && !ttl.isNegative() && !ttl.isZero()) {
-            list.expire(ttl);
+    private static List<ChatMessage> withSequence(List<ChatMessage> messages, long firstSequence) {
+        for (int i = 0; i < messages.size(); i++) {
+            messages.get(i).setSequence(firstSequence + i);
         }
+        return messages;
     }
 }
 
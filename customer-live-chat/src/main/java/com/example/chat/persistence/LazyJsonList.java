@@ -0,0 +1,85 @@
+package com.example.chat.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link List} counterpart of {@link LazyJsonMap} for string array columns such as tags.
+ */
+final class LazyJsonList extends AbstractList<String> implements LazyJsonValue, Serializable {
+
+    private static final TypeReference<ArrayList<String>> LIST_TYPE = new TypeReference<>() {};
+
+    private final transient ObjectMapper objectMapper;
+    private transient volatile String json;
+    private volatile List<String> decoded;
+
+    LazyJsonList(String json, ObjectMapper objectMapper) {
+        this.json = json;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String undecodedJson() {
+        return decoded == null ? json : null;
+    }
+
+    @Override
+    public String get(int index) {
+        return delegate().get(index);
+    }
+
+    @Override
+    public int size() {
+        return delegate().size();
+    }
+
+    @Override
+    public String set(int index, String element) {
+        return delegate().set(index, element);
+    }
+
+    @Override
+    public void add(int index, String element) {
+        delegate().add(index, element);
+    }
+
+    @Override
+    public String remove(int index) {
+        return delegate().remove(index);
+    }
+
+    private List<String> delegate() {
+        List<String> result = decoded;
+        if (result == null) {
+            synchronized (this) {
+                result = decoded;
+                if (result == null) {
+                    result = decode();
+                    decoded = result;
+                    json = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<String> decode() {
+        try {
+            List<String> value = objectMapper.readValue(json, LIST_TYPE);
+            return value != null ? value : new ArrayList<>();
+        } catch (JsonProcessingException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    private Object writeReplace() {
+        return new ArrayList<>(delegate());
+    }
+}
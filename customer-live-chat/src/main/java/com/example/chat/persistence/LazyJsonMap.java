@@ -0,0 +1,92 @@
+package com.example.chat.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link Map} view over a JSON column that is only parsed on first access. Until then the original
+ * column value can be written back verbatim, so untouched rows never pay for a parse/serialize round trip.
+ */
+final class LazyJsonMap extends AbstractMap<String, Object> implements LazyJsonValue, Serializable {
+
+    private static final TypeReference<LinkedHashMap<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final transient ObjectMapper objectMapper;
+    private transient volatile String json;
+    private volatile Map<String, Object> decoded;
+
+    LazyJsonMap(String json, ObjectMapper objectMapper) {
+        this.json = json;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String undecodedJson() {
+        return decoded == null ? json : null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return delegate().entrySet();
+    }
+
+    @Override
+    public int size() {
+        return delegate().size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return delegate().containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return delegate().get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return delegate().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return delegate().remove(key);
+    }
+
+    private Map<String, Object> delegate() {
+        Map<String, Object> result = decoded;
+        if (result == null) {
+            synchronized (this) {
+                result = decoded;
+                if (result == null) {
+                    result = decode();
+                    decoded = result;
+                    json = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Object> decode() {
+        try {
+            Map<String, Object> value = objectMapper.readValue(json, MAP_TYPE);
+            return value != null ? value : new LinkedHashMap<>();
+        } catch (JsonProcessingException e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    private Object writeReplace() {
+        return new LinkedHashMap<>(delegate());
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.chat.persistence;
+
+/**
+ * Marker for collections backed by a not-yet-parsed JSON column value.
+ */
+interface LazyJsonValue {
+
+    /**
+     * Returns the original column value while the collection has not been decoded, otherwise {@code null}.
+     */
+    String undecodedJson();
+}
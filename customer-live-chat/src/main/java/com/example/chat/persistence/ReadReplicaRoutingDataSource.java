@@ -0,0 +1,70 @@
+package com.example.chat.persistence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections requested inside read-only transactions to the replicas (round robin) and
+ * everything else to the primary. A replica that refuses a connection falls back to the primary.
+ *
+ * <p>The routing decision relies on the transaction's read-only flag, which Spring only exposes after
+ * the transaction has begun; wrap this data source in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so the physical connection
+ * is fetched at the first statement.
+ */
+@Slf4j
+public class ReadReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    public ReadReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTarget();
+        if (target == primary) {
+            return primary.getConnection();
+        }
+        try {
+            return target.getConnection();
+        } catch (SQLException ex) {
+            log.warn("Read replica unavailable, falling back to primary", ex);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        DataSource target = determineTarget();
+        if (target == primary) {
+            return primary.getConnection(username, password);
+        }
+        try {
+            return target.getConnection(username, password);
+        } catch (SQLException ex) {
+            log.warn("Read replica unavailable, falling back to primary", ex);
+            return primary.getConnection(username, password);
+        }
+    }
+
+    private DataSource determineTarget() {
+        if (replicas.isEmpty()
+                || ReplicaRoutingContext.isPrimaryForced()
+                || !TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return primary;
+        }
+        return replicas.get(Math.floorMod(cursor.getAndIncrement(), replicas.size()));
+    }
+}
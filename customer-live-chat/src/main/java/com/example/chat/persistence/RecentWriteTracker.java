@@ -0,0 +1,60 @@
+package com.example.chat.persistence;
+
+import com.example.chat.config.ChatDataSourceProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import org.springframework.stereotype.Component;
+
+/**
+ * Node-local record of conversations and agents changed within the read-your-writes window. Reads for
+ * those keys are kept on the primary until replicas have had time to catch up. Entries expire a window
+ * after their last write, so the cache holds only what was written within the window. Inactive when
+ * no replicas are configured.
+ */
+@Component
+public class RecentWriteTracker {
+
+    private final Cache<String, Boolean> writes;
+
+    public RecentWriteTracker(ChatDataSourceProperties dataSourceProperties) {
+        Duration window = dataSourceProperties.getReadYourWritesWindow();
+        boolean enabled = !dataSourceProperties.getReplicas().isEmpty()
+                && window != null && !window.isNegative() && !window.isZero();
+        this.writes = enabled ? Caffeine.newBuilder().expireAfterWrite(window).build() : null;
+    }
+
+    public void recordConversationWrite(String conversationId) {
+        record("conversation:" + conversationId);
+    }
+
+    public void recordAgentWrite(String agentId) {
+        record("agent:" + agentId);
+    }
+
+    public void recordCustomerWrite(String customerId) {
+        record("customer:" + customerId);
+    }
+
+    public boolean isConversationRecentlyWritten(String conversationId) {
+        return isRecent("conversation:" + conversationId);
+    }
+
+    public boolean isAgentRecentlyWritten(String agentId) {
+        return isRecent("agent:" + agentId);
+    }
+
+    public boolean isCustomerRecentlyWritten(String customerId) {
+        return isRecent("customer:" + customerId);
+    }
+
+    private void record(String key) {
+        if (writes != null) {
+            writes.put(key, Boolean.TRUE);
+        }
+    }
+
+    private boolean isRecent(String key) {
+        return writes != null && writes.getIfPresent(key) != null;
+    }
+}
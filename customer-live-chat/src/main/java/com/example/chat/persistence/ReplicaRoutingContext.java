@@ -0,0 +1,30 @@
+package com.example.chat.persistence;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override that keeps read-only work on the primary. Must be applied before the first
+ * statement of the transaction, which is when {@link ReadReplicaRoutingDataSource} picks a target.
+ */
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {}
+
+    public static boolean isPrimaryForced() {
+        return Boolean.TRUE.equals(PRIMARY_FORCED.get());
+    }
+
+    public static <T> T onPrimary(Supplier<T> supplier) {
+        if (isPrimaryForced()) {
+            return supplier.get();
+        }
+        PRIMARY_FORCED.set(Boolean.TRUE);
+        try {
+            return supplier.get();
+        } finally {
+            PRIMARY_FORCED.remove();
+        }
+    }
+}
@@ -1,12 +1,25 @@
 package com.example.chat.service;
 
 import com.example.chat.config.ChatProperties;
+import com.example.chat.domain.ConversationMetadata;
+import com.example.chat.domain.ConversationStatus;
+import java.util.List;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
 import org.redisson.api.RSet;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+/**
+ * The set of conversations each agent holds. Members are plain strings, the same encoding the claim
+ * script in {@link AgentQueueService} adds them with.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AgentAssignmentService {
@@ -14,6 +27,7 @@ public class AgentAssignmentService {
     private final RedissonClient redissonClient;
     private final RedisKeyFactory keyFactory;
     private final ChatProperties chatProperties;
+    private final ConversationRepository conversationRepository;
 
     public boolean canAssign(String agentId) {
         RSet<String> assignments = assignmentSet(agentId);
@@ -24,16 +38,57 @@ public class AgentAssignmentService {
         assignmentSet(agentId).add(conversationId);
     }
 
+    public void registerAssignment(RBatch batch, String agentId, String conversationId) {
+        batch.getSet(keyFactory.agentConversationSetKey(agentId), StringCodec.INSTANCE).addAsync(conversationId);
+    }
+
     public void removeAssignment(String agentId, String conversationId) {
         assignmentSet(agentId).remove(conversationId);
     }
 
+    public void removeAssignment(RBatch batch, String agentId, String conversationId) {
+        batch.getSet(keyFactory.agentConversationSetKey(agentId), StringCodec.INSTANCE).removeAsync(conversationId);
+    }
+
     public Set<String> currentAssignments(String agentId) {
         return assignmentSet(agentId).readAll();
     }
 
+    /**
+     * Carries the sets of the old {@code :conversations} keys over to the {@code :assigned} ones, so
+     * {@link #canAssign} does not undercount what agents held before the upgrade. The sets are
+     * rebuilt from the agents' {@code ASSIGNED} conversations in the database rather than copied, as
+     * the old members were codec-encoded and may include conversations closed since. Runs on every
+     * start and is idempotent, so a node started after the last node of the previous version stopped
+     * also picks up what that node claimed in the meantime.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyAssignments() {
+        try {
+            List<String> legacyKeys = redissonClient.getKeys()
+                    .getKeysStreamByPattern(keyFactory.legacyAgentConversationSetPattern())
+                    .toList();
+            for (String legacyKey : legacyKeys) {
+                String agentId = keyFactory.agentIdOfLegacyConversationSetKey(legacyKey);
+                List<String> assigned = conversationRepository.findForAgent(agentId, Set.of(ConversationStatus.ASSIGNED))
+                        .stream()
+                        .map(ConversationMetadata::getId)
+                        .toList();
+                if (!assigned.isEmpty()) {
+                    assignmentSet(agentId).addAll(assigned);
+                }
+                redissonClient.getKeys().delete(legacyKey);
+            }
+            if (!legacyKeys.isEmpty()) {
+                log.info("Migrated the conversation sets of {} agents to their assigned keys", legacyKeys.size());
+            }
+        } catch (Exception ex) {
+            log.warn("Migrating legacy agent conversation sets failed", ex);
+        }
+    }
+
     private RSet<String> assignmentSet(String agentId) {
-        return redissonClient.getSet(keyFactory.agentConversationSetKey(agentId));
+        return redissonClient.getSet(keyFactory.agentConversationSetKey(agentId), StringCodec.INSTANCE);
     }
 }
 
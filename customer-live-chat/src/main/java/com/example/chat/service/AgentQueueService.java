@@ -2,8 +2,10 @@ package com.example.chat.service;
 
 import com.example.chat.config.ChatProperties;
 import com.example.chat.domain.QueueEntry;
-import com.example.chat.dto.QueueSnapshotPayload;
+import com.example.chat.observability.ChatMetrics;
+import com.example.chat.observability.ChatTracing;
 import com.example.chat.service.exception.ServiceException;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.Duration;
 import java.time.Instant;
@@ -14,11 +16,13 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 import lombok.RequiredArgsConstructor;
-import org.redisson.api.RBucket;
+import org.redisson.api.RBatch;
 import org.redisson.api.RLock;
 import org.redisson.api.RScoredSortedSet;
 import org.redisson.api.RMap;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
 import org.redisson.client.codec.StringCodec;
 import org.redisson.codec.TypedJsonJacksonCodec;
@@ -31,11 +35,106 @@ import org.springframework.util.StringUtils;
 @RequiredArgsConstructor
 public class AgentQueueService {
 
+    /**
+     * Publishes the head of the queue (ARGV[1] topic, ARGV[2] limit) as a
+     * {@code QueueSnapshotPayload}; shared by the scripts below so every queue change publishes in
+     * the same atomic step. Entry fields are JSON-encoded ids; conversation ids are generated, so
+     * cjson encodes them the way Jackson does.
+     */
+    private static final String PUBLISH_HEAD = """
+            local ids = redis.call('zrange', KEYS[1], 0, tonumber(ARGV[2]) - 1)
+            local entries = {}
+            for _, id in ipairs(ids) do
+                local entry = redis.call('hget', KEYS[2], cjson.encode(id))
+                if entry then
+                    table.insert(entries, entry)
+                else
+                    redis.call('zrem', KEYS[1], id)
+                end
+            end
+            local subscribers = redis.call('publish', ARGV[1], '{"entries":[' .. table.concat(entries, ',') .. ']}')
+            """;
+
+    /**
+     * Reads the head of the queue and publishes it in one atomic step, so snapshots reach
+     * subscribers in the order the queue changed. With a conversation id in ARGV[3] it first removes
+     * that entry and only publishes when there was one.
+     */
+    private static final String SNAPSHOT_SCRIPT = """
+            if ARGV[3] then
+                redis.call('zrem', KEYS[1], ARGV[3])
+                if redis.call('hdel', KEYS[2], cjson.encode(ARGV[3])) == 0 then
+                    return 0
+                end
+            end
+            """ + PUBLISH_HEAD + """
+            return subscribers
+            """;
+
+    /**
+     * Claims a queued conversation for the agent in ARGV[4] in one atomic step: checks the current
+     * owner, the queue entry and the agent's load against ARGV[6] (0 for no limit), then moves the
+     * entry into the assignment bucket with a TTL of ARGV[5] ms, adds the conversation to the agent's
+     * set and publishes the new queue head. The load check and the add are in the same script, so
+     * concurrent claims of one agent cannot both pass the limit. KEYS: queue, entries, assignment,
+     * agent's conversation set (plain strings). Returns the status and, when claimed, the entry.
+     */
+    private static final String CLAIM_SCRIPT = """
+            local owner = redis.call('get', KEYS[3])
+            if owner and owner ~= ARGV[4] then
+                return {'BUSY'}
+            end
+            local field = cjson.encode(ARGV[3])
+            local claimed = redis.call('hget', KEYS[2], field)
+            if not claimed then
+                if owner then
+                    if tonumber(ARGV[5]) > 0 then
+                        redis.call('pexpire', KEYS[3], ARGV[5])
+                    end
+                    redis.call('sadd', KEYS[4], ARGV[3])
+                    return {'OWNED'}
+                end
+                redis.call('zrem', KEYS[1], ARGV[3])
+                return {'MISSING'}
+            end
+            if not owner and tonumber(ARGV[6]) > 0 and redis.call('scard', KEYS[4]) >= tonumber(ARGV[6]) then
+                return {'AGENT_FULL'}
+            end
+            redis.call('hdel', KEYS[2], field)
+            redis.call('zrem', KEYS[1], ARGV[3])
+            if tonumber(ARGV[5]) > 0 then
+                redis.call('set', KEYS[3], ARGV[4], 'PX', ARGV[5])
+            else
+                redis.call('set', KEYS[3], ARGV[4])
+            end
+            redis.call('sadd', KEYS[4], ARGV[3])
+            """ + PUBLISH_HEAD + """
+            return {'CLAIMED', claimed}
+            """;
+
+    /**
+     * Undoes a claim of the agent in ARGV[4] that could not be persisted: releases the assignment,
+     * drops the conversation from the agent's set and puts the entry in ARGV[5] back at its old
+     * score ARGV[6]. Does nothing once someone else owns the conversation.
+     */
+    private static final String RETURN_SCRIPT = """
+            if redis.call('get', KEYS[3]) ~= ARGV[4] then
+                return 0
+            end
+            redis.call('del', KEYS[3])
+            redis.call('srem', KEYS[4], ARGV[3])
+            redis.call('hset', KEYS[2], cjson.encode(ARGV[3]), ARGV[5])
+            redis.call('zadd', KEYS[1], ARGV[6], ARGV[3])
+            """ + PUBLISH_HEAD + """
+            return 1
+            """;
+
     private final RedissonClient redissonClient;
     private final RedisKeyFactory keyFactory;
     private final ChatProperties chatProperties;
-    private final QueueEventPublisher queueEventPublisher;
     private final ObjectMapper objectMapper;
+    private final ChatMetrics metrics;
+    private final ChatTracing tracing;
 
     private TypedJsonJacksonCodec entryCodec;
 
@@ -51,8 +150,7 @@ public class AgentQueueService {
             throw new ServiceException(HttpStatus.BAD_REQUEST, "Queue entry must include a conversation id");
         }
         QueueEntry normalized = normalizeEntry(entry);
-        RLock lock = queueLock();
-        lock.lock();
+        ChatMetrics.LockHandle lock = lockQueue();
         try {
             queueEntries().fastPut(normalized.getConversationId(), normalized);
             orderedQueue().add(normalized.getEnqueuedAt().toEpochMilli(), normalized.getConversationId());
@@ -62,36 +160,100 @@ public class AgentQueueService {
         }
     }
 
-    public ClaimResult claimForAgent(String conversationId, String agentId, Duration assignmentTtl) {
+    /**
+     * Adds the enqueue and the snapshot broadcast to {@code batch}. The entry is written before its
+     * score, so a concurrent snapshot never sees an id without its entry.
+     */
+    public void enqueue(RBatch batch, QueueEntry entry) {
+        if (entry == null || !StringUtils.hasText(entry.getConversationId())) {
+            throw new ServiceException(HttpStatus.BAD_REQUEST, "Queue entry must include a conversation id");
+        }
+        QueueEntry normalized = normalizeEntry(entry);
+        batch.getMap(keyFactory.queueEntriesKey(), entryCodec()).fastPutAsync(normalized.getConversationId(), normalized);
+        batch.getScoredSortedSet(keyFactory.queueKey(), StringCodec.INSTANCE)
+                .addAsync(normalized.getEnqueuedAt().toEpochMilli(), normalized.getConversationId());
+        batch.getScript(StringCodec.INSTANCE).evalAsync(
+                RScript.Mode.READ_WRITE, SNAPSHOT_SCRIPT, RScript.ReturnType.INTEGER, snapshotKeys(), snapshotArguments(null));
+    }
+
+    /**
+     * Adds the removal of a queue entry to {@code batch}. A snapshot is broadcast only when the
+     * conversation was actually queued.
+     */
+    public void remove(RBatch batch, String conversationId) {
         validateConversation(conversationId);
-        RLock lock = queueLock();
-        lock.lock();
-        try {
-            RBucket<String> assignment = assignmentBucket(conversationId);
-            String owner = assignment.get();
-            if (StringUtils.hasText(owner) && !owner.equals(agentId)) {
-                return new ClaimResult(ClaimStatus.BUSY, Optional.empty());
-            }
+        batch.getScript(StringCodec.INSTANCE).evalAsync(
+                RScript.Mode.READ_WRITE, SNAPSHOT_SCRIPT, RScript.ReturnType.INTEGER, snapshotKeys(),
+                snapshotArguments(conversationId));
+    }
 
-            QueueEntry entry = queueEntries().get(conversationId);
-            if (entry == null) {
-                if (StringUtils.hasText(owner) && owner.equals(agentId)) {
-                    refreshAssignmentTtl(assignment, assignmentTtl);
-                    return new ClaimResult(ClaimStatus.OWNED, Optional.empty());
-                }
-                orderedQueue().remove(conversationId);
-                return new ClaimResult(ClaimStatus.MISSING, Optional.empty());
-            }
+    /**
+     * Adds a rank lookup to {@code batch}; the stage completes once the batch has been executed.
+     */
+    public CompletionStage<Long> position(RBatch batch, String conversationId) {
+        validateConversation(conversationId);
+        return batch.getScoredSortedSet(keyFactory.queueKey(), StringCodec.INSTANCE)
+                .rankAsync(conversationId)
+                .thenApply(rank -> rank != null ? rank.longValue() : -1L);
+    }
 
-            queueEntries().fastRemove(conversationId);
-            orderedQueue().remove(conversationId);
-            assignment.set(agentId);
-            refreshAssignmentTtl(assignment, assignmentTtl);
-            publishSnapshot();
-            return new ClaimResult(ClaimStatus.CLAIMED, Optional.of(entry));
-        } finally {
-            lock.unlock();
+    /**
+     * Claims a queued conversation for {@code agentId} without the queue lock. The owner check, the
+     * agent's load against {@code maxConcurrent} (0 for no limit), moving the entry into the
+     * assignment and registering it in the agent's set run as one script, so of many agents
+     * claiming at once exactly one gets {@link ClaimStatus#CLAIMED}; the claimed entry comes back
+     * for {@link #returnClaim}.
+     */
+    public ClaimResult claimForAgent(String conversationId, String agentId, Duration assignmentTtl, int maxConcurrent) {
+        validateConversation(conversationId);
+        List<Object> result = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE,
+                CLAIM_SCRIPT,
+                RScript.ReturnType.MULTI,
+                claimKeys(conversationId, agentId),
+                keyFactory.queueTopicName(),
+                broadcastLimit(),
+                conversationId,
+                agentId,
+                String.valueOf(ttlMillis(assignmentTtl)),
+                String.valueOf(Math.max(maxConcurrent, 0)));
+        ClaimStatus status = ClaimStatus.valueOf((String) result.get(0));
+        if (result.size() < 2) {
+            return new ClaimResult(status, Optional.empty());
+        }
+        try {
+            return new ClaimResult(status, Optional.of(objectMapper.readValue((String) result.get(1), QueueEntry.class)));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unreadable queue entry for conversation " + conversationId, ex);
+        }
+    }
+
+    /**
+     * Hands a claim back when the assignment could not be persisted: the entry returns to its old
+     * place in the queue and the assignment is released, in the agent's set too, unless another
+     * agent owns the conversation by now.
+     */
+    public boolean returnClaim(String agentId, QueueEntry entry) {
+        validateConversation(entry.getConversationId());
+        QueueEntry normalized = normalizeEntry(entry);
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(normalized);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to write queue entry " + normalized.getConversationId(), ex);
         }
+        Long returned = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE,
+                RETURN_SCRIPT,
+                RScript.ReturnType.INTEGER,
+                claimKeys(normalized.getConversationId(), agentId),
+                keyFactory.queueTopicName(),
+                broadcastLimit(),
+                normalized.getConversationId(),
+                agentId,
+                json,
+                String.valueOf(normalized.getEnqueuedAt().toEpochMilli()));
+        return returned != null && returned > 0;
     }
 
     public Optional<QueueEntry> peek() {
@@ -110,8 +272,7 @@ public class AgentQueueService {
 
     public Optional<QueueEntry> remove(String conversationId) {
         validateConversation(conversationId);
-        RLock lock = queueLock();
-        lock.lock();
+        ChatMetrics.LockHandle lock = lockQueue();
         try {
             QueueEntry entry = queueEntries().get(conversationId);
             if (entry != null) {
@@ -129,8 +290,7 @@ public class AgentQueueService {
 
     public void touch(String conversationId) {
         validateConversation(conversationId);
-        RLock lock = queueLock();
-        lock.lock();
+        ChatMetrics.LockHandle lock = lockQueue();
         try {
             QueueEntry existing = queueEntries().get(conversationId);
             if (existing == null) {
@@ -159,8 +319,7 @@ public class AgentQueueService {
         }
         long cutoffScore = Instant.now().minus(ttl).toEpochMilli();
         List<QueueEntry> removed = new ArrayList<>();
-        RLock lock = queueLock();
-        lock.lock();
+        ChatMetrics.LockHandle lock = lockQueue();
         try {
             Collection<String> expiredIds = orderedQueue()
                     .valueRange(Double.NEGATIVE_INFINITY, true, (double) cutoffScore, true);
@@ -187,6 +346,10 @@ public class AgentQueueService {
         return listQueue(0, limit);
     }
 
+    public int size() {
+        return orderedQueue().size();
+    }
+
     public long position(String conversationId) {
         validateConversation(conversationId);
         Integer rank = orderedQueue().rank(conversationId);
@@ -229,9 +392,35 @@ public class AgentQueueService {
     }
 
     private void publishSnapshot() {
-        int limit = Math.max(1, chatProperties.getQueue().getBroadcastLimit());
-        List<QueueEntry> snapshot = listQueue(0, limit);
-        queueEventPublisher.publishSnapshot(QueueSnapshotPayload.builder().entries(snapshot).build());
+        redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE, SNAPSHOT_SCRIPT, RScript.ReturnType.INTEGER, snapshotKeys(), snapshotArguments(null));
+    }
+
+    private List<Object> claimKeys(String conversationId, String agentId) {
+        return List.of(
+                keyFactory.queueKey(),
+                keyFactory.queueEntriesKey(),
+                keyFactory.conversationAssignmentKey(conversationId),
+                keyFactory.agentConversationSetKey(agentId));
+    }
+
+    private String broadcastLimit() {
+        return String.valueOf(Math.max(1, chatProperties.getQueue().getBroadcastLimit()));
+    }
+
+    private static long ttlMillis(Duration ttl) {
+        return ttl != null && !ttl.isNegative() ? ttl.toMillis() : 0;
+    }
+
+    private List<Object> snapshotKeys() {
+        return List.of(keyFactory.queueKey(), keyFactory.queueEntriesKey());
+    }
+
+    private Object[] snapshotArguments(String removedConversationId) {
+        String limit = broadcastLimit();
+        return removedConversationId == null
+                ? new Object[] {keyFactory.queueTopicName(), limit}
+                : new Object[] {keyFactory.queueTopicName(), limit, removedConversationId};
     }
 
     private RScoredSortedSet<String> orderedQueue() {
@@ -242,14 +431,8 @@ public class AgentQueueService {
         return redissonClient.getMap(keyFactory.queueEntriesKey(), entryCodec());
     }
 
-    private RBucket<String> assignmentBucket(String conversationId) {
-        return redissonClient.getBucket(keyFactory.conversationAssignmentKey(conversationId), StringCodec.INSTANCE);
-    }
-
-    private void refreshAssignmentTtl(RBucket<String> bucket, Duration ttl) {
-        if (ttl != null && !ttl.isNegative() && !ttl.isZero()) {
-            bucket.expire(ttl);
-        }
+    private ChatMetrics.LockHandle lockQueue() {
+        return tracing.inSpan("chat.lock.queue", () -> metrics.lock(queueLock(), "queue"));
     }
 
     private RLock queueLock() {
@@ -266,7 +449,8 @@ public class AgentQueueService {
         CLAIMED,
         OWNED,
         MISSING,
-        BUSY
+        BUSY,
+        AGENT_FULL
     }
 
     public record ClaimResult(ClaimStatus status, Optional<QueueEntry> entry) {}
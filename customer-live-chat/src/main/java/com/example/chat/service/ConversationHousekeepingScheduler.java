@@ -4,6 +4,7 @@ import com.example.chat.config.ChatProperties;
 import com.example.chat.domain.ConversationMetadata;
 import com.example.chat.domain.ConversationStatus;
 import com.example.chat.domain.QueueEntry;
+import com.example.chat.observability.ChatMetrics;
 import com.example.chat.service.exception.ServiceException;
 import java.time.Duration;
 import java.time.Instant;
@@ -23,21 +24,32 @@ public class ConversationHousekeepingScheduler {
     private final ConversationRepository conversationRepository;
     private final ConversationService conversationService;
     private final AgentQueueService agentQueueService;
+    private final ChatMetrics metrics;
 
     @Scheduled(fixedDelayString = "#{T(java.time.Duration).parse('${chat.housekeeping.interval:PT1M}').toMillis()}")
     public void enforceLimits() {
-        enforceQueueTtl();
-        enforceConversationTtl();
+        ChatMetrics.HousekeepingCycle cycle = metrics.startHousekeeping();
+        long backlog = enforceQueueTtl() + enforceConversationTtl();
+        cycle.finish(backlog);
+        updateActiveConversations();
     }
 
-    private void enforceQueueTtl() {
+    private void updateActiveConversations() {
+        try {
+            metrics.updateActiveConversations(conversationRepository.countOpenConversations());
+        } catch (Exception ex) {
+            log.warn("Failed to count open conversations", ex);
+        }
+    }
+
+    private int enforceQueueTtl() {
         Duration ttl = chatProperties.getQueue().getEntryTtl();
         if (ttl == null || ttl.isNegative() || ttl.isZero()) {
-            return;
+            return 0;
         }
         List<QueueEntry> purged = agentQueueService.purgeOlderThan(ttl);
         if (CollectionUtils.isEmpty(purged)) {
-            return;
+            return 0;
         }
         for (QueueEntry entry : purged) {
             try {
@@ -55,22 +67,23 @@ public class ConversationHousekeepingScheduler {
                 log.warn("Failed to close stale queued conversation {}", entry.getConversationId(), ex);
             }
         }
+        return purged.size();
     }
 
-    private void enforceConversationTtl() {
+    private int enforceConversationTtl() {
         Duration inactivityTimeout = chatProperties.getConversation().getInactivityTimeout();
         Duration maxDuration = chatProperties.getConversation().getMaxDuration();
         Instant now = Instant.now();
         Instant inactivityCutoff = computeCutoff(now, inactivityTimeout);
         Instant maxDurationCutoff = computeCutoff(now, maxDuration);
         if (inactivityCutoff == null && maxDurationCutoff == null) {
-            return;
+            return 0;
         }
 
         List<ConversationMetadata> conversations = conversationRepository.findStaleConversations(
                 inactivityCutoff, maxDurationCutoff);
         if (CollectionUtils.isEmpty(conversations)) {
-            return;
+            return 0;
         }
 
         for (ConversationMetadata conversation : conversations) {
@@ -83,6 +96,7 @@ public class ConversationHousekeepingScheduler {
                 log.warn("Failed to automatically close conversation {}", conversation.getId(), ex);
             }
         }
+        return conversations.size();
     }
 
     private boolean isExceeded(Duration threshold, Instant cutoff, Instant reference) {
@@ -3,27 +3,138 @@ package com.example.chat.service;
 import com.example.chat.domain.ChatMessage;
 import com.example.chat.domain.ConversationMetadata;
 import com.example.chat.domain.ConversationStatus;
+import com.example.chat.domain.QueueEntry;
+import com.example.chat.service.exception.ServiceException;
 import java.time.Instant;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import org.springframework.http.HttpStatus;
 
 public interface ConversationRepository {
 
+    /**
+     * Error code of the {@code CONFLICT} raised when a transition finds the conversation at a newer
+     * version than the one it read; the caller may read again and retry.
+     */
+    String VERSION_CONFLICT = "version_conflict";
+
     void saveConversation(ConversationMetadata conversation);
 
+    /**
+     * Persists the {@code QUEUED} transition of an already stored conversation, logged with the queue
+     * entry it was queued with. Implementations that cannot apply narrow updates fall back to a full
+     * {@link #saveConversation(ConversationMetadata)}.
+     */
+    default void markQueued(ConversationMetadata conversation, QueueEntry entry) {
+        saveConversation(conversation);
+    }
+
+    /**
+     * Persists the {@code ASSIGNED} transition, including the agent and {@code acceptedAt}.
+     */
+    default void markAssigned(ConversationMetadata conversation) {
+        saveConversation(conversation);
+    }
+
+    /**
+     * Persists the {@code CLOSED} transition, including {@code closedAt}, logged with the closure
+     * notice.
+     */
+    default void markClosed(ConversationMetadata conversation, ChatMessage closureNotice) {
+        saveConversation(conversation);
+    }
+
+    /**
+     * Records a message in an open conversation and returns its sequence number: moves
+     * {@code updatedAt} to the message's timestamp, logs the message so the message list can be
+     * rebuilt from the log, and appends it. Concurrent messages and transitions of the conversation
+     * do not fail each other; a message after the close is refused with {@code GONE}.
+     */
+    default long recordMessage(ChatMessage message) {
+        ConversationMetadata conversation = getConversation(message.getConversationId())
+                .orElseThrow(() -> new ServiceException(HttpStatus.NOT_FOUND, "Conversation not found"));
+        if (conversation.getStatus() == ConversationStatus.CLOSED) {
+            throw new ServiceException(HttpStatus.GONE, "Conversation closed");
+        }
+        conversation.setUpdatedAt(message.getTimestamp());
+        touch(conversation);
+        return appendMessage(message);
+    }
+
+    /**
+     * Persists a new {@code updatedAt} without touching any other column.
+     */
+    default void touch(ConversationMetadata conversation) {
+        saveConversation(conversation);
+    }
+
     Optional<ConversationMetadata> getConversation(String conversationId);
 
+    /**
+     * The conversation rebuilt from its event log rather than read from the stored projection.
+     */
+    default Optional<ConversationMetadata> replayConversation(String conversationId) {
+        return getConversation(conversationId);
+    }
+
+    /**
+     * The queue entry of the conversation's last {@code QUEUED} transition.
+     */
+    default Optional<QueueEntry> lastQueueEntry(String conversationId) {
+        return Optional.empty();
+    }
+
+    /**
+     * Writes the conversation's messages back from its event log, replacing the message list if
+     * {@code replace} is set and otherwise only if it is missing. Returns the number of messages
+     * written, or {@code -1} if nothing was written.
+     */
+    default int restoreMessages(String conversationId, boolean replace) {
+        return -1;
+    }
+
     void deleteConversation(String conversationId);
 
-    void appendMessage(ChatMessage message);
+    /**
+     * Appends the message and returns its sequence number. The append and the length read are
+     * atomic, so concurrent appends get distinct, gap-free sequence numbers.
+     */
+    long appendMessage(ChatMessage message);
 
     List<ChatMessage> getMessages(String conversationId, int limit);
 
+    /**
+     * Up to {@code limit} messages with a sequence number greater than {@code afterSequence}, oldest
+     * first; {@code -1} starts at the first message.
+     */
+    List<ChatMessage> getMessagesAfter(String conversationId, long afterSequence, int limit);
+
     List<ConversationMetadata> findAll();
 
     List<ConversationMetadata> findForAgent(String agentId, Set<ConversationStatus> statuses);
 
+    /**
+     * The newest conversation of the customer that is not closed yet.
+     */
+    default Optional<ConversationMetadata> findOpenForCustomer(String customerId) {
+        return findAll().stream()
+                .filter(conversation -> conversation.getStatus() != ConversationStatus.CLOSED)
+                .filter(conversation -> conversation.getCustomer() != null
+                        && customerId.equals(conversation.getCustomer().getId()))
+                .max(Comparator.comparing(ConversationMetadata::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
     List<ConversationMetadata> findStaleConversations(Instant inactivityCutoff, Instant maxDurationCutoff);
+
+    /**
+     * Number of conversations that are not closed yet.
+     */
+    default long countOpenConversations() {
+        return findAll().stream()
+                .filter(conversation -> conversation.getStatus() != ConversationStatus.CLOSED)
+                .count();
+    }
 }
 
@@ -1,5 +1,7 @@
 package com.example.chat.service;
 
+import com.example.chat.cluster.ConversationMutation;
+import com.example.chat.cluster.ConversationWriteRouter;
 import com.example.chat.config.ChatProperties;
 import com.example.chat.domain.ChatMessage;
 import com.example.chat.domain.ChatMessageType;
@@ -12,7 +14,10 @@ import com.example.chat.event.ChatEvent;
 import com.example.chat.event.ChatEventPublisher;
 import com.example.chat.event.ChatEventType;
 import com.example.chat.event.ChatMessageEvent;
+import com.example.chat.observability.ChatMetrics;
+import com.example.chat.observability.ChatTracing;
 import com.example.chat.service.exception.ServiceException;
+import com.example.chat.service.id.IdGenerator;
 import java.time.Instant;
 import java.time.Duration;
 import java.util.HashMap;
@@ -20,15 +25,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
-import org.redisson.api.RBucket;
-import org.redisson.api.RLock;
+import org.redisson.api.RBatch;
 import org.redisson.api.RedissonClient;
 import org.redisson.client.codec.StringCodec;
 
@@ -44,76 +52,119 @@ public class ConversationService {
     private final ChatProperties chatProperties;
     private final RedisKeyFactory keyFactory;
     private final RedissonClient redissonClient;
+    private final IdGenerator idGenerator;
+    private final ChatMetrics metrics;
+    private final ChatTracing tracing;
+    private final ConversationWriteRouter writeRouter;
 
     @Transactional
     public ConversationMetadata startConversation(ChatParticipant customer, Map<String, Object> attributes) {
-        Instant now = Instant.now();
-        ConversationMetadata conversation = ConversationMetadata.builder()
-                .id(UUID.randomUUID().toString())
-                .customer(customer)
-                .status(ConversationStatus.OPEN)
-                .attributes(attributes)
-                .createdAt(now)
-                .updatedAt(now)
-                .build();
+        return observe("start", () -> {
+            Instant now = Instant.now();
+            ConversationMetadata conversation = ConversationMetadata.builder()
+                    .id(idGenerator.nextId())
+                    .customer(customer)
+                    .status(ConversationStatus.OPEN)
+                    .attributes(attributes)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build();
 
-        conversationRepository.saveConversation(conversation);
-        presenceService.markPresent(customer.getId());
+            conversationRepository.saveConversation(conversation);
+            presenceService.markPresent(customer.getId());
 
-        eventPublisher.publishLifecycleEvent(ChatEvent.builder()
-                .eventId(UUID.randomUUID().toString())
-                .conversationId(conversation.getId())
-                .type(ChatEventType.CONVERSATION_STARTED)
-                .occurredAt(now)
-                .payload(Map.of("customerId", customer.getId()))
-                .build());
+            eventPublisher.publishLifecycleEvent(ChatEvent.builder()
+                    .eventId(idGenerator.nextId())
+                    .conversationId(conversation.getId())
+                    .type(ChatEventType.CONVERSATION_STARTED)
+                    .occurredAt(now)
+                    .payload(Map.of("customerId", customer.getId()))
+                    .build());
 
-        return conversation;
+            return conversation;
+        });
     }
 
+    /**
+     * The customer's open conversation, or a new one if they have none. Reloads and extra tabs thus
+     * attach to the chat already in progress instead of leaving orphans for housekeeping to close.
+     * Two connects racing within the same instant may still both start one.
+     */
     @Transactional
+    public ConversationMetadata resumeOrStartConversation(ChatParticipant customer, Map<String, Object> attributes) {
+        if (customer != null && chatProperties.getConversation().isReuseOpen()) {
+            Optional<ConversationMetadata> open =
+                    observe("find_open", () -> conversationRepository.findOpenForCustomer(customer.getId()));
+            if (open.isPresent()) {
+                return open.get();
+            }
+        }
+        return startConversation(customer, attributes);
+    }
+
+    /**
+     * Puts the conversation in the agent queue. The {@code QUEUED} write is version-checked; when
+     * another node changed the conversation since {@code conversation} was read, the transition is
+     * retried on a fresh copy.
+     */
     public void queueForAgent(ConversationMetadata conversation, String channel) {
         if (conversation == null || !StringUtils.hasText(conversation.getId())) {
             throw new ServiceException(HttpStatus.BAD_REQUEST, "Conversation id is required");
         }
-        withConversationLock(conversation.getId(), () -> {
-            Instant now = Instant.now();
-            conversation.setStatus(ConversationStatus.QUEUED);
-            conversation.setUpdatedAt(now);
-            ChatParticipant previousAgent = conversation.getAgent();
-            if (previousAgent != null) {
-                agentAssignmentService.removeAssignment(previousAgent.getId(), conversation.getId());
-                conversation.setAgent(null);
+        ConversationMutation mutation = ConversationMutation.queue(conversation.getId(), channel);
+        routed(mutation, ConversationMetadata.class, "queue", () -> retryOnConflict("queue", conversation.getId(), attempt -> {
+            ConversationMetadata current = attempt == 1 ? conversation : loadConversation(conversation.getId());
+            if (current.getStatus() == ConversationStatus.CLOSED) {
+                throw new ServiceException(HttpStatus.GONE, "Conversation closed");
             }
-            conversationRepository.saveConversation(conversation);
-            releaseAssignment(conversation.getId());
-
+            Instant now = Instant.now();
+            current.setStatus(ConversationStatus.QUEUED);
+            current.setUpdatedAt(now);
+            ChatParticipant previousAgent = current.getAgent();
+            current.setAgent(null);
             QueueEntry entry = QueueEntry.builder()
-                    .conversationId(conversation.getId())
-                    .customerId(conversation.getCustomer().getId())
-                    .customerName(conversation.getCustomer().getDisplayName())
-                    .customerPhone(resolveCustomerPhone(conversation))
+                    .conversationId(current.getId())
+                    .customerId(current.getCustomer().getId())
+                    .customerName(current.getCustomer().getDisplayName())
+                    .customerPhone(resolveCustomerPhone(current))
                     .channel(channel)
                     .enqueuedAt(now)
                     .build();
-            queueService.enqueue(entry);
+            conversationRepository.markQueued(current, entry);
+
+            RBatch batch = redissonClient.createBatch();
+            if (previousAgent != null) {
+                agentAssignmentService.removeAssignment(batch, previousAgent.getId(), current.getId());
+            }
+            releaseAssignment(batch, current.getId());
+            queueService.enqueue(batch, entry);
+            CompletionStage<Long> position = queueService.position(batch, current.getId());
+            batch.execute();
 
             eventPublisher.publishLifecycleEvent(ChatEvent.builder()
-                    .eventId(UUID.randomUUID().toString())
-                    .conversationId(conversation.getId())
+                    .eventId(idGenerator.nextId())
+                    .conversationId(current.getId())
                     .type(ChatEventType.CONVERSATION_QUEUED)
                     .occurredAt(now)
-                    .payload(Map.of("queuePosition", queueService.position(conversation.getId())))
+                    .payload(Map.of("queuePosition", position.toCompletableFuture().join()))
                     .build());
-        });
+            return current;
+        }));
     }
 
     public Optional<ConversationMetadata> getConversation(String conversationId) {
-        return conversationRepository.getConversation(conversationId);
+        return observe("get", () -> conversationRepository.getConversation(conversationId));
     }
 
     public List<ChatMessage> getRecentMessages(String conversationId, int limit) {
-        return conversationRepository.getMessages(conversationId, limit);
+        return observe("recent_messages", () -> conversationRepository.getMessages(conversationId, limit));
+    }
+
+    /**
+     * Messages after {@code afterSequence}, oldest first; used to catch a client up after a reconnect.
+     */
+    public List<ChatMessage> getMessagesAfter(String conversationId, long afterSequence, int limit) {
+        return observe("messages_after", () -> conversationRepository.getMessagesAfter(conversationId, afterSequence, limit));
     }
 
     public List<ConversationMetadata> getConversationsForAgent(String agentId, Set<ConversationStatus> statuses) {
@@ -123,11 +174,9 @@ public class ConversationService {
 
         Set<ConversationStatus> filters = statuses == null || statuses.isEmpty() ? Set.of() : Set.copyOf(statuses);
 
-        return conversationRepository.findAll().stream()
-                .filter(conversation -> conversation.getAgent() != null)
-                .filter(conversation -> agentId.equals(conversation.getAgent().getId()))
-                .filter(conversation ->
-                        filters.isEmpty() || filters.contains(conversation.getStatus()))
+        List<ConversationMetadata> conversations = observe(
+                "agent_conversations", () -> conversationRepository.findForAgent(agentId, filters));
+        return conversations.stream()
                 .sorted((a, b) -> {
                     Instant left = a.getUpdatedAt() != null ? a.getUpdatedAt() : a.getCreatedAt();
                     Instant right = b.getUpdatedAt() != null ? b.getUpdatedAt() : b.getCreatedAt();
@@ -145,110 +194,114 @@ public class ConversationService {
                 .toList();
     }
 
-    @Transactional
+    /**
+     * Assigns a queued conversation to {@code agent} without locks. The Redis claim picks a single
+     * winner among agents accepting at once; the {@code ASSIGNED} write is version-checked and
+     * retried from a fresh read when the conversation changed in between. If it still conflicts
+     * after the last attempt, the claim is handed back so the conversation stays in the queue.
+     */
     public ConversationMetadata acceptConversation(ChatParticipant agent, String conversationId) {
-        return withConversationLock(conversationId, () -> {
-            ConversationMetadata conversation = conversationRepository
-                    .getConversation(conversationId)
-                    .orElseThrow(() -> new ServiceException(HttpStatus.NOT_FOUND, "Conversation not found"));
-
-            if (conversation.getStatus() == ConversationStatus.CLOSED) {
-                throw new ServiceException(HttpStatus.CONFLICT, "Conversation already closed");
-            }
-
-            if (conversation.getAgent() != null
-                    && !agent.getId().equals(conversation.getAgent().getId())) {
-                throw new ServiceException(HttpStatus.CONFLICT, "Conversation already assigned to another agent.");
-            }
-
-            boolean alreadyAssignedToAgent = conversation.getAgent() != null
-                    && agent.getId().equals(conversation.getAgent().getId());
-
-            if (alreadyAssignedToAgent && conversation.getStatus() == ConversationStatus.ASSIGNED) {
-                queueService.remove(conversationId);
-                extendAssignment(conversationId);
-                agentAssignmentService.registerAssignment(agent.getId(), conversationId);
-                return conversation;
+        requireConversationId(conversationId);
+        ConversationMutation mutation = ConversationMutation.accept(conversationId, agent);
+        return routed(mutation, ConversationMetadata.class, "accept", () -> {
+            AtomicReference<QueueEntry> claimed = new AtomicReference<>();
+            try {
+                return retryOnConflict("accept", conversationId, attempt -> acceptOnce(agent, conversationId, attempt > 1, claimed));
+            } catch (ServiceException ex) {
+                if (claimed.get() != null && isVersionConflict(ex)) {
+                    queueService.returnClaim(agent.getId(), claimed.get());
+                }
+                throw ex;
             }
+        });
+    }
 
-            if (!alreadyAssignedToAgent && !agentAssignmentService.canAssign(agent.getId())) {
-                throw new ServiceException(HttpStatus.TOO_MANY_REQUESTS, "Agent reached maximum concurrent conversations");
+    private ConversationMetadata acceptOnce(
+            ChatParticipant agent, String conversationId, boolean retry, AtomicReference<QueueEntry> claimed) {
+        ConversationMetadata conversation = loadConversation(conversationId);
+        boolean assignedToAgent = conversation.getAgent() != null && agent.getId().equals(conversation.getAgent().getId());
+
+        if (conversation.getStatus() == ConversationStatus.CLOSED) {
+            RBatch batch = redissonClient.createBatch();
+            queueService.remove(batch, conversationId);
+            releaseAssignment(batch, conversationId);
+            if (retry) {
+                // closed after an earlier attempt of ours claimed it
+                agentAssignmentService.removeAssignment(batch, agent.getId(), conversationId);
             }
+            batch.execute();
+            throw new ServiceException(HttpStatus.CONFLICT, "Conversation already closed");
+        }
 
-            if (conversation.getStatus() != ConversationStatus.QUEUED) {
-                queueService.remove(conversationId);
-                releaseAssignment(conversationId);
-                throw new ServiceException(HttpStatus.GONE, "Conversation is no longer available to accept.");
+        if (conversation.getAgent() != null && !assignedToAgent) {
+            if (retry) {
+                agentAssignmentService.removeAssignment(agent.getId(), conversationId);
             }
+            throw new ServiceException(HttpStatus.CONFLICT, "Conversation already assigned to another agent.");
+        }
 
-            AgentQueueService.ClaimResult claimResult = queueService.claimForAgent(
-                    conversationId, agent.getId(), chatProperties.getRedis().getConversationTtl());
-            AgentQueueService.ClaimStatus claimStatus = claimResult.status();
-
-            if (claimStatus == AgentQueueService.ClaimStatus.BUSY) {
-                queueService.remove(conversationId);
-                throw new ServiceException(HttpStatus.CONFLICT, "Conversation already assigned to another agent.");
-            }
+        if (assignedToAgent && conversation.getStatus() == ConversationStatus.ASSIGNED) {
+            RBatch batch = redissonClient.createBatch();
+            queueService.remove(batch, conversationId);
+            extendAssignment(batch, conversationId);
+            agentAssignmentService.registerAssignment(batch, agent.getId(), conversationId);
+            batch.execute();
+            return conversation;
+        }
 
-            if (claimStatus == AgentQueueService.ClaimStatus.MISSING) {
-                queueService.remove(conversationId);
-                releaseAssignment(conversationId);
-                throw new ServiceException(HttpStatus.GONE, "Conversation is no longer available to accept.");
-            }
+        if (conversation.getStatus() != ConversationStatus.QUEUED) {
+            throw new ServiceException(HttpStatus.GONE, "Conversation is no longer available to accept.");
+        }
 
-            if (claimStatus == AgentQueueService.ClaimStatus.OWNED) {
-                extendAssignment(conversationId);
-                agentAssignmentService.registerAssignment(agent.getId(), conversationId);
-                if (conversation.getAgent() == null) {
-                    conversation.setAgent(agent);
-                }
-                if (conversation.getStatus() != ConversationStatus.ASSIGNED) {
-                    conversation.setStatus(ConversationStatus.ASSIGNED);
-                    conversation.setUpdatedAt(Instant.now());
-                    if (conversation.getAcceptedAt() == null) {
-                        conversation.setAcceptedAt(Instant.now());
-                    }
-                    conversationRepository.saveConversation(conversation);
-                }
-                return conversation;
+        AgentQueueService.ClaimResult claimResult = queueService.claimForAgent(
+                conversationId,
+                agent.getId(),
+                chatProperties.getRedis().getConversationTtl(),
+                chatProperties.getQueue().getMaxConcurrentByAgent());
+        switch (claimResult.status()) {
+            case BUSY -> throw new ServiceException(HttpStatus.CONFLICT, "Conversation already assigned to another agent.");
+            case MISSING -> throw new ServiceException(HttpStatus.GONE, "Conversation is no longer available to accept.");
+            case AGENT_FULL -> throw new ServiceException(
+                    HttpStatus.TOO_MANY_REQUESTS, "Agent reached maximum concurrent conversations");
+            case CLAIMED -> claimed.set(claimResult.entry().orElse(null));
+            case OWNED -> {
+                // claimed by an earlier attempt whose write lost the version check
             }
+        }
+        // the claim registered it with the agent; if a close wins the race, the retry that sees it removes it again
 
-            Instant now = Instant.now();
-            conversation.setAgent(agent);
-            conversation.setStatus(ConversationStatus.ASSIGNED);
+        Instant now = Instant.now();
+        conversation.setAgent(agent);
+        conversation.setStatus(ConversationStatus.ASSIGNED);
+        conversation.setUpdatedAt(now);
+        if (conversation.getAcceptedAt() == null) {
             conversation.setAcceptedAt(now);
-            conversation.setUpdatedAt(now);
-
-            conversationRepository.saveConversation(conversation);
-            agentAssignmentService.registerAssignment(agent.getId(), conversationId);
+        }
+        conversationRepository.markAssigned(conversation);
 
-            eventPublisher.publishLifecycleEvent(ChatEvent.builder()
-                    .eventId(UUID.randomUUID().toString())
-                    .conversationId(conversationId)
-                    .type(ChatEventType.CONVERSATION_ACCEPTED)
-                    .occurredAt(conversation.getAcceptedAt())
-                    .payload(Map.of("agentId", agent.getId()))
-                    .build());
+        eventPublisher.publishLifecycleEvent(ChatEvent.builder()
+                .eventId(idGenerator.nextId())
+                .conversationId(conversationId)
+                .type(ChatEventType.CONVERSATION_ACCEPTED)
+                .occurredAt(conversation.getAcceptedAt())
+                .payload(Map.of("agentId", agent.getId()))
+                .build());
 
-            return conversation;
-        });
+        return conversation;
     }
 
-    @Transactional
+    /**
+     * Appends a message. It does not change the conversation's version, so messages never conflict
+     * with each other or with accept and close; the repository orders them per conversation and
+     * numbers them in that order. A message that comes after the close is turned away.
+     */
     public ChatMessage sendMessage(String conversationId, ChatParticipant sender, String content, ChatMessageType type) {
-        return withConversationLock(conversationId, () -> {
-            ConversationMetadata conversation = conversationRepository
-                    .getConversation(conversationId)
-                    .orElseThrow(() -> new ServiceException(HttpStatus.NOT_FOUND, "Conversation not found"));
-
-            if (conversation.getStatus() == ConversationStatus.CLOSED) {
-                throw new ServiceException(HttpStatus.GONE, "Conversation closed");
-            }
-
+        requireConversationId(conversationId);
+        ConversationMutation mutation = ConversationMutation.sendMessage(conversationId, sender, content, type);
+        return routed(mutation, ChatMessage.class, "send_message", () -> {
             Instant now = Instant.now();
-
             ChatMessage message = ChatMessage.builder()
-                    .id(UUID.randomUUID().toString())
+                    .id(idGenerator.nextId())
                     .conversationId(conversationId)
                     .sender(sender)
                     .type(type)
@@ -256,21 +309,19 @@ public class ConversationService {
                     .timestamp(now)
                     .build();
 
-            conversation.setUpdatedAt(now);
-            conversationRepository.saveConversation(conversation);
-            conversationRepository.appendMessage(message);
+            message.setSequence(conversationRepository.recordMessage(message));
 
             presenceService.markPresent(sender.getId());
 
             eventPublisher.publishMessageEvent(ChatMessageEvent.builder()
-                    .eventId(UUID.randomUUID().toString())
+                    .eventId(idGenerator.nextId())
                     .conversationId(conversationId)
                     .message(message)
                     .occurredAt(now)
                     .build());
 
             eventPublisher.publishLifecycleEvent(ChatEvent.builder()
-                    .eventId(UUID.randomUUID().toString())
+                    .eventId(idGenerator.nextId())
                     .conversationId(conversationId)
                     .type(ChatEventType.MESSAGE_RECEIVED)
                     .occurredAt(now)
@@ -281,66 +332,46 @@ public class ConversationService {
         });
     }
 
-    @Transactional
+    /**
+     * Closes the conversation. The version-checked {@code CLOSED} write decides between racing
+     * closes, accepts and requeues; only its winner posts the closure notice and releases the queue
+     * entry and assignment. Closing a closed conversation returns it unchanged.
+     */
     public ConversationMetadata closeConversation(String conversationId, ChatParticipant closedBy) {
-        return withConversationLock(conversationId, () -> {
-            ConversationMetadata conversation = conversationRepository
-                    .getConversation(conversationId)
-                    .orElseThrow(() -> new ServiceException(HttpStatus.NOT_FOUND, "Conversation not found"));
-
-            Instant now = Instant.now();
-
-            String closingMessage = resolveClosingMessage(conversation, closedBy);
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("event", "CHAT_CLOSED");
-            if (closedBy != null && closedBy.getType() != null) {
-                metadata.put("closedByType", closedBy.getType().name());
-                if (StringUtils.hasText(closedBy.getDisplayName())) {
-                    metadata.put("closedByDisplayName", closedBy.getDisplayName());
-                }
-            } else if (conversation.getAgent() != null) {
-                metadata.put("closedByType", ParticipantType.AGENT.name());
-                if (StringUtils.hasText(conversation.getAgent().getDisplayName())) {
-                    metadata.put("closedByDisplayName", conversation.getAgent().getDisplayName());
-                }
+        requireConversationId(conversationId);
+        ConversationMutation mutation = ConversationMutation.close(conversationId, closedBy);
+        return routed(mutation, ConversationMetadata.class, "close", () -> retryOnConflict("close", conversationId, attempt -> {
+            ConversationMetadata conversation = loadConversation(conversationId);
+            if (conversation.getStatus() == ConversationStatus.CLOSED) {
+                return conversation;
             }
 
-            ChatMessage closureNotice = ChatMessage.builder()
-                    .id(UUID.randomUUID().toString())
-                    .conversationId(conversationId)
-                    .sender(ChatParticipant.builder()
-                            .id("system")
-                            .type(ParticipantType.SYSTEM)
-                            .displayName("System")
-                            .metadata(Map.of())
-                            .build())
-                    .type(ChatMessageType.SYSTEM)
-                    .content(closingMessage)
-                    .metadata(metadata)
-                    .timestamp(now)
-                    .build();
+            Instant now = Instant.now();
+            conversation.setStatus(ConversationStatus.CLOSED);
+            conversation.setClosedAt(now);
+            conversation.setUpdatedAt(now);
+            ChatMessage closureNotice = closureNotice(conversation, closedBy, now);
+            conversationRepository.markClosed(conversation, closureNotice);
 
-            conversationRepository.appendMessage(closureNotice);
+            closureNotice.setSequence(conversationRepository.appendMessage(closureNotice));
 
             eventPublisher.publishMessageEvent(ChatMessageEvent.builder()
-                    .eventId(UUID.randomUUID().toString())
+                    .eventId(idGenerator.nextId())
                     .conversationId(conversationId)
                     .message(closureNotice)
                     .occurredAt(now)
                     .build());
 
-            conversation.setStatus(ConversationStatus.CLOSED);
-            conversation.setClosedAt(now);
-            conversation.setUpdatedAt(now);
-            conversationRepository.saveConversation(conversation);
-            queueService.remove(conversationId);
+            RBatch batch = redissonClient.createBatch();
+            queueService.remove(batch, conversationId);
             if (conversation.getAgent() != null) {
-                agentAssignmentService.removeAssignment(conversation.getAgent().getId(), conversationId);
+                agentAssignmentService.removeAssignment(batch, conversation.getAgent().getId(), conversationId);
             }
-            releaseAssignment(conversationId);
+            releaseAssignment(batch, conversationId);
+            batch.execute();
 
             eventPublisher.publishLifecycleEvent(ChatEvent.builder()
-                    .eventId(UUID.randomUUID().toString())
+                    .eventId(idGenerator.nextId())
                     .conversationId(conversationId)
                     .type(ChatEventType.CONVERSATION_CLOSED)
                     .occurredAt(conversation.getClosedAt())
@@ -350,9 +381,69 @@ public class ConversationService {
                     .build());
 
             return conversation;
+        }));
+    }
+
+    /**
+     * The conversation as replayed from its event log instead of read from the stored row.
+     */
+    public Optional<ConversationMetadata> replayConversation(String conversationId) {
+        requireConversationId(conversationId);
+        return observe("replay", () -> conversationRepository.replayConversation(conversationId));
+    }
+
+    /**
+     * Rebuilds the conversation's Redis views from its event log after Redis lost them: the message
+     * list is rewritten and a queued conversation missing from the queue is put back with the entry
+     * it was queued with. A message sent while the list is rewritten may show up twice. Returns the
+     * conversation as replayed from the log.
+     */
+    public ConversationMetadata rebuildConversation(String conversationId) {
+        requireConversationId(conversationId);
+        return observe("rebuild", () -> {
+            ConversationMetadata conversation = conversationRepository
+                    .replayConversation(conversationId)
+                    .orElseThrow(() -> new ServiceException(HttpStatus.NOT_FOUND, "Conversation not found"));
+            conversationRepository.restoreMessages(conversationId, true);
+            if (conversation.getStatus() == ConversationStatus.QUEUED && queueService.position(conversationId) < 0) {
+                conversationRepository.lastQueueEntry(conversationId).ifPresent(queueService::enqueue);
+            }
+            return conversation;
         });
     }
 
+    private ChatMessage closureNotice(ConversationMetadata conversation, ChatParticipant closedBy, Instant now) {
+        String closingMessage = resolveClosingMessage(conversation, closedBy);
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("event", "CHAT_CLOSED");
+        if (closedBy != null && closedBy.getType() != null) {
+            metadata.put("closedByType", closedBy.getType().name());
+            if (StringUtils.hasText(closedBy.getDisplayName())) {
+                metadata.put("closedByDisplayName", closedBy.getDisplayName());
+            }
+        } else if (conversation.getAgent() != null) {
+            metadata.put("closedByType", ParticipantType.AGENT.name());
+            if (StringUtils.hasText(conversation.getAgent().getDisplayName())) {
+                metadata.put("closedByDisplayName", conversation.getAgent().getDisplayName());
+            }
+        }
+
+        return ChatMessage.builder()
+                .id(idGenerator.nextId())
+                .conversationId(conversation.getId())
+                .sender(ChatParticipant.builder()
+                        .id("system")
+                        .type(ParticipantType.SYSTEM)
+                        .displayName("System")
+                        .metadata(Map.of())
+                        .build())
+                .type(ChatMessageType.SYSTEM)
+                .content(closingMessage)
+                .metadata(metadata)
+                .timestamp(now)
+                .build();
+    }
+
     private String resolveClosingMessage(ConversationMetadata conversation, ChatParticipant closedBy) {
         if (closedBy != null) {
             if (closedBy.getType() == ParticipantType.AGENT) {
@@ -378,16 +469,15 @@ public class ConversationService {
         return "This conversation has been closed. You can start a new chat anytime you need assistance.";
     }
 
-    private void extendAssignment(String conversationId) {
-        RBucket<String> bucket = assignmentBucket(conversationId);
+    private void extendAssignment(RBatch batch, String conversationId) {
         Duration ttl = chatProperties.getRedis().getConversationTtl();
         if (ttl != null && !ttl.isNegative() && !ttl.isZero()) {
-            bucket.expire(ttl);
+            batch.getBucket(keyFactory.conversationAssignmentKey(conversationId), StringCodec.INSTANCE).expireAsync(ttl);
         }
     }
 
-    private void releaseAssignment(String conversationId) {
-        assignmentBucket(conversationId).delete();
+    private void releaseAssignment(RBatch batch, String conversationId) {
+        batch.getBucket(keyFactory.conversationAssignmentKey(conversationId), StringCodec.INSTANCE).deleteAsync();
     }
 
     private String resolveCustomerPhone(ConversationMetadata conversation) {
@@ -401,32 +491,56 @@ public class ConversationService {
         return null;
     }
 
-    private RBucket<String> assignmentBucket(String conversationId) {
-        return redissonClient.getBucket(keyFactory.conversationAssignmentKey(conversationId), StringCodec.INSTANCE);
+    /**
+     * Runs a read-decide-write transition until its version check passes. After a conflict it waits
+     * a random pause of up to {@code chat.conversation.transition-backoff}, doubled per attempt, so
+     * racing nodes spread out, and runs again from a fresh read; the last conflict is rethrown.
+     */
+    private <T> T retryOnConflict(String operation, String conversationId, IntFunction<T> transition) {
+        ChatProperties.Conversation config = chatProperties.getConversation();
+        int attempts = Math.max(1, config.getTransitionAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transition.apply(attempt);
+            } catch (ServiceException ex) {
+                if (attempt >= attempts || !isVersionConflict(ex)) {
+                    throw ex;
+                }
+                long bound = config.getTransitionBackoff().toNanos() << Math.min(attempt - 1, 10);
+                metrics.recordConflict(operation, conversationId, attempt, () -> {
+                    if (bound > 0) {
+                        LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(bound));
+                    }
+                });
+            }
+        }
+    }
+
+    private static boolean isVersionConflict(ServiceException ex) {
+        return ConversationRepository.VERSION_CONFLICT.equals(ex.getErrorCode());
     }
 
-    private void withConversationLock(String conversationId, Runnable action) {
-        withConversationLock(conversationId, () -> {
-            action.run();
-            return null;
-        });
+    private ConversationMetadata loadConversation(String conversationId) {
+        return conversationRepository
+                .getConversation(conversationId)
+                .orElseThrow(() -> new ServiceException(HttpStatus.NOT_FOUND, "Conversation not found"));
     }
 
-    private <T> T withConversationLock(String conversationId, Supplier<T> supplier) {
+    private void requireConversationId(String conversationId) {
         if (!StringUtils.hasText(conversationId)) {
             throw new ServiceException(HttpStatus.BAD_REQUEST, "Conversation id is required");
         }
-        RLock lock = conversationLock(conversationId);
-        lock.lock();
-        try {
-            return supplier.get();
-        } finally {
-            lock.unlock();
-        }
     }
 
-    private RLock conversationLock(String conversationId) {
-        return redissonClient.getLock(keyFactory.conversationAssignmentLockKey(conversationId));
+    /**
+     * {@code action} observed as {@code operation} on the node that owns the conversation.
+     */
+    private <T> T routed(ConversationMutation mutation, Class<T> resultType, String operation, Supplier<T> action) {
+        return writeRouter.route(mutation, resultType, () -> observe(operation, action));
+    }
+
+    private <T> T observe(String operation, Supplier<T> action) {
+        return tracing.inSpan("chat.conversation." + operation, () -> metrics.recordOperation(operation, action));
     }
 }
 
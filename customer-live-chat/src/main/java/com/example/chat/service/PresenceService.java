@@ -1,41 +1,227 @@
 package com.example.chat.service;
 
 import com.example.chat.config.ChatProperties;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
-import org.redisson.api.RBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.client.protocol.ScoredEntry;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+/**
+ * Tracks who is online in one sorted set scored by last-seen epoch millis, so bulk lookups and
+ * "online since" queries take a single round trip. Participants count as online while their score
+ * is younger than {@code chat.redis.presence-ttl}.
+ *
+ * <p>Heartbeats and session changes are coalesced in memory and flushed every
+ * {@code chat.presence.flush-interval}. Open sessions are reference-counted in a hash across all
+ * nodes: closing one of several sockets keeps the participant online, closing the last one removes
+ * them right away. Counts left behind by a crashed node stop mattering once the heartbeats age out,
+ * and the flush prunes them together with the stale scores.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PresenceService {
 
+    /**
+     * KEYS: online set, session counts. ARGV: prune cutoff, then (id, session delta, last seen,
+     * released) per participant.
+     */
+    private static final String FLUSH_SCRIPT = """
+            for i = 2, #ARGV, 4 do
+                local id, delta, seen = ARGV[i], tonumber(ARGV[i + 1]), tonumber(ARGV[i + 2])
+                local sessions
+                if delta ~= 0 then
+                    sessions = redis.call('hincrby', KEYS[2], id, delta)
+                else
+                    sessions = tonumber(redis.call('hget', KEYS[2], id) or '0')
+                end
+                if ARGV[i + 3] == '1' and sessions <= 0 then
+                    redis.call('hdel', KEYS[2], id)
+                    redis.call('zrem', KEYS[1], id)
+                elseif seen > 0 then
+                    redis.call('zadd', KEYS[1], seen, id)
+                end
+            end
+            local stale = redis.call('zrangebyscore', KEYS[1], '-inf', '(' .. ARGV[1], 'LIMIT', 0, 500)
+            if #stale > 0 then
+                redis.call('zrem', KEYS[1], unpack(stale))
+                redis.call('hdel', KEYS[2], unpack(stale))
+            end
+            return #stale
+            """;
+
+    private static final int FLUSH_CHUNK = 500;
+
     private final RedissonClient redissonClient;
     private final RedisKeyFactory keyFactory;
     private final ChatProperties chatProperties;
 
+    private final Map<String, PresenceUpdate> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Records activity without opening a session, e.g. a message sent over REST.
+     */
     public void markPresent(String participantId) {
-        RBucket<String> bucket = bucket(participantId);
-        bucket.set(Instant.now().toString());
-        bucket.expire(chatProperties.getRedis().getPresenceTtl());
+        record(participantId, new PresenceUpdate(0, System.currentTimeMillis(), false));
+    }
+
+    public void sessionOpened(String participantId) {
+        record(participantId, new PresenceUpdate(1, System.currentTimeMillis(), false));
+    }
+
+    /**
+     * Releases one session; the participant goes offline once no session is left on any node.
+     */
+    public void sessionClosed(String participantId) {
+        record(participantId, new PresenceUpdate(-1, 0, true));
     }
 
     public Optional<Instant> lastSeen(String participantId) {
-        String result = bucket(participantId).get();
-        if (result == null) {
+        PresenceUpdate local = pending.get(participantId);
+        if (local != null && !local.released() && local.lastSeen() > 0) {
+            return Optional.of(Instant.ofEpochMilli(local.lastSeen()));
+        }
+        return online(onlineSet().getScore(participantId));
+    }
+
+    /**
+     * Last-seen time of every online participant among {@code participantIds}; offline ones are
+     * left out.
+     */
+    public Map<String, Instant> lastSeen(Collection<String> participantIds) {
+        List<String> ids = participantIds.stream().filter(StringUtils::hasText).distinct().toList();
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        List<Double> scores = onlineSet().getScore(ids);
+        Map<String, Instant> result = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            PresenceUpdate local = pending.get(id);
+            Double score = local != null && !local.released() && local.lastSeen() > 0
+                    ? Double.valueOf(local.lastSeen())
+                    : scores.get(i);
+            online(score).ifPresent(seen -> result.put(id, seen));
+        }
+        return result;
+    }
+
+    /**
+     * Participants seen at or after {@code since}, oldest first.
+     */
+    public Map<String, Instant> onlineSince(Instant since, int limit) {
+        long from = Math.max(since != null ? since.toEpochMilli() : 0L, onlineCutoff());
+        Collection<ScoredEntry<String>> entries =
+                onlineSet().entryRange(from, true, Double.POSITIVE_INFINITY, true, 0, Math.max(limit, 1));
+        Map<String, Instant> result = new LinkedHashMap<>();
+        for (ScoredEntry<String> entry : entries) {
+            result.put(entry.getValue(), Instant.ofEpochMilli(entry.getScore().longValue()));
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "#{T(java.time.Duration).parse('${chat.presence.flush-interval:PT1S}').toMillis()}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, PresenceUpdate> drained = new LinkedHashMap<>();
+        for (String participantId : pending.keySet()) {
+            PresenceUpdate update = pending.remove(participantId);
+            if (update != null) {
+                drained.put(participantId, update);
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        try {
+            RBatch batch = redissonClient.createBatch();
+            List<Object> keys = List.of(keyFactory.presenceOnlineKey(), keyFactory.presenceSessionsKey());
+            String cutoff = String.valueOf(onlineCutoff());
+            List<Object> arguments = new ArrayList<>();
+            for (Map.Entry<String, PresenceUpdate> entry : drained.entrySet()) {
+                if (arguments.isEmpty()) {
+                    arguments.add(cutoff);
+                }
+                PresenceUpdate update = entry.getValue();
+                arguments.add(entry.getKey());
+                arguments.add(String.valueOf(update.sessions()));
+                arguments.add(String.valueOf(update.lastSeen()));
+                arguments.add(update.released() ? "1" : "0");
+                if (arguments.size() > FLUSH_CHUNK * 4) {
+                    flushChunk(batch, keys, arguments);
+                    arguments.clear();
+                }
+            }
+            if (!arguments.isEmpty()) {
+                flushChunk(batch, keys, arguments);
+            }
+            batch.execute();
+        } catch (RuntimeException ex) {
+            // keep the session counts; updates recorded meanwhile are newer and win
+            drained.forEach((participantId, update) -> pending.merge(participantId, update, (newer, older) -> older.then(newer)));
+            log.warn("Failed to flush presence for {} participants", drained.size(), ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void flushChunk(RBatch batch, List<Object> keys, List<Object> arguments) {
+        batch.getScript(StringCodec.INSTANCE)
+                .evalAsync(RScript.Mode.READ_WRITE, FLUSH_SCRIPT, RScript.ReturnType.INTEGER, keys, arguments.toArray());
+    }
+
+    private void record(String participantId, PresenceUpdate update) {
+        if (StringUtils.hasText(participantId)) {
+            pending.merge(participantId, update, PresenceUpdate::then);
+        }
+    }
+
+    private Optional<Instant> online(Double score) {
+        if (score == null || score.longValue() < onlineCutoff()) {
             return Optional.empty();
         }
-        return Optional.of(Instant.parse(result));
+        return Optional.of(Instant.ofEpochMilli(score.longValue()));
     }
 
-    public void markAbsent(String participantId) {
-        bucket(participantId).delete();
+    private long onlineCutoff() {
+        Duration ttl = chatProperties.getRedis().getPresenceTtl();
+        return System.currentTimeMillis() - ttl.toMillis();
     }
 
-    private RBucket<String> bucket(String participantId) {
-        return redissonClient.getBucket(keyFactory.presenceKey(participantId));
+    private RScoredSortedSet<String> onlineSet() {
+        return redissonClient.getScoredSortedSet(keyFactory.presenceOnlineKey(), StringCodec.INSTANCE);
     }
-}
 
+    /**
+     * Coalesced changes for one participant: net session delta, latest heartbeat (0 if none) and
+     * whether the latest change released a session.
+     */
+    private record PresenceUpdate(int sessions, long lastSeen, boolean released) {
+
+        PresenceUpdate then(PresenceUpdate next) {
+            return new PresenceUpdate(sessions + next.sessions, Math.max(lastSeen, next.lastSeen), next.released);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.chat.service;
 
+import com.corundumstudio.socketio.SocketIOClient;
 import com.corundumstudio.socketio.SocketIOServer;
 import com.example.chat.dto.QueueSnapshotPayload;
+import com.example.chat.observability.ChatMetrics;
+import com.example.chat.observability.ChatTracing;
+import com.example.chat.websocket.SocketOutboundBuffers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -23,6 +27,9 @@ public class QueueEventSubscriber {
     private final RedisKeyFactory keyFactory;
     private final SocketIOServer socketIOServer;
     private final ObjectMapper objectMapper;
+    private final ChatMetrics metrics;
+    private final ChatTracing tracing;
+    private final SocketOutboundBuffers outboundBuffers;
 
     private TypedJsonJacksonCodec snapshotCodec;
     private RTopic queueTopic;
@@ -41,11 +48,18 @@ public class QueueEventSubscriber {
         }
     }
 
+    /**
+     * Sends the snapshot to every queue subscriber; a subscriber that is behind only gets the newest.
+     */
     public void broadcast(List<?> entries) {
         if (entries == null) {
             return;
         }
-        socketIOServer.getRoomOperations(QUEUE_ROOM).sendEvent(QUEUE_EVENT, entries);
+        tracing.inSpan("chat.socket.fanout", () -> metrics.recordFanout(QUEUE_EVENT, QUEUE_ROOM, () -> {
+            for (SocketIOClient client : socketIOServer.getRoomOperations(QUEUE_ROOM).getClients()) {
+                outboundBuffers.sendLatest(client, QUEUE_EVENT, entries);
+            }
+        }));
     }
 
     private TypedJsonJacksonCodec snapshotCodec() {
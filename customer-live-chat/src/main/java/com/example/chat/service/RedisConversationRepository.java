@@ -4,10 +4,12 @@ import com.example.chat.config.ChatProperties;
 import com.example.chat.domain.ChatMessage;
 import com.example.chat.domain.ConversationMetadata;
 import com.example.chat.domain.ConversationStatus;
+import com.example.chat.observability.SaveConversationEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -40,9 +42,12 @@ public class RedisConversationRepository implements ConversationRepository {
 
     @Override
     public void saveConversation(ConversationMetadata conversation) {
+        SaveConversationEvent event = new SaveConversationEvent();
+        event.begin();
         String key = keyFactory.conversationKey(conversation.getId());
         redisTemplate.opsForValue()
                 .set(key, writeAsJson(conversation), ttl().toMillis(), TimeUnit.MILLISECONDS);
+        event.finish(conversation);
     }
 
     @Override
@@ -59,23 +64,33 @@ public class RedisConversationRepository implements ConversationRepository {
     }
 
     @Override
-    public void appendMessage(ChatMessage message) {
+    public long appendMessage(ChatMessage message) {
         String key = keyFactory.messagesKey(message.getConversationId());
-        redisTemplate.opsForList().rightPush(key, writeAsJson(message));
+        Long size = redisTemplate.opsForList().rightPush(key, writeAsJson(message));
         redisTemplate.expire(keyFactory.conversationKey(message.getConversationId()), ttl());
         redisTemplate.expire(key, ttl());
+        return size != null ? size - 1 : -1;
     }
 
     @Override
     public List<ChatMessage> getMessages(String conversationId, int limit) {
         String key = keyFactory.messagesKey(conversationId);
-        List<Object> range = redisTemplate.opsForList().range(key, -limit, -1);
-        if (range == null) {
+        Long size = redisTemplate.opsForList().size(key);
+        if (size == null || size == 0 || limit <= 0) {
             return List.of();
         }
-        return range.stream()
-                .flatMap(this::readMessage)
-                .toList();
+        long from = Math.max(0, size - limit);
+        return readMessages(redisTemplate.opsForList().range(key, from, size - 1), from);
+    }
+
+    @Override
+    public List<ChatMessage> getMessagesAfter(String conversationId, long afterSequence, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        long from = Math.max(0, afterSequence + 1);
+        List<Object> range = redisTemplate.opsForList().range(keyFactory.messagesKey(conversationId), from, from + limit - 1);
+        return readMessages(range, from);
     }
 
     @Override
@@ -150,6 +165,21 @@ public class RedisConversationRepository implements ConversationRepository {
         return Optional.empty();
     }
 
+    private List<ChatMessage> readMessages(List<Object> range, long firstSequence) {
+        if (range == null) {
+            return List.of();
+        }
+        List<ChatMessage> messages = new ArrayList<>(range.size());
+        for (int i = 0; i < range.size(); i++) {
+            long sequence = firstSequence + i;
+            readMessage(range.get(i)).forEach(message -> {
+                message.setSequence(sequence);
+                messages.add(message);
+            });
+        }
+        return messages;
+    }
+
     private Stream<ChatMessage> readMessage(Object value) {
         if (value instanceof ChatMessage message) {
             return Stream.of(message);
@@ -53,19 +53,50 @@ public class RedisKeyFactory {
     }
 
     public String agentConversationSetKey(String agentId) {
-        return "%s:agent:%s:conversations".formatted(prefix(), agentId);
+        // not ":conversations": that set held codec-encoded members the claim script cannot match
+        return "%s:agent:%s:assigned".formatted(prefix(), agentId);
     }
 
-    public String socketSessionMapKey() {
-        return "%s:socket:sessions".formatted(prefix());
+    /**
+     * Pattern of the agent conversation sets written before {@link #agentConversationSetKey} moved to
+     * {@code :assigned}; see {@link AgentAssignmentService#migrateLegacyAssignments()}.
+     */
+    public String legacyAgentConversationSetPattern() {
+        return "%s:agent:*:conversations".formatted(prefix());
+    }
+
+    /**
+     * The agent id of a key matching {@link #legacyAgentConversationSetPattern()}.
+     */
+    public String agentIdOfLegacyConversationSetKey(String key) {
+        String head = "%s:agent:".formatted(prefix());
+        return key.substring(head.length(), key.length() - ":conversations".length());
+    }
+
+    /**
+     * Sorted set of cluster member ids scored by the expiry of their membership lease.
+     */
+    public String clusterMembersKey() {
+        return "%s:cluster:members".formatted(prefix());
+    }
+
+    public String clusterAddressesKey() {
+        return "%s:cluster:addresses".formatted(prefix());
     }
 
     public String conversationAssignmentLockKey(String conversationId) {
         return "%s:conversation:%s:lock".formatted(prefix(), conversationId);
     }
 
-    public String presenceKey(String participantId) {
-        return "%s:presence:%s".formatted(prefix(), participantId);
+    public String presenceOnlineKey() {
+        return "%s:presence:online".formatted(prefix());
+    }
+
+    public String presenceSessionsKey() {
+        return "%s:presence:sessions".formatted(prefix());
     }
-}
 
+    public String rateLimitKey(String bucketKey) {
+        return "%s:ratelimit:%s".formatted(prefix(), bucketKey);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.chat.service.id;
+
+/**
+ * Source of identifiers for conversations, messages and events. Host applications can replace the
+ * default bean to plug in their own format.
+ */
+public interface IdGenerator {
+
+    String nextId();
+}
@@ -0,0 +1,15 @@
+package com.example.chat.service.id;
+
+import java.util.UUID;
+
+/**
+ * Random (version 4) UUIDs backed by {@link java.security.SecureRandom}. Kept for deployments that
+ * must not leak creation time through identifiers.
+ */
+public class RandomUuidIdGenerator implements IdGenerator {
+
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -8,7 +8,16 @@ public class SessionBinding implements Serializable {
 
     public enum Scope {
         CONVERSATION,
-        QUEUE
+        QUEUE,
+        /**
+         * One agent connection that joins and leaves conversation rooms on demand and also receives
+         * the queue stream.
+         */
+        AGENT,
+        /**
+         * Read-only operations dashboard; receives the analytics snapshots and holds no presence.
+         */
+        SUPERVISOR
     }
 
     private String sessionId;
@@ -44,6 +53,11 @@ public class SessionBinding implements Serializable {
         return new SessionBinding(sessionId, Scope.QUEUE, participant, null, agentId, Instant.now());
     }
 
+    public static SessionBinding agent(String sessionId, ChatParticipant participant) {
+        String agentId = participant != null ? participant.getId() : null;
+        return new SessionBinding(sessionId, Scope.AGENT, participant, null, agentId, Instant.now());
+    }
+
     public String getSessionId() {
         return sessionId;
     }
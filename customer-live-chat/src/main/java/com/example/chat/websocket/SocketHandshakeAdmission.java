@@ -0,0 +1,152 @@
+package com.example.chat.websocket;
+
+import com.example.chat.config.ChatProperties;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs socket handshakes off the Netty event loop and limits how fast they start. Handshakes up to
+ * {@code chat.socketio.handshake-burst} start right away and then at
+ * {@code chat.socketio.handshake-rate} per second; above that they wait for their turn, up to
+ * {@code handshake-max-queue-wait}. Handshakes that would wait longer, or arrive while
+ * {@code handshake-max-pending} are already in flight, are shed with a retry-after so a reconnect
+ * storm after a deploy spreads out instead of piling onto Redis and PostgreSQL.
+ *
+ * <p>Handshakes and their {@link #lookup}s run on virtual threads, so blocking Redis and JDBC calls
+ * park cheaply and independent lookups can run side by side.
+ */
+@Component
+public class SocketHandshakeAdmission {
+
+    private final ChatProperties chatProperties;
+    private final MeterRegistry registry;
+    private final Bucket bucket;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("socket-handshake-", 0).factory());
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "socket-handshake-admission");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SocketHandshakeAdmission(ChatProperties chatProperties, MeterRegistry registry) {
+        this.chatProperties = chatProperties;
+        this.registry = registry;
+        ChatProperties.SocketIo config = chatProperties.getSocketio();
+        this.bucket = Bucket.builder()
+                .addLimit(Bandwidth.classic(
+                        Math.max(config.getHandshakeBurst(), 1),
+                        Refill.greedy(Math.max(config.getHandshakeRate(), 1), Duration.ofSeconds(1))))
+                .build();
+        Gauge.builder("chat.socket.handshake.pending", pending, AtomicInteger::get)
+                .description("Socket handshakes admitted on this node that have not finished yet")
+                .register(registry);
+    }
+
+    /**
+     * Starts {@code handshake} now or once the rate allows. When it is shed instead, right away or
+     * because its turn never came, it never runs and {@code shed} gets the retry-after in millis.
+     */
+    public Decision admit(Runnable handshake, LongConsumer shed) {
+        ChatProperties.SocketIo config = chatProperties.getSocketio();
+        if (pending.incrementAndGet() > config.getHandshakeMaxPending()) {
+            pending.decrementAndGet();
+            return shed(config.getHandshakeMaxQueueWait().toMillis(), shed);
+        }
+        // reserves a token that frees up within the max wait, so queued handshakes keep their order
+        CompletableFuture<Boolean> turn = bucket.asScheduler().tryConsume(1, config.getHandshakeMaxQueueWait(), scheduler);
+        if (turn.isDone() && !Boolean.TRUE.equals(turn.getNow(false))) {
+            pending.decrementAndGet();
+            return shed(retryAfterMillis(), shed);
+        }
+        Decision decision = turn.isDone() ? Decision.ADMITTED : Decision.QUEUED;
+        count(decision.outcome().name().toLowerCase(Locale.ROOT));
+        turn.whenComplete((admitted, ex) -> {
+            if (admitted == Boolean.TRUE && ex == null) {
+                try {
+                    executor.execute(() -> {
+                        try {
+                            handshake.run();
+                        } finally {
+                            pending.decrementAndGet();
+                        }
+                    });
+                    return;
+                } catch (RejectedExecutionException rejected) {
+                    // shutting down; fall through and shed
+                }
+            }
+            // the turn was refused, or the scheduler failed or shut down while the handshake waited
+            pending.decrementAndGet();
+            shed(retryAfterMillis(), shed);
+        });
+        return decision;
+    }
+
+    /**
+     * Runs a lookup of an admitted handshake on its own virtual thread, so lookups that do not
+     * depend on each other overlap instead of adding up.
+     */
+    public <T> CompletableFuture<T> lookup(Supplier<T> lookup) {
+        return CompletableFuture.supplyAsync(lookup, executor);
+    }
+
+    private Decision shed(long retryAfterMillis, LongConsumer shed) {
+        count("shed");
+        Decision decision = new Decision(Outcome.SHED, Math.max(retryAfterMillis, 1));
+        shed.accept(decision.retryAfterMillis());
+        return decision;
+    }
+
+    private long retryAfterMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(bucket.estimateAbilityToConsume(1).getNanosToWaitForRefill());
+    }
+
+    private void count(String outcome) {
+        Counter.builder("chat.socket.handshake.admission")
+                .description("Socket handshakes by admission outcome")
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdown();
+    }
+
+    public record Decision(Outcome outcome, long retryAfterMillis) {
+
+        static final Decision ADMITTED = new Decision(Outcome.ADMITTED, 0);
+        static final Decision QUEUED = new Decision(Outcome.QUEUED, 0);
+
+        public boolean shed() {
+            return outcome == Outcome.SHED;
+        }
+    }
+
+    public enum Outcome {
+        ADMITTED,
+        QUEUED,
+        SHED
+    }
+}
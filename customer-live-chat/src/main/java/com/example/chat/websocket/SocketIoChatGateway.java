@@ -3,6 +3,9 @@ package com.example.chat.websocket;
 import com.corundumstudio.socketio.AckRequest;
 import com.corundumstudio.socketio.SocketIOClient;
 import com.corundumstudio.socketio.SocketIOServer;
+import com.corundumstudio.socketio.protocol.EngineIOVersion;
+import com.example.chat.analytics.OperationsAnalytics;
+import com.example.chat.analytics.OperationsSnapshotPublisher;
 import com.example.chat.config.ChatProperties;
 import com.example.chat.domain.ChatMessage;
 import com.example.chat.domain.ChatMessageType;
@@ -10,34 +13,38 @@ import com.example.chat.domain.ChatParticipant;
 import com.example.chat.domain.ConversationMetadata;
 import com.example.chat.domain.ConversationStatus;
 import com.example.chat.domain.QueueEntry;
+import com.example.chat.dto.AgentSessionResponse;
 import com.example.chat.dto.ChatMessagePayload;
+import com.example.chat.dto.ConversationRoomRequest;
 import com.example.chat.dto.SocketHandshakeResponse;
 import com.example.chat.event.ChatEvent;
 import com.example.chat.event.ChatEventListener;
 import com.example.chat.event.ChatEventType;
 import com.example.chat.event.ChatMessageEvent;
+import com.example.chat.observability.ChatMetrics;
+import com.example.chat.observability.ChatTracing;
 import com.example.chat.service.AgentQueueService;
 import com.example.chat.service.ConversationService;
 import com.example.chat.service.ParticipantIdentityService;
 import com.example.chat.service.PresenceService;
-import com.example.chat.service.RedisKeyFactory;
 import com.example.chat.websocket.SessionBinding;
 import com.example.chat.websocket.SessionBinding.Scope;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RMapCache;
-import org.redisson.api.RedissonClient;
-import org.redisson.codec.TypedJsonJacksonCodec;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -52,6 +59,9 @@ public class SocketIoChatGateway implements ChatEventListener {
     private static final String ERROR_EVENT = "system:error";
     private static final String QUEUE_ROOM = "agent-queue";
     private static final String QUEUE_EVENT = "queue:snapshot";
+    private static final String JOIN_EVENT = "conversation:join";
+    private static final String LEAVE_EVENT = "conversation:leave";
+    private static final String LEFT_EVENT = "conversation:left";
 
     private static final String PARAM_ROLE = "role";
     private static final String PARAM_TOKEN = "token";
@@ -59,37 +69,110 @@ public class SocketIoChatGateway implements ChatEventListener {
     private static final String PARAM_CONVERSATION_ID = "conversationId";
     private static final String PARAM_DISPLAY_NAME = "displayName";
     private static final String PARAM_SCOPE = "scope";
+    private static final String PARAM_CONVERSATION_IDS = "conversationIds";
+    private static final String PARAM_RESUME_TOKEN = "resumeToken";
+    private static final String PARAM_LAST_SEQUENCE = "lastSequence";
     private static final String SCOPE_QUEUE = "queue";
+    private static final String SCOPE_AGENT = "agent";
+    private static final String SCOPE_SUPERVISOR = "supervisor";
+    private static final String TRANSPORT_CONNECTED = "transportConnected";
+    private static final String HANDSHAKE_STARTED = "handshakeStarted";
+    private static final String HANDSHAKE_PENDING = "handshakePending";
 
     private final SocketIOServer socketIOServer;
     private final PresenceService presenceService;
     private final ParticipantIdentityService participantIdentityService;
     private final ApplicationContext applicationContext;
     private final AgentQueueService agentQueueService;
-    private final RedisKeyFactory keyFactory;
-    private final RedissonClient redissonClient;
     private final ChatProperties chatProperties;
-    private final ObjectMapper objectMapper;
+    private final SocketMessageRateLimiter messageRateLimiter;
+    private final ChatMetrics metrics;
+    private final ChatTracing tracing;
+    private final SocketResumeTokens resumeTokens;
+    private final SocketSessionRegistry sessionRegistry;
+    private final SocketHandshakeAdmission handshakeAdmission;
+    private final SocketOutboundBuffers outboundBuffers;
+    private final ObjectProvider<OperationsAnalytics> operationsAnalytics;
 
-    private TypedJsonJacksonCodec sessionCodec;
-
-    private RMapCache<String, SessionBinding> sessionRegistry;
+    /**
+     * Participant whose presence each handshaken session holds, released on disconnect.
+     */
+    private final Map<UUID, String> presenceSessions = new ConcurrentHashMap<>();
 
     @PostConstruct
     public void registerListeners() {
-        sessionCodec = new TypedJsonJacksonCodec(String.class, SessionBinding.class, objectMapper);
-        sessionRegistry = redissonClient.getMapCache(keyFactory.socketSessionMapKey(), sessionCodec);
-        socketIOServer.addConnectListener(this::handleConnect);
+        socketIOServer.addConnectListener(this::admitConnect);
         socketIOServer.addDisconnectListener(this::handleDisconnect);
-        socketIOServer.addEventListener(MESSAGE_EVENT, ChatMessagePayload.class, this::handleMessage);
+        socketIOServer.addEventListener(MESSAGE_EVENT, ChatMessagePayload.class, (client, payload, ackSender) ->
+                tracing.inSpan("chat.socket.message", traceCarrier(payload), () -> {
+                    handleMessage(client, payload, ackSender);
+                    return null;
+                }));
+        socketIOServer.addEventListener(JOIN_EVENT, ConversationRoomRequest.class, (client, request, ackSender) ->
+                tracing.inSpan("chat.socket.join", () -> handleJoin(client, request, ackSender)));
+        socketIOServer.addEventListener(LEAVE_EVENT, ConversationRoomRequest.class, this::handleLeave);
+    }
+
+    private Map<String, String> traceCarrier(ChatMessagePayload payload) {
+        return payload != null && StringUtils.hasText(payload.getTraceparent())
+                ? Map.of(ChatTracing.TRACEPARENT, payload.getTraceparent())
+                : Map.of();
+    }
+
+    /**
+     * Hands the handshake to {@link SocketHandshakeAdmission} so the Netty event loop never waits on
+     * Redis or PostgreSQL. Connects beyond the admission limits are told when to retry and closed
+     * before any lookup happens.
+     */
+    private void admitConnect(SocketIOClient client) {
+        // netty-socketio reports Engine.IO v4 clients as connected twice: on the transport handshake,
+        // before the client has joined the namespace and can receive events, and again on its
+        // namespace CONNECT packet. Only the second one is answered.
+        if (client.getEngineIOVersion() == EngineIOVersion.V4 && client.get(TRANSPORT_CONNECTED) == null) {
+            client.set(TRANSPORT_CONNECTED, Boolean.TRUE);
+            return;
+        }
+        if (client.get(HANDSHAKE_STARTED) != null) {
+            return;
+        }
+        client.set(HANDSHAKE_STARTED, Boolean.TRUE);
+        Timer.Sample handshake = metrics.startTimer();
+        client.set(HANDSHAKE_PENDING, Boolean.TRUE);
+        handshakeAdmission.admit(
+                () -> tracing.inSpan("chat.socket.handshake", () -> handleConnect(client, handshake)),
+                retryAfterMillis -> shedHandshake(client, retryAfterMillis));
+    }
+
+    private void shedHandshake(SocketIOClient client, long retryAfterMillis) {
+        log.debug("Shedding handshake of client {}, retry after {} ms", client.getSessionId(), retryAfterMillis);
+        client.sendEvent(ERROR_EVENT, Map.of(
+                "message", "Too many connection attempts. Please retry later.",
+                "code", "handshake_shed",
+                "retryAfterMs", retryAfterMillis));
+        client.disconnect();
     }
 
-    private void handleConnect(SocketIOClient client) {
+    private void handleConnect(SocketIOClient client, Timer.Sample handshake) {
+        String scope = client.getHandshakeData().getSingleUrlParam(PARAM_SCOPE);
+        boolean queueScope = SCOPE_QUEUE.equalsIgnoreCase(scope);
+        boolean agentScope = SCOPE_AGENT.equalsIgnoreCase(scope);
+        boolean supervisorScope = SCOPE_SUPERVISOR.equalsIgnoreCase(scope);
+        boolean success = false;
         try {
             String role = client.getHandshakeData().getSingleUrlParam(PARAM_ROLE);
-            String scope = client.getHandshakeData().getSingleUrlParam(PARAM_SCOPE);
-            if (SCOPE_QUEUE.equalsIgnoreCase(scope)) {
+            if (queueScope) {
                 handleQueueConnect(client);
+                success = true;
+                return;
+            }
+            if (agentScope) {
+                handleAgentConnect(client);
+                success = true;
+                return;
+            }
+            if (supervisorScope) {
+                handleSupervisorConnect(client);
+                success = true;
                 return;
             }
 
@@ -103,29 +186,80 @@ public class SocketIoChatGateway implements ChatEventListener {
                     ? participantIdentityService.resolveAgent(token, displayName, Map.of())
                     : participantIdentityService.resolveCustomer(token, fingerprint, displayName, Map.of());
 
-            ConversationMetadata conversation = resolveConversation(client, participant, conversationId, isAgent);
+            // a valid resume token already proves the participant was admitted to the conversation
+            String resumedConversationId = resumeTokens
+                    .verify(client.getHandshakeData().getSingleUrlParam(PARAM_RESUME_TOKEN))
+                    .filter(claims -> claims.participantId().equals(participant.getId())
+                            && claims.participantType() == participant.getType()
+                            && (!StringUtils.hasText(conversationId) || claims.conversationId().equals(conversationId)))
+                    .map(SocketResumeTokens.Claims::conversationId)
+                    .orElse(null);
+            boolean resumed = resumedConversationId != null;
+            ConversationMetadata conversation = resumed ? null : resolveConversation(client, participant, conversationId, isAgent);
+            String roomId = resumed ? resumedConversationId : conversation.getId();
 
             client.set("participant", participant);
-            client.set("conversationId", conversation.getId());
+            client.set("conversationId", roomId);
 
-            SessionBinding binding = SessionBinding.conversation(client.getSessionId().toString(), participant, conversation.getId());
-            storeSession(binding, chatProperties.getRedis().getConversationTtl());
-            presenceService.markPresent(participant.getId());
-            client.joinRoom(conversation.getId());
+            SessionBinding binding = SessionBinding.conversation(client.getSessionId().toString(), participant, roomId);
+            sessionRegistry.register(binding);
+            openPresence(client.getSessionId(), participant.getId());
+            messageRateLimiter.register(client.getSessionId(), participant.getId());
+            client.joinRoom(roomId);
 
-            SocketHandshakeResponse response = SocketHandshakeResponse.builder()
+            SocketHandshakeResponse.SocketHandshakeResponseBuilder response = SocketHandshakeResponse.builder()
                     .participant(participant)
                     .conversation(conversation)
-                    .build();
+                    .conversationId(roomId)
+                    .resumed(resumed)
+                    .resumeToken(resumeTokens.issue(roomId, participant.getId(), participant.getType()));
+            replayMissedMessages(client, roomId, response);
 
-            client.sendEvent(SYSTEM_EVENT, response);
-            log.info("Client {} connected as {} for conversation {}", client.getSessionId(), role, conversation.getId());
+            client.sendEvent(SYSTEM_EVENT, response.build());
+            success = true;
+            log.info("Client {} {} as {} for conversation {}",
+                    client.getSessionId(), resumed ? "resumed" : "connected", role, roomId);
         } catch (Exception e) {
             log.error("Failed to handle connect", e);
-            removeSession(client.getSessionId());
-            client.sendEvent(ERROR_EVENT, Map.of("message", e.getMessage()));
+            sessionRegistry.remove(client.getSessionId().toString());
+            client.sendEvent(ERROR_EVENT, Map.of("message", String.valueOf(e.getMessage())));
             client.disconnect();
+        } finally {
+            client.del(HANDSHAKE_PENDING);
+            metrics.recordHandshake(handshake, queueScope ? SCOPE_QUEUE
+                    : agentScope ? SCOPE_AGENT
+                    : supervisorScope ? SCOPE_SUPERVISOR
+                    : "conversation", success);
+        }
+        if (!client.isChannelOpen()) {
+            // the client left while the handshake was running; release what it registered
+            handleDisconnect(client);
+        }
+    }
+
+    /**
+     * Adds the messages after {@code lastSequence} to the handshake response. The room is joined
+     * first, so a message sent meanwhile may arrive twice but never goes missing; clients drop
+     * sequences they already have.
+     */
+    private void replayMissedMessages(
+            SocketIOClient client, String conversationId, SocketHandshakeResponse.SocketHandshakeResponseBuilder response) {
+        String lastSequence = client.getHandshakeData().getSingleUrlParam(PARAM_LAST_SEQUENCE);
+        if (!StringUtils.hasText(lastSequence)) {
+            return;
+        }
+        long afterSequence;
+        try {
+            afterSequence = Long.parseLong(lastSequence.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("lastSequence must be a number");
         }
+        int maxReplay = chatProperties.getResume().getMaxReplay();
+        List<ChatMessage> missed = applicationContext.getBean(ConversationService.class)
+                .getMessagesAfter(conversationId, afterSequence, maxReplay + 1);
+        boolean truncated = missed.size() > maxReplay;
+        response.missedMessages(truncated ? missed.subList(0, maxReplay) : missed)
+                .missedMessagesTruncated(truncated);
     }
 
     private void handleQueueConnect(SocketIOClient client) {
@@ -136,14 +270,135 @@ public class SocketIoChatGateway implements ChatEventListener {
         client.set("participant", agent);
         client.set("scope", SessionBinding.Scope.QUEUE);
         SessionBinding binding = SessionBinding.queue(sessionId.toString(), agent);
-        storeSession(binding, chatProperties.getRedis().getPresenceTtl());
-        presenceService.markPresent(agent.getId());
+        sessionRegistry.register(binding);
+        openPresence(sessionId, agent.getId());
+        messageRateLimiter.register(sessionId, agent.getId());
         client.joinRoom(QUEUE_ROOM);
         List<QueueEntry> snapshot = agentQueueService.listQueue(0, chatProperties.getQueue().getBroadcastLimit());
         client.sendEvent(QUEUE_EVENT, snapshot);
         log.info("Agent {} subscribed to live queue updates", agent.getId());
     }
 
+    /**
+     * Operations dashboard: joins the room the analytics snapshots are pushed to and gets the current
+     * snapshot straight away. Only agents listed in {@code chat.analytics.supervisors} get in; the
+     * snapshots cover every agent and conversation, so any other agent token is refused. Everything
+     * shown comes from this node's stream consumer, so the handshake touches neither Redis nor the
+     * database.
+     */
+    private void handleSupervisorConnect(SocketIOClient client) {
+        String token = client.getHandshakeData().getSingleUrlParam(PARAM_TOKEN);
+        String displayName = client.getHandshakeData().getSingleUrlParam(PARAM_DISPLAY_NAME);
+        OperationsAnalytics analytics = operationsAnalytics.getIfAvailable();
+        if (analytics == null) {
+            throw new IllegalStateException("Operations analytics are disabled");
+        }
+        if (!StringUtils.hasText(token) || !chatProperties.getAnalytics().getSupervisors().contains(token)) {
+            throw new IllegalStateException("Supervisor access is not granted to this agent");
+        }
+        ChatParticipant supervisor = participantIdentityService.resolveAgent(token, displayName, Map.of("role", "supervisor"));
+        client.set("participant", supervisor);
+        client.set("scope", Scope.SUPERVISOR);
+        client.joinRoom(OperationsSnapshotPublisher.SUPERVISOR_ROOM);
+        client.sendEvent(OperationsSnapshotPublisher.SNAPSHOT_EVENT, analytics.snapshot(Instant.now()));
+        log.info("Supervisor {} subscribed to operations analytics", supervisor.getId());
+    }
+
+    /**
+     * One connection for everything an agent does: the queue stream plus any number of conversation
+     * rooms, joined and left with {@code conversation:join}/{@code conversation:leave}. A reconnecting
+     * dashboard passes {@code conversationIds} to rejoin its rooms in the handshake; those lookups and
+     * the queue snapshot run side by side.
+     */
+    private void handleAgentConnect(SocketIOClient client) {
+        String token = client.getHandshakeData().getSingleUrlParam(PARAM_TOKEN);
+        String displayName = client.getHandshakeData().getSingleUrlParam(PARAM_DISPLAY_NAME);
+        ChatParticipant agent = participantIdentityService.resolveAgent(token, displayName, Map.of());
+        UUID sessionId = client.getSessionId();
+        client.set("participant", agent);
+        client.set("scope", Scope.AGENT);
+        sessionRegistry.register(SessionBinding.agent(sessionId.toString(), agent));
+        openPresence(sessionId, agent.getId());
+        messageRateLimiter.register(sessionId, agent.getId());
+
+        // joined before the snapshot is read, so no queue change falls between the two
+        client.joinRoom(QUEUE_ROOM);
+        CompletableFuture<List<QueueEntry>> snapshot = handshakeAdmission.lookup(tracing.withCurrentSpan(
+                () -> agentQueueService.listQueue(0, chatProperties.getQueue().getBroadcastLimit())));
+
+        List<CompletableFuture<ConversationMetadata>> rejoins = new ArrayList<>();
+        String conversationIds = client.getHandshakeData().getSingleUrlParam(PARAM_CONVERSATION_IDS);
+        if (StringUtils.hasText(conversationIds)) {
+            Arrays.stream(conversationIds.split(","))
+                    .map(String::trim)
+                    .filter(StringUtils::hasText)
+                    .distinct()
+                    .forEach(conversationId -> rejoins.add(handshakeAdmission
+                            .lookup(tracing.withCurrentSpan(() -> joinConversation(client, agent, conversationId)))
+                            .exceptionally(ex -> {
+                                log.debug("Agent {} could not rejoin conversation {}: {}",
+                                        agent.getId(), conversationId, ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage());
+                                return null;
+                            })));
+        }
+        List<ConversationMetadata> conversations = rejoins.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .toList();
+        client.sendEvent(SYSTEM_EVENT, AgentSessionResponse.builder()
+                .participant(agent)
+                .conversations(conversations)
+                .build());
+        client.sendEvent(QUEUE_EVENT, snapshot.join());
+        log.info("Agent {} connected with {} conversations", agent.getId(), conversations.size());
+    }
+
+    private void handleJoin(SocketIOClient client, ConversationRoomRequest request, AckRequest ackSender) {
+        ChatParticipant agent = client.get("participant");
+        try {
+            if (agent == null || client.get("scope") != Scope.AGENT) {
+                throw new IllegalStateException("Only agent sessions can join conversations");
+            }
+            if (request == null || !StringUtils.hasText(request.getConversationId())) {
+                throw new IllegalArgumentException("Conversation id is required");
+            }
+            ConversationMetadata conversation = joinConversation(client, agent, request.getConversationId());
+            ackSender.sendAckData(SocketHandshakeResponse.builder()
+                    .participant(agent)
+                    .conversation(conversation)
+                    .build());
+        } catch (RuntimeException ex) {
+            ackSender.sendAckData(Map.of("error", String.valueOf(ex.getMessage())));
+        }
+    }
+
+    private void handleLeave(SocketIOClient client, ConversationRoomRequest request, AckRequest ackSender) {
+        if (client.get("scope") == Scope.AGENT && request != null && StringUtils.hasText(request.getConversationId())) {
+            client.leaveRoom(request.getConversationId());
+        }
+        ackSender.sendAckData(Map.of("conversationId", request != null ? String.valueOf(request.getConversationId()) : ""));
+    }
+
+    private ConversationMetadata joinConversation(SocketIOClient client, ChatParticipant agent, String conversationId) {
+        ConversationMetadata conversation = applicationContext.getBean(ConversationService.class)
+                .getConversation(conversationId)
+                .orElseThrow(() -> new IllegalArgumentException("Conversation not found"));
+        if (conversation.getStatus() == ConversationStatus.CLOSED) {
+            throw new IllegalStateException("Conversation is already closed");
+        }
+        if (conversation.getAgent() == null || !agent.getId().equals(conversation.getAgent().getId())) {
+            throw new IllegalStateException("Conversation is not assigned to this agent");
+        }
+        client.joinRoom(conversationId);
+        return conversation;
+    }
+
+    private void openPresence(UUID sessionId, String participantId) {
+        if (presenceSessions.putIfAbsent(sessionId, participantId) == null) {
+            presenceService.sessionOpened(participantId);
+        }
+    }
+
     private ConversationMetadata resolveConversation(
             SocketIOClient client, ChatParticipant participant, String conversationId, boolean isAgent) {
         if (StringUtils.hasText(conversationId)) {
@@ -162,26 +417,34 @@ public class SocketIoChatGateway implements ChatEventListener {
             throw new IllegalArgumentException("Agents must join with a conversationId");
         }
 
-        ConversationMetadata conversation = applicationContext.getBean(ConversationService.class)
-                .startConversation(participant, Map.of());
+        // without a token or fingerprint the customer id is random, so there is nothing to rejoin
+        boolean identified = StringUtils.hasText(client.getHandshakeData().getSingleUrlParam(PARAM_TOKEN))
+                || StringUtils.hasText(client.getHandshakeData().getSingleUrlParam(PARAM_FINGERPRINT));
+        ConversationService conversationService = applicationContext.getBean(ConversationService.class);
+        ConversationMetadata conversation = identified
+                ? conversationService.resumeOrStartConversation(participant, Map.of())
+                : conversationService.startConversation(participant, Map.of());
         client.set("conversationId", conversation.getId());
         return conversation;
     }
 
     private void handleDisconnect(SocketIOClient client) {
         UUID sessionId = client.getSessionId();
-        SessionBinding binding = removeSession(sessionId);
+        messageRateLimiter.release(sessionId);
+        SessionBinding binding = sessionRegistry.remove(sessionId.toString());
+        String presenceHolder = presenceSessions.remove(sessionId);
+        if (presenceHolder != null) {
+            presenceService.sessionClosed(presenceHolder);
+        }
         ChatParticipant participant = client.get("participant");
         if (binding != null) {
             participant = participant != null ? participant : binding.getParticipant();
             if (binding.getScope() == Scope.QUEUE && binding.getQueueAgentId() != null) {
-                presenceService.markAbsent(binding.getQueueAgentId());
                 log.info("Queue subscriber {} disconnected", sessionId);
                 return;
             }
         }
         if (participant != null) {
-            presenceService.markAbsent(participant.getId());
             log.info("Client {} disconnected", sessionId);
         }
     }
@@ -189,14 +452,33 @@ public class SocketIoChatGateway implements ChatEventListener {
     private void handleMessage(SocketIOClient client, ChatMessagePayload payload, AckRequest ackSender) {
         ChatParticipant sender = client.get("participant");
         if (sender == null) {
-            SessionBinding binding = sessionRegistry != null ? sessionRegistry.get(client.getSessionId().toString()) : null;
+            SessionBinding binding = sessionRegistry.local(client.getSessionId().toString());
             sender = binding != null ? binding.getParticipant() : null;
         }
+        if (sender == null && client.get(HANDSHAKE_PENDING) != null) {
+            if (ackSender != null) {
+                ackSender.sendAckData(Map.of("error", "Wait for the handshake to complete"), tracing.currentContext());
+            }
+            return;
+        }
         if (sender == null) {
             client.disconnect();
             return;
         }
 
+        SocketMessageRateLimiter.Decision decision = messageRateLimiter.tryAcquire(client.getSessionId());
+        if (!decision.allowed()) {
+            rejectMessage(client, sender, decision, ackSender);
+            return;
+        }
+
+        if (client.get("scope") == Scope.AGENT && !client.getAllRooms().contains(payload.getConversationId())) {
+            if (ackSender != null) {
+                ackSender.sendAckData(Map.of("error", "Join the conversation before sending messages"), tracing.currentContext());
+            }
+            return;
+        }
+
         try {
             ChatMessageType messageType = ChatMessageType.valueOf(payload.getType().toUpperCase(Locale.ROOT));
             ChatMessage message =
@@ -204,51 +486,60 @@ public class SocketIoChatGateway implements ChatEventListener {
                             .sendMessage(payload.getConversationId(), sender, payload.getContent(), messageType);
 
             if (ackSender != null) {
-                ackSender.sendAckData(message);
+                ackSender.sendAckData(message, tracing.currentContext());
             }
         } catch (Exception ex) {
             log.error("Failed to send message", ex);
             if (ackSender != null) {
-                ackSender.sendAckData(Map.of("error", ex.getMessage()));
+                ackSender.sendAckData(Map.of("error", ex.getMessage()), tracing.currentContext());
             }
         }
     }
 
+    private void rejectMessage(
+            SocketIOClient client, ChatParticipant sender, SocketMessageRateLimiter.Decision decision, AckRequest ackSender) {
+        Map<String, Object> error = Map.of(
+                "error", "Message rate exceeded. Please slow down.",
+                "code", "rate_limited",
+                "retryAfterMs", decision.retryAfterMillis());
+        if (ackSender != null && ackSender.isAckRequested()) {
+            ackSender.sendAckData(error, tracing.currentContext());
+        }
+        if (decision.outcome() == SocketMessageRateLimiter.Outcome.DISCONNECT) {
+            log.warn("Disconnecting client {} ({}) for sustained message flooding", client.getSessionId(), sender.getId());
+            client.sendEvent(ERROR_EVENT, error);
+            client.disconnect();
+        }
+    }
+
     @Override
     public void onLifecycleEvent(ChatEvent event) {
         if (event.getType() == ChatEventType.CONVERSATION_CLOSED) {
             log.debug("Conversation {} closed", event.getConversationId());
+            // multiplexed agent sockets live for a whole shift; drop closed rooms so they do not pile up
+            for (SocketIOClient client : socketIOServer.getRoomOperations(event.getConversationId()).getClients()) {
+                if (client.get("scope") == Scope.AGENT) {
+                    client.leaveRoom(event.getConversationId());
+                    client.sendEvent(LEFT_EVENT, Map.of("conversationId", event.getConversationId(), "reason", "closed"));
+                }
+            }
         }
     }
 
     @Override
     public void onMessageEvent(ChatMessageEvent event) {
-        socketIOServer
-                .getRoomOperations(event.getConversationId())
-                .sendEvent(MESSAGE_EVENT, event.getMessage());
-    }
-
-    private void storeSession(SessionBinding binding, Duration ttl) {
-        if (sessionRegistry == null || binding == null) {
-            return;
-        }
-        if (ttl != null && !ttl.isNegative() && !ttl.isZero()) {
-            sessionRegistry.fastPut(binding.getSessionId(), binding, ttl.toMillis(), TimeUnit.MILLISECONDS);
-        } else {
-            sessionRegistry.fastPut(binding.getSessionId(), binding);
-        }
-    }
-
-    private SessionBinding removeSession(UUID sessionId) {
-        if (sessionRegistry == null) {
-            return null;
-        }
-        return sessionRegistry.remove(sessionId.toString());
+        tracing.inSpan("chat.socket.fanout", () -> metrics.recordFanout(MESSAGE_EVENT, event.getConversationId(), () -> {
+            for (SocketIOClient client : socketIOServer.getRoomOperations(event.getConversationId()).getClients()) {
+                outboundBuffers.sendMessage(client, MESSAGE_EVENT, event.getMessage());
+            }
+        }));
     }
 
     @PreDestroy
     public void shutdown() {
         socketIOServer.removeAllListeners(MESSAGE_EVENT);
+        socketIOServer.removeAllListeners(JOIN_EVENT);
+        socketIOServer.removeAllListeners(LEAVE_EVENT);
         socketIOServer.removeAllListeners(SYSTEM_EVENT);
         socketIOServer.removeAllListeners(ERROR_EVENT);
     }
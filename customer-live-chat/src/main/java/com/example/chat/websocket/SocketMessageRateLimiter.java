@@ -0,0 +1,168 @@
+package com.example.chat.websocket;
+
+import com.example.chat.config.ChatSecurityProperties;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Throttles inbound socket chat messages before any backend work happens. Every session has its own
+ * bucket and every participant shares one bucket across all of their sessions, so opening more
+ * sockets does not raise the limit. Sessions that keep sending while throttled are told to
+ * disconnect. State is node-local and released when the last session of a participant goes away.
+ */
+@Component
+@RequiredArgsConstructor
+public class SocketMessageRateLimiter {
+
+    private final ChatSecurityProperties securityProperties;
+
+    private final Map<UUID, SessionLimit> sessions = new ConcurrentHashMap<>();
+    private final Map<String, ParticipantLimit> participants = new ConcurrentHashMap<>();
+
+    /**
+     * Starts tracking a session once its handshake has bound it to a participant. Only the connect
+     * path calls this; {@link #tryAcquire} never creates state, so a message racing the disconnect
+     * cannot bring a released session back.
+     */
+    public void register(UUID sessionId, String participantId) {
+        ChatSecurityProperties.SocketRateLimit config = securityProperties.getSocketRateLimit();
+        if (!config.isEnabled()) {
+            return;
+        }
+        sessions.computeIfAbsent(sessionId, id -> {
+            participants.compute(participantId, (pid, participant) -> {
+                ParticipantLimit tracked = participant != null
+                        ? participant
+                        : new ParticipantLimit(newBucket(config.getParticipantCapacity(), config.getParticipantRefillTokens(), config));
+                tracked.sessions++;
+                return tracked;
+            });
+            return new SessionLimit(participantId, newBucket(config.getSessionCapacity(), config.getSessionRefillTokens(), config));
+        });
+    }
+
+    /**
+     * Takes a token from both the session and the participant bucket, or from neither: when the
+     * participant bucket is empty the session token is handed back. Sessions that were never
+     * registered, or were already released, are rejected.
+     */
+    public Decision tryAcquire(UUID sessionId) {
+        ChatSecurityProperties.SocketRateLimit config = securityProperties.getSocketRateLimit();
+        if (!config.isEnabled()) {
+            return Decision.ALLOWED;
+        }
+        SessionLimit session = sessions.get(sessionId);
+        if (session == null) {
+            return Decision.UNKNOWN_SESSION;
+        }
+
+        ConsumptionProbe probe = session.bucket.tryConsumeAndReturnRemaining(1);
+        if (probe.isConsumed()) {
+            ParticipantLimit participant = participants.get(session.participantId);
+            if (participant == null) {
+                session.bucket.addTokens(1);
+                return Decision.UNKNOWN_SESSION;
+            }
+            probe = participant.bucket.tryConsumeAndReturnRemaining(1);
+            if (!probe.isConsumed()) {
+                session.bucket.addTokens(1);
+            }
+        }
+        if (probe.isConsumed()) {
+            return Decision.ALLOWED;
+        }
+
+        long retryAfterMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(probe.getNanosToWaitForRefill()), 1);
+        return session.recordViolation(config)
+                ? Decision.disconnect(retryAfterMillis)
+                : Decision.rejected(retryAfterMillis);
+    }
+
+    public void release(UUID sessionId) {
+        SessionLimit session = sessions.remove(sessionId);
+        if (session == null) {
+            return;
+        }
+        participants.computeIfPresent(session.participantId, (id, participant) ->
+                --participant.sessions > 0 ? participant : null);
+    }
+
+    private static Bucket newBucket(long capacity, long refillTokens, ChatSecurityProperties.SocketRateLimit config) {
+        Duration refillPeriod = config.getRefillPeriod();
+        if (refillPeriod == null || refillPeriod.isZero() || refillPeriod.isNegative()) {
+            refillPeriod = Duration.ofSeconds(10);
+        }
+        Bandwidth limit = Bandwidth.classic(
+                Math.max(capacity, 1), Refill.greedy(Math.max(refillTokens, 1), refillPeriod));
+        return Bucket.builder().addLimit(limit).build();
+    }
+
+    public record Decision(Outcome outcome, long retryAfterMillis) {
+
+        static final Decision ALLOWED = new Decision(Outcome.ALLOWED, 0);
+        static final Decision UNKNOWN_SESSION = new Decision(Outcome.REJECTED, 0);
+
+        static Decision rejected(long retryAfterMillis) {
+            return new Decision(Outcome.REJECTED, retryAfterMillis);
+        }
+
+        static Decision disconnect(long retryAfterMillis) {
+            return new Decision(Outcome.DISCONNECT, retryAfterMillis);
+        }
+
+        public boolean allowed() {
+            return outcome == Outcome.ALLOWED;
+        }
+    }
+
+    public enum Outcome {
+        ALLOWED,
+        REJECTED,
+        DISCONNECT
+    }
+
+    private static final class SessionLimit {
+
+        private final String participantId;
+        private final Bucket bucket;
+        private long windowStartedAt;
+        private int violations;
+
+        private SessionLimit(String participantId, Bucket bucket) {
+            this.participantId = participantId;
+            this.bucket = bucket;
+        }
+
+        private synchronized boolean recordViolation(ChatSecurityProperties.SocketRateLimit config) {
+            if (config.getMaxViolations() <= 0) {
+                return false;
+            }
+            long now = System.nanoTime();
+            Duration window = config.getViolationWindow();
+            if (violations == 0 || window == null || now - windowStartedAt > window.toNanos()) {
+                windowStartedAt = now;
+                violations = 0;
+            }
+            return ++violations >= config.getMaxViolations();
+        }
+    }
+
+    private static final class ParticipantLimit {
+
+        private final Bucket bucket;
+        private int sessions;
+
+        private ParticipantLimit(Bucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+}
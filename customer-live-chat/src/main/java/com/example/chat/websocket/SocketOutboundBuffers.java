@@ -0,0 +1,265 @@
+package com.example.chat.websocket;
+
+import com.corundumstudio.socketio.SocketIOClient;
+import com.corundumstudio.socketio.Transport;
+import com.corundumstudio.socketio.handler.ClientHead;
+import com.example.chat.config.ChatProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps slow Socket.IO clients from making Netty buffer without bound. Every connection gets the
+ * {@code chat.socketio.write-buffer-*-water-mark}s; while a websocket is above the high mark, events
+ * sent with {@link #sendLatest} are conflated so only the newest one per event name goes out once it
+ * drains. Chat messages sent with {@link #sendMessage} are never conflated or dropped: they wait in
+ * order until the websocket drains, and a client that falls more than
+ * {@code chat.socketio.max-queued-messages} behind is disconnected instead. So is a connection that
+ * stays unwritable for {@code chat.socketio.max-unwritable}, or that piles up more than
+ * {@code chat.socketio.max-buffered} of other frames. The client gets what it missed back when it
+ * reconnects and resumes from its last sequence.
+ */
+@Slf4j
+@Component
+public class SocketOutboundBuffers {
+
+    private static final String HANDLER_NAME = "outboundBuffers";
+    private static final AttributeKey<Long> UNWRITABLE_SINCE = AttributeKey.valueOf("chat.unwritableSince");
+
+    private final ChatProperties chatProperties;
+    private final MeterRegistry registry;
+    private final WritabilityHandler handler = new WritabilityHandler();
+
+    private final Set<Channel> channels = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, PendingEvents> pending = new ConcurrentHashMap<>();
+    private final Map<UUID, QueuedMessages> messages = new ConcurrentHashMap<>();
+
+    public SocketOutboundBuffers(ChatProperties chatProperties, MeterRegistry registry) {
+        this.chatProperties = chatProperties;
+        this.registry = registry;
+        Gauge.builder("chat.socket.outbound.buffered", this, SocketOutboundBuffers::bufferedBytes)
+                .description("Bytes waiting in the outbound buffers of this node's Socket.IO connections")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("chat.socket.outbound.unwritable", this, SocketOutboundBuffers::unwritableChannels)
+                .description("Socket.IO connections above the write buffer high water mark")
+                .register(registry);
+    }
+
+    /**
+     * Installs the water marks and the writability tracking on a new connection.
+     */
+    public void configure(Channel channel) {
+        ChatProperties.SocketIo config = chatProperties.getSocketio();
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(
+                (int) config.getWriteBufferLowWaterMark().toBytes(), (int) config.getWriteBufferHighWaterMark().toBytes()));
+        channel.pipeline().addFirst(HANDLER_NAME, handler);
+    }
+
+    /**
+     * Sends an event of which only the newest matters, such as a queue snapshot. While the client's
+     * websocket is unwritable the payload replaces any earlier one and is sent once it drains.
+     */
+    public void sendLatest(SocketIOClient client, String event, Object payload) {
+        UUID sessionId = client.getSessionId();
+        if (client.getTransport() != Transport.WEBSOCKET || client.isWritable()) {
+            PendingEvents superseded = pending.get(sessionId);
+            if (superseded != null) {
+                superseded.events().remove(event);
+            }
+            client.sendEvent(event, payload);
+            return;
+        }
+        PendingEvents events = pending.computeIfAbsent(sessionId, id -> new PendingEvents(client, new ConcurrentHashMap<>()));
+        if (events.events().put(event, payload) != null) {
+            Counter.builder("chat.socket.outbound.conflated")
+                    .description("Events replaced by a newer one while the client was unwritable")
+                    .tag("event", event)
+                    .register(registry)
+                    .increment();
+        }
+        if (client.isWritable()) {
+            // drained while we were queueing; no writability change will come to flush it
+            flushPending(sessionId);
+        }
+    }
+
+    /**
+     * Sends a chat message event. While the client's websocket is unwritable, or earlier messages are
+     * still waiting, it is queued behind them and written in order once the websocket drains.
+     */
+    public void sendMessage(SocketIOClient client, String event, Object payload) {
+        if (client.getTransport() != Transport.WEBSOCKET) {
+            client.sendEvent(event, payload);
+            return;
+        }
+        UUID sessionId = client.getSessionId();
+        QueuedMessages queued = messages.computeIfAbsent(sessionId, id -> new QueuedMessages(client, new ArrayDeque<>()));
+        int backlog;
+        synchronized (queued) {
+            if (queued.events().isEmpty() && client.isWritable()) {
+                client.sendEvent(event, payload);
+                return;
+            }
+            queued.events().add(new QueuedEvent(event, payload));
+            backlog = queued.events().size();
+        }
+        if (backlog > chatProperties.getSocketio().getMaxQueuedMessages()) {
+            closeSlowConsumer(sessionId, "message_backlog");
+        } else if (client.isWritable()) {
+            // drained while we were queueing; no writability change will come to flush it
+            flushMessages(sessionId);
+        }
+    }
+
+    /**
+     * Writes queued messages in order until the websocket is unwritable again.
+     */
+    private void flushMessages(UUID sessionId) {
+        QueuedMessages queued = messages.get(sessionId);
+        if (queued == null) {
+            return;
+        }
+        synchronized (queued) {
+            while (!queued.events().isEmpty() && queued.client().isChannelOpen() && queued.client().isWritable()) {
+                QueuedEvent next = queued.events().poll();
+                queued.client().sendEvent(next.event(), next.payload());
+            }
+        }
+    }
+
+    private void flushPending(UUID sessionId) {
+        PendingEvents events = pending.remove(sessionId);
+        if (events == null || !events.client().isChannelOpen()) {
+            return;
+        }
+        events.events().forEach((event, payload) -> events.client().sendEvent(event, payload));
+    }
+
+    private void closeSlowConsumer(UUID sessionId, String reason) {
+        for (Channel channel : channels) {
+            if (sessionId.equals(sessionId(channel)) && channel.isActive()) {
+                closeSlowConsumer(channel, reason);
+            }
+        }
+    }
+
+    private void closeSlowConsumer(Channel channel, String reason) {
+        log.warn("Disconnecting slow Socket.IO consumer {} ({}, {} bytes buffered)",
+                channel.remoteAddress(), reason, pendingBytes(channel));
+        Counter.builder("chat.socket.outbound.disconnects")
+                .description("Slow consumers disconnected by the outbound buffer policy")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+        channel.close();
+    }
+
+    private double bufferedBytes() {
+        long total = 0;
+        for (Channel channel : channels) {
+            total += pendingBytes(channel);
+        }
+        return total;
+    }
+
+    private double unwritableChannels() {
+        return channels.stream().filter(channel -> !channel.isWritable()).count();
+    }
+
+    private static long pendingBytes(Channel channel) {
+        ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+        return buffer != null ? buffer.totalPendingWriteBytes() : 0;
+    }
+
+    private static UUID sessionId(Channel channel) {
+        ClientHead client = channel.attr(ClientHead.CLIENT).get();
+        return client != null ? client.getSessionId() : null;
+    }
+
+    private record PendingEvents(SocketIOClient client, Map<String, Object> events) {
+    }
+
+    private record QueuedMessages(SocketIOClient client, Queue<QueuedEvent> events) {
+    }
+
+    private record QueuedEvent(String event, Object payload) {
+    }
+
+    @ChannelHandler.Sharable
+    private final class WritabilityHandler extends ChannelDuplexHandler {
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            channels.add(ctx.channel());
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            channels.remove(ctx.channel());
+            UUID sessionId = sessionId(ctx.channel());
+            if (sessionId != null) {
+                pending.remove(sessionId);
+                messages.remove(sessionId);
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+            Channel channel = ctx.channel();
+            if (channel.isWritable()) {
+                channel.attr(UNWRITABLE_SINCE).set(null);
+                UUID sessionId = sessionId(channel);
+                if (sessionId != null) {
+                    flushMessages(sessionId);
+                    flushPending(sessionId);
+                }
+            } else {
+                Long since = System.nanoTime();
+                channel.attr(UNWRITABLE_SINCE).set(since);
+                ctx.executor().schedule(() -> {
+                    if (channel.isActive() && since.equals(channel.attr(UNWRITABLE_SINCE).get())) {
+                        closeSlowConsumer(channel, "unwritable");
+                    }
+                }, chatProperties.getSocketio().getMaxUnwritable().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            super.channelWritabilityChanged(ctx);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            // chat messages are held back by sendMessage while the websocket is unwritable, so they
+            // only get here once it drains; this bounds every other frame
+            if (pendingBytes(ctx.channel()) > chatProperties.getSocketio().getMaxBuffered().toBytes()) {
+                ReferenceCountUtil.release(msg);
+                promise.tryFailure(new IOException("Outbound buffer limit exceeded"));
+                if (ctx.channel().isActive()) {
+                    closeSlowConsumer(ctx.channel(), "buffer_limit");
+                }
+                return;
+            }
+            super.write(ctx, msg, promise);
+        }
+    }
+}
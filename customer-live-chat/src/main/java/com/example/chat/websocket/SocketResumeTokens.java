@@ -0,0 +1,97 @@
+package com.example.chat.websocket;
+
+import com.example.chat.config.ChatProperties;
+import com.example.chat.domain.ParticipantType;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Signed, self-contained resume tokens. A token names the conversation a participant was admitted
+ * to, so a reconnect within {@code chat.resume.token-ttl} can rejoin the room without looking the
+ * conversation up again. Verification is an HMAC check and touches neither Redis nor PostgreSQL.
+ */
+@Slf4j
+@Component
+public class SocketResumeTokens {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ChatProperties chatProperties;
+    private final SecretKeySpec key;
+
+    public SocketResumeTokens(ChatProperties chatProperties) {
+        this.chatProperties = chatProperties;
+        String secret = chatProperties.getResume().getSecret();
+        byte[] keyBytes;
+        if (StringUtils.hasText(secret)) {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        } else if (chatProperties.getCluster().isAffinity()) {
+            throw new IllegalStateException(
+                    "chat.resume.secret must be set when chat.cluster.affinity is on; clients reconnect to any node");
+        } else {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            log.warn("chat.resume.secret is not set; resume tokens are only valid on this node");
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    public String issue(String conversationId, String participantId, ParticipantType type) {
+        long expiresAt = System.currentTimeMillis() + chatProperties.getResume().getTokenTtl().toMillis();
+        // the participant id comes from the client and goes last, so it may contain the separator
+        String claims = expiresAt + "|" + type.name() + "|" + conversationId + "|" + participantId;
+        byte[] payload = claims.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * The claims of {@code token} if it is well-formed, correctly signed and not expired.
+     */
+    public Optional<Claims> verify(String token) {
+        if (!StringUtils.hasText(token)) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payload = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return Optional.empty();
+            }
+            String[] parts = new String(payload, StandardCharsets.UTF_8).split("\\|", 4);
+            if (parts.length != 4 || Long.parseLong(parts[0]) < System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+            return Optional.of(new Claims(parts[2], parts[3], ParticipantType.valueOf(parts[1])));
+        } catch (IllegalArgumentException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Unable to sign resume token", ex);
+        }
+    }
+
+    public record Claims(String conversationId, String participantId, ParticipantType participantType) {
+    }
+}
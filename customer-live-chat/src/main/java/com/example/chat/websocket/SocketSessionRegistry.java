@@ -0,0 +1,34 @@
+package com.example.chat.websocket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Socket sessions of this node. Sessions only live as long as their connection to this node, and
+ * every lookup comes from the gateway holding that connection, so they are kept in memory and the
+ * socket hot path makes no Redis call for them.
+ */
+@Component
+public class SocketSessionRegistry {
+
+    private final Map<String, SessionBinding> sessions = new ConcurrentHashMap<>();
+
+    public void register(SessionBinding binding) {
+        if (binding == null || binding.getSessionId() == null) {
+            return;
+        }
+        sessions.put(binding.getSessionId(), binding);
+    }
+
+    public SessionBinding remove(String sessionId) {
+        return sessions.remove(sessionId);
+    }
+
+    /**
+     * The session if it is connected to this node.
+     */
+    public SessionBinding local(String sessionId) {
+        return sessions.get(sessionId);
+    }
+}
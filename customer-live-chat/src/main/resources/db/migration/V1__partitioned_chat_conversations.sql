@@ -0,0 +1,95 @@
+-- chat_conversations is range-partitioned by created_at month. Open conversations are bounded by
+-- chat.conversation.max-duration, so they always live in the newest partitions; retention drops whole
+-- monthly partitions (see ConversationPartitionMaintenance) instead of deleting rows.
+
+CREATE OR REPLACE FUNCTION chat_conversations_ensure_partition(month_start date) RETURNS void AS $$
+DECLARE
+    first_day date := date_trunc('month', month_start)::date;
+BEGIN
+    EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF chat_conversations FOR VALUES FROM (%L) TO (%L)',
+            'chat_conversations_' || to_char(first_day, 'YYYYMM'),
+            first_day::timestamp AT TIME ZONE 'UTC',
+            (first_day + interval '1 month')::timestamp AT TIME ZONE 'UTC');
+END;
+$$ LANGUAGE plpgsql;
+
+-- Tables created earlier by Hibernate (ddl-auto=update) are plain heaps; move them aside and copy below.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1
+               FROM pg_class c
+                        JOIN pg_namespace n ON n.oid = c.relnamespace
+               WHERE c.relname = 'chat_conversations'
+                 AND n.nspname = current_schema()
+                 AND c.relkind = 'r') THEN
+        ALTER TABLE chat_conversations RENAME TO chat_conversations_legacy;
+        ALTER TABLE chat_conversations_legacy RENAME CONSTRAINT chat_conversations_pkey TO chat_conversations_legacy_pkey;
+    END IF;
+END;
+$$;
+
+CREATE TABLE chat_conversations (
+    id                    varchar(64)                 NOT NULL,
+    status                varchar(32)                 NOT NULL,
+    customer_id           varchar(128)                NOT NULL,
+    customer_display_name varchar(255),
+    customer_type         varchar(32),
+    customer_metadata     jsonb,
+    agent_id              varchar(128),
+    agent_display_name    varchar(255),
+    agent_type            varchar(32),
+    agent_metadata        jsonb,
+    created_at            timestamp(6) with time zone NOT NULL,
+    updated_at            timestamp(6) with time zone,
+    accepted_at           timestamp(6) with time zone,
+    closed_at             timestamp(6) with time zone,
+    tags                  jsonb,
+    attributes            jsonb,
+    version               bigint,
+    CONSTRAINT chat_conversations_pkey PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX chat_conversations_open_idx
+    ON chat_conversations (created_at, updated_at)
+    WHERE status <> 'CLOSED';
+
+CREATE INDEX chat_conversations_agent_idx
+    ON chat_conversations (agent_id, status);
+
+DO $$
+DECLARE
+    first_month date := date_trunc('month', now() AT TIME ZONE 'UTC')::date;
+    last_month  date := (date_trunc('month', now() AT TIME ZONE 'UTC') + interval '2 months')::date;
+    month       date;
+BEGIN
+    IF to_regclass('chat_conversations_legacy') IS NOT NULL THEN
+        SELECT least(first_month, coalesce(date_trunc('month', min(created_at) AT TIME ZONE 'UTC')::date, first_month))
+        INTO first_month
+        FROM chat_conversations_legacy;
+    END IF;
+
+    month := first_month;
+    WHILE month <= last_month LOOP
+        PERFORM chat_conversations_ensure_partition(month);
+        month := (month + interval '1 month')::date;
+    END LOOP;
+
+    IF to_regclass('chat_conversations_legacy') IS NOT NULL THEN
+        INSERT INTO chat_conversations (
+            id, status, customer_id, customer_display_name, customer_type, customer_metadata,
+            agent_id, agent_display_name, agent_type, agent_metadata,
+            created_at, updated_at, accepted_at, closed_at, tags, attributes, version)
+        SELECT id, status, customer_id, customer_display_name, customer_type,
+               nullif(customer_metadata::text, '')::jsonb,
+               agent_id, agent_display_name, agent_type,
+               nullif(agent_metadata::text, '')::jsonb,
+               created_at, updated_at, accepted_at, closed_at,
+               nullif(tags::text, '')::jsonb,
+               nullif(attributes::text, '')::jsonb,
+               version
+        FROM chat_conversations_legacy;
+        DROP TABLE chat_conversations_legacy;
+    END IF;
+END;
+$$;
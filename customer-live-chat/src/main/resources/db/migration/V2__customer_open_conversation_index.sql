@@ -0,0 +1,6 @@
+-- Lets a reconnecting customer find their open conversation instead of starting another one. Only
+-- open rows are indexed, so the index stays as small as the set of live chats.
+
+CREATE INDEX chat_conversations_customer_open_idx
+    ON chat_conversations (customer_id, created_at)
+    WHERE status <> 'CLOSED';
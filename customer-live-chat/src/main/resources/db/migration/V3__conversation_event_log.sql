@@ -0,0 +1,59 @@
+-- chat_conversation_events is the append-only log of every conversation: one row per version, written
+-- in the same statement as the chat_conversations row, which is kept as the projection that queries
+-- read. Every chat.conversation.snapshot-every versions (and on every full save) the row also carries
+-- the whole conversation as it was after the event, so a replay starts at the newest snapshot.
+-- Messages do not move the version: they are logged at the version current when they were sent, so
+-- racing messages never fail each other's version check. Their ordinal numbers the conversation's
+-- messages from 1 and gives their sequence numbers; transitions keep ordinal 0. A log reads in
+-- (version, ordinal) order.
+-- It is partitioned by the conversation's created_at month, so it ages out together with
+-- chat_conversations (see ConversationPartitionMaintenance).
+
+CREATE TABLE chat_conversation_events (
+    conversation_id         varchar(64)                 NOT NULL,
+    version                 bigint                      NOT NULL,
+    ordinal                 integer                     NOT NULL DEFAULT 0,
+    type                    varchar(32)                 NOT NULL,
+    occurred_at             timestamp(6) with time zone NOT NULL,
+    conversation_created_at timestamp(6) with time zone NOT NULL,
+    data                    jsonb,
+    snapshot                jsonb,
+    CONSTRAINT chat_conversation_events_pkey PRIMARY KEY (conversation_id, version, ordinal, conversation_created_at)
+) PARTITION BY RANGE (conversation_created_at);
+
+CREATE OR REPLACE FUNCTION chat_conversation_events_ensure_partition(month_start date) RETURNS void AS $$
+DECLARE
+    first_day date := date_trunc('month', month_start)::date;
+BEGIN
+    EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF chat_conversation_events FOR VALUES FROM (%L) TO (%L)',
+            'chat_conversation_events_' || to_char(first_day, 'YYYYMM'),
+            first_day::timestamp AT TIME ZONE 'UTC',
+            (first_day + interval '1 month')::timestamp AT TIME ZONE 'UTC');
+END;
+$$ LANGUAGE plpgsql;
+
+-- One partition per existing conversation partition, then a snapshot of every stored conversation so
+-- existing conversations replay from where the log starts.
+DO $$
+DECLARE
+    first_month date := date_trunc('month', now() AT TIME ZONE 'UTC')::date;
+    last_month  date := (date_trunc('month', now() AT TIME ZONE 'UTC') + interval '2 months')::date;
+    month       date;
+BEGIN
+    SELECT least(first_month, coalesce(date_trunc('month', min(created_at) AT TIME ZONE 'UTC')::date, first_month))
+    INTO first_month
+    FROM chat_conversations;
+
+    month := first_month;
+    WHILE month <= last_month LOOP
+        PERFORM chat_conversation_events_ensure_partition(month);
+        month := (month + interval '1 month')::date;
+    END LOOP;
+END;
+$$;
+
+INSERT INTO chat_conversation_events (
+    conversation_id, version, type, occurred_at, conversation_created_at, data, snapshot)
+SELECT c.id, coalesce(c.version, 0), 'SAVED', coalesce(c.updated_at, c.created_at), c.created_at, NULL, to_jsonb(c)
+FROM chat_conversations c;
@@ -0,0 +1,250 @@
+package com.example.chat.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+import com.example.chat.config.ChatProperties;
+import com.example.chat.config.KafkaConfig;
+import com.example.chat.domain.ChatMessage;
+import com.example.chat.domain.ChatMessageType;
+import com.example.chat.domain.ChatParticipant;
+import com.example.chat.domain.ParticipantType;
+import com.example.chat.dto.OperationsSnapshot;
+import com.example.chat.event.ChatEvent;
+import com.example.chat.event.ChatEventType;
+import com.example.chat.event.ChatMessageEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+
+/**
+ * Publishes lifecycle and message events to an embedded broker and checks the aggregates the
+ * analytics consumer folds from them, including that events and minutes older than the window are
+ * left out.
+ */
+@SpringBootTest(
+        classes = OperationsAnalyticsKafkaTest.AnalyticsTestConfig.class,
+        properties = {
+                "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "chat.analytics.enabled=true",
+                "chat.analytics.window=PT5M",
+                "chat.queue.max-concurrent-by-agent=4"
+        })
+@EmbeddedKafka(kraft = true)
+class OperationsAnalyticsKafkaTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(5);
+    private static final int TOPIC_PARTITIONS = 6 + 12;
+
+    @Autowired
+    private KafkaTemplate<String, ChatEvent> lifecycle;
+
+    @Autowired
+    private KafkaTemplate<String, ChatMessageEvent> messages;
+
+    @Autowired
+    private OperationsAnalytics analytics;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ChatProperties chatProperties;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listeners;
+
+    @BeforeEach
+    void waitForPartitions() {
+        ContainerTestUtils.waitForAssignment(listeners.getListenerContainer("chat-operations-analytics"), TOPIC_PARTITIONS);
+    }
+
+    @Test
+    void foldsTheStreamsIntoWindowedAggregatesAndDropsWhatLeftTheWindow() throws Exception {
+        Instant base = Instant.now().minusSeconds(90);
+        String answered = UUID.randomUUID().toString();
+        String open = UUID.randomUUID().toString();
+        String waiting = UUID.randomUUID().toString();
+
+        // answered: first response after 14s, handled for 60s
+        lifecycle(answered, ChatEventType.CONVERSATION_STARTED, base, Map.of());
+        lifecycle(answered, ChatEventType.CONVERSATION_QUEUED, base, Map.of());
+        lifecycle(answered, ChatEventType.CONVERSATION_ACCEPTED, base.plusSeconds(10), Map.of("agentId", "agent-1"));
+        message(answered, ParticipantType.CUSTOMER, "customer-1", base.plusSeconds(12));
+        message(answered, ParticipantType.AGENT, "agent-1", base.plusSeconds(14));
+        message(answered, ParticipantType.CUSTOMER, "customer-1", base.plusSeconds(40));
+        lifecycle(answered, ChatEventType.CONVERSATION_CLOSED, base.plusSeconds(70), Map.of());
+        // open: first response after 20s, still with agent-1
+        lifecycle(open, ChatEventType.CONVERSATION_QUEUED, base.plusSeconds(5), Map.of());
+        lifecycle(open, ChatEventType.CONVERSATION_ACCEPTED, base.plusSeconds(20), Map.of("agentId", "agent-1"));
+        message(open, ParticipantType.CUSTOMER, "customer-2", base.plusSeconds(22));
+        message(open, ParticipantType.AGENT, "agent-1", base.plusSeconds(25));
+        // waiting: still queued
+        lifecycle(waiting, ChatEventType.CONVERSATION_QUEUED, base.plusSeconds(30), Map.of());
+        // stamped before the window: must not count
+        message(waiting, ParticipantType.CUSTOMER, "customer-3", Instant.now().minus(WINDOW).minusSeconds(120));
+
+        awaitEvents("lifecycle", "applied", 7);
+        awaitEvents("messages", "applied", 5);
+        awaitEvents("messages", "expired", 1);
+
+        OperationsSnapshot snapshot = analytics.snapshot(Instant.now());
+        assertThat(snapshot.getWindow()).isEqualTo(WINDOW);
+        assertThat(snapshot.getQueueDepth()).isEqualTo(1);
+        assertThat(snapshot.getOpenConversations()).isEqualTo(2);
+        assertThat(snapshot.getMessagesPerMinute()).isCloseTo(5.0 / 5, within(1e-9));
+        assertThat(snapshot.getMinutes()).hasSize(5);
+        assertThat(snapshot.getMinutes().stream().mapToLong(OperationsSnapshot.Minute::getCustomerMessages).sum()).isEqualTo(3);
+        assertThat(snapshot.getMinutes().stream().mapToLong(OperationsSnapshot.Minute::getAgentMessages).sum()).isEqualTo(2);
+
+        OperationsSnapshot.Latency firstResponse = snapshot.getTimeToFirstResponse();
+        assertThat(firstResponse.getCount()).isEqualTo(2);
+        assertThat(firstResponse.getMaxMs()).isCloseTo(20_000, withinPercentage(1));
+        assertThat(firstResponse.getP50Ms()).isCloseTo(14_000, withinPercentage(1));
+
+        OperationsSnapshot.Latency handleTime = snapshot.getHandleTime();
+        assertThat(handleTime.getCount()).isEqualTo(1);
+        assertThat(handleTime.getMaxMs()).isCloseTo(60_000, withinPercentage(1));
+
+        assertThat(snapshot.getAgentUtilization()).isCloseTo(1.0 / 4, within(1e-9));
+        assertThat(snapshot.getAgents()).singleElement().satisfies(agent -> {
+            assertThat(agent.getAgentId()).isEqualTo("agent-1");
+            assertThat(agent.getActiveConversations()).isEqualTo(1);
+            assertThat(agent.getCapacity()).isEqualTo(4);
+            assertThat(agent.getUtilization()).isCloseTo(0.25, within(1e-9));
+        });
+
+        // a window later every minute bucket has aged out; only the live queue and load remain
+        OperationsSnapshot later = analytics.snapshot(Instant.now().plus(WINDOW));
+        assertThat(later.getMessagesPerMinute()).isZero();
+        assertThat(later.getTimeToFirstResponse().getCount()).isZero();
+        assertThat(later.getHandleTime().getCount()).isZero();
+        assertThat(later.getMinutes()).hasSize(5).allSatisfy(minute -> {
+            assertThat(minute.getCustomerMessages() + minute.getAgentMessages()).isZero();
+            assertThat(minute.getConversationsStarted() + minute.getConversationsClosed()).isZero();
+        });
+        assertThat(later.getQueueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    void boundsTheOpenConversationsItTracks() {
+        ChatProperties properties = new ChatProperties();
+        properties.getAnalytics().setMaxTrackedConversations(3);
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        OperationsAnalytics bounded = new OperationsAnalytics(properties, meters);
+
+        Instant now = Instant.now();
+        for (int i = 0; i < 10; i++) {
+            bounded.record(ChatEvent.builder()
+                    .eventId(UUID.randomUUID().toString())
+                    .type(ChatEventType.CONVERSATION_QUEUED)
+                    .conversationId("conversation-" + i)
+                    .occurredAt(now)
+                    .build());
+        }
+
+        OperationsSnapshot snapshot = bounded.snapshot(now);
+        assertThat(snapshot.getOpenConversations()).isEqualTo(3);
+        assertThat(snapshot.getQueueDepth()).isEqualTo(3);
+        assertThat(meters.counter("chat.analytics.evictions").count()).isEqualTo(7);
+    }
+
+    @Test
+    void aFirstResponseReadAfterTheCloseCountsWithoutReopeningTheConversation() {
+        OperationsAnalytics local = new OperationsAnalytics(new ChatProperties(), new SimpleMeterRegistry());
+        Instant now = Instant.now();
+        String conversationId = UUID.randomUUID().toString();
+        local.record(event(conversationId, ChatEventType.CONVERSATION_QUEUED, now.minusSeconds(30)));
+        local.record(event(conversationId, ChatEventType.CONVERSATION_CLOSED, now));
+        local.record(messageEvent(conversationId, ParticipantType.AGENT, "agent-1", now.minusSeconds(10)));
+
+        OperationsSnapshot snapshot = local.snapshot(now);
+        assertThat(snapshot.getOpenConversations()).isZero();
+        assertThat(snapshot.getMinutes().stream().mapToLong(OperationsSnapshot.Minute::getAgentMessages).sum()).isEqualTo(1);
+        assertThat(snapshot.getTimeToFirstResponse().getCount()).isEqualTo(1);
+        assertThat(snapshot.getTimeToFirstResponse().getMaxMs()).isCloseTo(20_000, withinPercentage(1));
+    }
+
+    private void lifecycle(String conversationId, ChatEventType type, Instant at, Map<String, Object> payload) throws Exception {
+        lifecycle.send(chatProperties.getKafka().getLifecycleTopic(), conversationId, event(conversationId, type, at, payload)).get();
+    }
+
+    private void message(String conversationId, ParticipantType senderType, String senderId, Instant at) throws Exception {
+        ChatMessageEvent event = messageEvent(conversationId, senderType, senderId, at);
+        messages.send(chatProperties.getKafka().getMessageTopic(), conversationId, event).get();
+    }
+
+    private static ChatEvent event(String conversationId, ChatEventType type, Instant at) {
+        return event(conversationId, type, at, Map.of());
+    }
+
+    private static ChatEvent event(String conversationId, ChatEventType type, Instant at, Map<String, Object> payload) {
+        return ChatEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .type(type)
+                .conversationId(conversationId)
+                .occurredAt(at)
+                .payload(payload)
+                .build();
+    }
+
+    private static ChatMessageEvent messageEvent(String conversationId, ParticipantType senderType, String senderId, Instant at) {
+        ChatMessage message = ChatMessage.builder()
+                .id(UUID.randomUUID().toString())
+                .conversationId(conversationId)
+                .type(ChatMessageType.TEXT)
+                .sender(ChatParticipant.builder().id(senderId).type(senderType).build())
+                .content("hello")
+                .timestamp(at)
+                .build();
+        return ChatMessageEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .conversationId(conversationId)
+                .message(message)
+                .occurredAt(at)
+                .build();
+    }
+
+    private void awaitEvents(String stream, String outcome, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (events(stream, outcome) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(events(stream, outcome)).as("%s events %s", stream, outcome).isEqualTo(expected);
+    }
+
+    private double events(String stream, String outcome) {
+        return registry.counter("chat.analytics.events", "stream", stream, "outcome", outcome).count();
+    }
+
+    @Configuration
+    @ImportAutoConfiguration({JacksonAutoConfiguration.class, KafkaAutoConfiguration.class})
+    @EnableConfigurationProperties(ChatProperties.class)
+    @Import({KafkaConfig.class, OperationsAnalytics.class, OperationsEventConsumer.class})
+    static class AnalyticsTestConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.chat.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.chat.config.ChatProperties;
+import com.example.chat.service.id.TimeOrderedIdGenerator;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Checks against a real PostgreSQL that lookups bounded by {@link CreatedRange} only plan the
+ * monthly partitions the conversation can be in, and that {@link ConversationPartitionMaintenance}
+ * creates and drops partitions of both partitioned tables.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ConversationPartitionPruningTest {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final YearMonth CURRENT = YearMonth.now(ZoneOffset.UTC);
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+    private static ConversationPartitionMaintenance maintenance;
+
+    @BeforeAll
+    static void migrate() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        maintenance = new ConversationPartitionMaintenance(jdbcTemplate, new ChatProperties());
+        for (int i = -3; i <= 1; i++) {
+            maintenance.ensurePartition(CURRENT.plusMonths(i));
+        }
+    }
+
+    @Test
+    void lookupByIdOnlyPlansThePartitionOfTheMonthTheIdWasCreatedIn() {
+        YearMonth month = CURRENT.minusMonths(2);
+        CreatedRange created = CreatedRange.of(idCreatedIn(month));
+
+        List<String> plan = explain(
+                "select * from chat_conversations where id = ? and created_at >= ? and created_at < ?",
+                "x", Timestamp.from(created.from()), Timestamp.from(created.to()));
+
+        assertThat(scannedPartitions(plan, "chat_conversations")).containsExactly(partition("chat_conversations", month));
+    }
+
+    @Test
+    void eventLogReadsArePrunedTheSameWay() {
+        YearMonth month = CURRENT.minusMonths(1);
+        CreatedRange created = CreatedRange.of(idCreatedIn(month));
+
+        List<String> plan = explain(
+                "select * from chat_conversation_events where conversation_id = ? "
+                        + "and conversation_created_at >= ? and conversation_created_at < ? order by version, ordinal",
+                "x", Timestamp.from(created.from()), Timestamp.from(created.to()));
+
+        assertThat(scannedPartitions(plan, "chat_conversation_events"))
+                .containsExactly(partition("chat_conversation_events", month));
+    }
+
+    @Test
+    void idsWithoutATimestampScanEveryPartition() {
+        CreatedRange created = CreatedRange.of(UUID.randomUUID().toString());
+
+        List<String> plan = explain(
+                "select * from chat_conversations where id = ? and created_at >= ? and created_at < ?",
+                "x", Timestamp.from(created.from()), Timestamp.from(created.to()));
+
+        assertThat(scannedPartitions(plan, "chat_conversations"))
+                .contains(partition("chat_conversations", CURRENT.minusMonths(3)), partition("chat_conversations", CURRENT));
+    }
+
+    @Test
+    void dropsTheMonthsOlderThanTheRetentionFromBothTables() {
+        YearMonth expired = CURRENT.minusMonths(14);
+        maintenance.ensurePartition(expired);
+
+        List<String> dropped = maintenance.dropExpiredPartitions(Duration.ofDays(365));
+
+        assertThat(dropped).containsExactlyInAnyOrder(
+                partition("chat_conversations", expired), partition("chat_conversation_events", expired));
+        assertThat(maintenance.listPartitions())
+                .doesNotContainAnyElementsOf(dropped)
+                .contains(partition("chat_conversations", CURRENT), partition("chat_conversation_events", CURRENT));
+    }
+
+    private static String idCreatedIn(YearMonth month) {
+        // mid-month, so the day of slack either side stays inside the month
+        Clock clock = Clock.fixed(month.atDay(15).atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+        return new TimeOrderedIdGenerator(clock).nextId();
+    }
+
+    private static List<String> explain(String sql, Object... args) {
+        return jdbcTemplate.queryForList("explain " + sql, String.class, args);
+    }
+
+    private static List<String> scannedPartitions(List<String> plan, String table) {
+        return plan.stream()
+                .flatMap(line -> Arrays.stream(line.split("[\\s(]+")))
+                .filter(token -> token.matches(table + "_\\d{6}"))
+                .distinct()
+                .toList();
+    }
+
+    private static String partition(String table, YearMonth month) {
+        return table + "_" + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.chat.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.chat.config.ChatDataSourceProperties;
+import com.example.chat.config.ChatProperties;
+import com.example.chat.config.DataSourceRoutingConfig;
+import com.example.chat.domain.ChatParticipant;
+import com.example.chat.domain.ConversationMetadata;
+import com.example.chat.domain.ConversationStatus;
+import com.example.chat.domain.ParticipantType;
+import com.example.chat.service.ConversationRepository;
+import com.example.chat.service.RedisKeyFactory;
+import com.example.chat.service.id.TimeOrderedIdGenerator;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Routes the repository's reads through {@link ReadReplicaRoutingDataSource} to a replica that never
+ * receives any writes, a replica lagging forever, and checks that reads of what this node just wrote
+ * stay on the primary for the read-your-writes window and go to the replica after it.
+ */
+@SpringBootTest(classes = ReadYourWritesRoutingTest.RoutingTestConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class ReadYourWritesRoutingTest {
+
+    private static final String REPLICA_DATABASE = "replica";
+    private static final Duration WINDOW = Duration.ofSeconds(1);
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ConversationRepository repository;
+
+    @MockBean
+    private RedissonClient redissonClient;
+
+    @DynamicPropertySource
+    static void dataSources(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("chat.datasource.replicas[0].url", ReadYourWritesRoutingTest::replicaUrl);
+        registry.add("chat.datasource.read-your-writes-window", WINDOW::toString);
+    }
+
+    @BeforeAll
+    static void createReplica() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+                Statement statement = connection.createStatement()) {
+            statement.execute("create database " + REPLICA_DATABASE);
+        }
+        Flyway.configure()
+                .dataSource(replicaUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+
+    @Test
+    void readsAConversationFromThePrimaryUntilTheWindowHasPassed() throws InterruptedException {
+        ConversationMetadata conversation = newConversation();
+        repository.saveConversation(conversation);
+
+        assertThat(repository.getConversation(conversation.getId()))
+                .hasValueSatisfying(read -> assertThat(read.getStatus()).isEqualTo(ConversationStatus.OPEN));
+
+        Thread.sleep(WINDOW.plusMillis(500).toMillis());
+        assertThat(repository.getConversation(conversation.getId())).isEmpty();
+    }
+
+    @Test
+    void findsTheCustomersOpenConversationOnThePrimaryUntilTheWindowHasPassed() throws InterruptedException {
+        ConversationMetadata conversation = newConversation();
+        repository.saveConversation(conversation);
+        String customerId = conversation.getCustomer().getId();
+
+        assertThat(repository.findOpenForCustomer(customerId))
+                .hasValueSatisfying(read -> assertThat(read.getId()).isEqualTo(conversation.getId()));
+
+        Thread.sleep(WINDOW.plusMillis(500).toMillis());
+        assertThat(repository.findOpenForCustomer(customerId)).isEmpty();
+    }
+
+    private static ConversationMetadata newConversation() {
+        Instant now = Instant.now();
+        return ConversationMetadata.builder()
+                .id(new TimeOrderedIdGenerator().nextId())
+                .status(ConversationStatus.OPEN)
+                .customer(ChatParticipant.builder()
+                        .id("customer-" + UUID.randomUUID())
+                        .type(ParticipantType.CUSTOMER)
+                        .displayName("Customer")
+                        .build())
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    private static String replicaUrl() {
+        return POSTGRES.getJdbcUrl().replaceFirst("/" + POSTGRES.getDatabaseName() + "(?=\\?|$)", "/" + REPLICA_DATABASE);
+    }
+
+    @Configuration
+    @ImportAutoConfiguration({
+            DataSourceAutoConfiguration.class,
+            FlywayAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class,
+            JdbcTemplateAutoConfiguration.class,
+            JacksonAutoConfiguration.class
+    })
+    @EnableConfigurationProperties({ChatProperties.class, ChatDataSourceProperties.class})
+    @EnableJpaRepositories(basePackageClasses = ConversationJpaRepository.class)
+    @EntityScan(basePackageClasses = ConversationEntity.class)
+    @Import({
+            DataSourceRoutingConfig.class,
+            JpaConversationRepository.class,
+            ConversationEntityMapper.class,
+            ConversationEventLog.class,
+            RecentWriteTracker.class,
+            RedisKeyFactory.class
+    })
+    static class RoutingTestConfig {
+    }
+}